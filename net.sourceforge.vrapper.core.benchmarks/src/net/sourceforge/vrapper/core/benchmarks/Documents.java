@@ -0,0 +1,78 @@
+package net.sourceforge.vrapper.core.benchmarks;
+
+/**
+ * Generates the documents the benchmarks run on. The text repeats a block
+ * of {@link #BLOCK_LINES} lines containing code, XML, prose and blank
+ * lines, and is enclosed in one pair of parentheses spanning all of it.
+ */
+public class Documents {
+
+    public static final int BLOCK_LINES = 10;
+
+    /** line of a block with a call like <code>call(a, (b + 1) * 2)</code> */
+    public static final int CODE_LINE = 3;
+    /** line of a block with <code>&lt;name&gt;...&lt;/name&gt;</code> */
+    public static final int XML_LINE = 1;
+    /** first line of the paragraph of a block */
+    public static final int PROSE_LINE = 6;
+
+    private Documents() {
+        // utility class
+    }
+
+    /**
+     * @return a document of <code>lines</code> lines (at least two).
+     */
+    public static String generate(int lines) {
+        StringBuilder result = new StringBuilder(lines * 40);
+        result.append("begin (\n");
+        for (int line = 1; line < lines - 1; line++) {
+            appendLine(result, line);
+            result.append('\n');
+        }
+        result.append(")\n");
+        return result.toString();
+    }
+
+    /**
+     * @return number of a line in the middle of the document, which is the
+     *         given line of a block.
+     */
+    public static int middleLine(int lines, int lineInBlock) {
+        int middle = lines / 2;
+        return middle - middle % BLOCK_LINES + lineInBlock;
+    }
+
+    private static void appendLine(StringBuilder result, int line) {
+        int block = line / BLOCK_LINES;
+        switch (line % BLOCK_LINES) {
+        case 0:
+            result.append("/* TODO: review block ").append(block).append(" */");
+            break;
+        case XML_LINE:
+            result.append("<item id=\"").append(block).append("\"><name>value ").append(block).append("</name></item>");
+            break;
+        case 2:
+            result.append("int foo").append(block).append("(int a, int b) {");
+            break;
+        case CODE_LINE:
+            result.append("    return call(a, (b + ").append(block).append(") * 2); // x marks the spot");
+            break;
+        case 4:
+            result.append('}');
+            break;
+        case PROSE_LINE:
+            result.append("lorem ipsum dolor sit amet consectetur adipiscing elit sed do");
+            break;
+        case 7:
+            result.append("eiusmod tempor incididunt ut labore et dolore magna aliqua x");
+            break;
+        case 9:
+            result.append("pat: the quick brown fox jumps over the lazy dog");
+            break;
+        default:
+            // blank line
+        }
+    }
+
+}
@@ -0,0 +1,67 @@
+package net.sourceforge.vrapper.core.benchmarks;
+
+import static net.sourceforge.vrapper.core.benchmarks.EditorState.keys;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.vrapper.keymap.KeyStroke;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Commands modifying the text: text objects, formatting and ex commands.
+ * The text is restored before each invocation.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class EditingBenchmarks {
+
+    private static final List<KeyStroke> DELETE_IN_PARENS = keys("di(");
+    private static final List<KeyStroke> DELETE_IN_TAG = keys("dit");
+    private static final List<KeyStroke> FORMAT_PARAGRAPH = keys("gqap");
+    private static final List<KeyStroke> SUBSTITUTE_ALL = keys(":%s/x/y/g<CR>");
+    private static final List<KeyStroke> DELETE_MATCHING_LINES = keys(":g/pat/d<CR>");
+
+    /** Inside <code>(b + n)</code> in the middle of the document. */
+    @Benchmark
+    public int deleteInParentheses(FreshEditorState state) {
+        state.moveToMiddle(Documents.CODE_LINE, "b +");
+        return state.type(DELETE_IN_PARENS);
+    }
+
+    /** Inside <code>&lt;name&gt;</code> in the middle of the document. */
+    @Benchmark
+    public int deleteInTag(FreshEditorState state) {
+        state.moveToMiddle(Documents.XML_LINE, "value");
+        return state.type(DELETE_IN_TAG);
+    }
+
+    @Benchmark
+    public int formatParagraph(FreshEditorState state) {
+        state.moveToMiddle(Documents.PROSE_LINE, 0);
+        return state.type(FORMAT_PARAGRAPH);
+    }
+
+    @Benchmark
+    public int substituteInWholeFile(FreshEditorState state) {
+        state.moveTo(0, 0);
+        return state.type(SUBSTITUTE_ALL);
+    }
+
+    @Benchmark
+    public int globalDelete(FreshEditorState state) {
+        state.moveTo(0, 0);
+        return state.type(DELETE_MATCHING_LINES);
+    }
+
+}
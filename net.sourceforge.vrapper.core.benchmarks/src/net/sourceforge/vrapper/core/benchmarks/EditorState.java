@@ -0,0 +1,80 @@
+package net.sourceforge.vrapper.core.benchmarks;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.headless.HeadlessPosition;
+import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A headless editor on a generated document, shared by the invocations of a
+ * benchmark. Benchmarks using it must not modify the text.
+ */
+@State(Scope.Thread)
+public class EditorState {
+
+    @Param({ "1000", "100000", "1000000" })
+    public int lines;
+
+    protected String text;
+    protected HeadlessEditor editor;
+
+    @Setup(Level.Trial)
+    public void createEditor() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        text = Documents.generate(lines);
+        HeadlessPlatform platform = new HeadlessPlatform(new SimpleConfiguration());
+        editor = new HeadlessEditor(platform, text, new DefaultRegisterManager());
+    }
+
+    /** Puts the cursor on the given column of a line in the middle of the document. */
+    public void moveToMiddle(int lineInBlock, int column) {
+        moveTo(Documents.middleLine(lines, lineInBlock), column);
+    }
+
+    /** Puts the cursor on the first occurrence of the anchor in a line in the middle of the document. */
+    public void moveToMiddle(int lineInBlock, String anchor) {
+        int line = Documents.middleLine(lines, lineInBlock);
+        LineInformation info = editor.getPlatform().getModelContent().getLineInformation(line);
+        String content = editor.getPlatform().getModelContent().getText(info.getBeginOffset(), info.getLength());
+        moveTo(line, Math.max(0, content.indexOf(anchor)));
+    }
+
+    public void moveTo(int line, int column) {
+        LineInformation info = editor.getPlatform().getModelContent().getLineInformation(line);
+        editor.getPlatform().getCursorService().setPosition(
+                new HeadlessPosition(info.getBeginOffset() + column), true);
+    }
+
+    public int type(List<KeyStroke> keys) {
+        editor.type(keys);
+        return editor.getPlatform().getCursorService().getPosition().getModelOffset();
+    }
+
+    public HeadlessEditor getEditor() {
+        return editor;
+    }
+
+    static List<KeyStroke> keys(String keys) {
+        List<KeyStroke> result = new ArrayList<KeyStroke>();
+        for (KeyStroke stroke : parseKeyStrokes(keys)) {
+            result.add(stroke);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,20 @@
+package net.sourceforge.vrapper.core.benchmarks;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Like {@link EditorState}, but the text is restored before every
+ * invocation, so benchmarks may modify it.
+ */
+@State(Scope.Thread)
+public class FreshEditorState extends EditorState {
+
+    @Setup(Level.Invocation)
+    public void restoreText() {
+        editor.getPlatform().getModelContent().setText(text);
+    }
+
+}
@@ -0,0 +1,105 @@
+package net.sourceforge.vrapper.core.benchmarks;
+
+import static net.sourceforge.vrapper.core.benchmarks.EditorState.keys;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.vrapper.keymap.KeyStroke;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Motions which do not modify the text, typed in normal mode.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class MotionBenchmarks {
+
+    private static final List<KeyStroke> WORDS_FORWARD = keys("1000w");
+    private static final List<KeyStroke> WORD_ENDS_FORWARD = keys("1000e");
+    private static final List<KeyStroke> WORDS_BACKWARD = keys("1000b");
+    private static final List<KeyStroke> MATCHING_PAREN = keys("%");
+    private static final List<KeyStroke> PARAGRAPHS = keys("100}");
+    private static final List<KeyStroke> STAR = keys("*");
+    private static final List<KeyStroke> NEXT_MATCH = keys("n");
+    private static final List<KeyStroke> SEARCH = keys("/fox<CR>");
+    private static final List<KeyStroke> RECORD_MACRO = keys("qajwwbeq");
+    private static final List<KeyStroke> PLAY_MACRO = keys("100@a");
+
+    /** State with a search and a macro prepared. */
+    @State(Scope.Thread)
+    public static class PreparedEditorState extends EditorState {
+
+        @Setup(Level.Trial)
+        public void prepare() {
+            moveTo(0, 0);
+            type(SEARCH);
+            type(RECORD_MACRO);
+        }
+
+    }
+
+    @Benchmark
+    public int wordForward(EditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(WORDS_FORWARD);
+    }
+
+    @Benchmark
+    public int wordEndForward(EditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(WORD_ENDS_FORWARD);
+    }
+
+    @Benchmark
+    public int wordBackward(EditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(WORDS_BACKWARD);
+    }
+
+    /** From the parenthesis on the first line to its partner on the last one. */
+    @Benchmark
+    public int matchingParenthesis(EditorState state) {
+        state.moveTo(0, 6);
+        return state.type(MATCHING_PAREN);
+    }
+
+    @Benchmark
+    public int paragraphForward(EditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(PARAGRAPHS);
+    }
+
+    @Benchmark
+    public int searchWordUnderCursor(EditorState state) {
+        state.moveToMiddle(Documents.PROSE_LINE, 6);
+        return state.type(STAR);
+    }
+
+    @Benchmark
+    public int searchNext(PreparedEditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(NEXT_MATCH);
+    }
+
+    @Benchmark
+    public int macroPlayback(PreparedEditorState state) {
+        state.moveToMiddle(0, 0);
+        return state.type(PLAY_MACRO);
+    }
+
+}
@@ -1,14 +1,27 @@
 package net.sourceforge.vrapper.core.tests;
 
+import net.sourceforge.vrapper.core.tests.cases.BatchRunnerTests;
+import net.sourceforge.vrapper.core.tests.cases.BracketIndexTests;
+import net.sourceforge.vrapper.core.tests.cases.ChunkedCharSequenceTests;
 import net.sourceforge.vrapper.core.tests.cases.CommandLineTests;
+import net.sourceforge.vrapper.core.tests.cases.GlobalCommandTests;
+import net.sourceforge.vrapper.core.tests.cases.HeadlessPlatformTests;
 import net.sourceforge.vrapper.core.tests.cases.InsertModeTests;
 import net.sourceforge.vrapper.core.tests.cases.KeyMapTests;
+import net.sourceforge.vrapper.core.tests.cases.KeyMappingTests;
 import net.sourceforge.vrapper.core.tests.cases.MacroTests;
 import net.sourceforge.vrapper.core.tests.cases.MotionTests;
 import net.sourceforge.vrapper.core.tests.cases.NormalModeTests;
+import net.sourceforge.vrapper.core.tests.cases.RcFileSnapshotTests;
+import net.sourceforge.vrapper.core.tests.cases.SearchIndexTests;
+import net.sourceforge.vrapper.core.tests.cases.SearchModeTests;
+import net.sourceforge.vrapper.core.tests.cases.SessionStoreTests;
 import net.sourceforge.vrapper.core.tests.cases.SimpleKeyStrokeTests;
 import net.sourceforge.vrapper.core.tests.cases.SnapshotTests;
 import net.sourceforge.vrapper.core.tests.cases.StateAndTransitionTests;
+import net.sourceforge.vrapper.core.tests.cases.SubstitutionTests;
+import net.sourceforge.vrapper.core.tests.cases.TextEditTests;
+import net.sourceforge.vrapper.core.tests.cases.TextRopeTests;
 import net.sourceforge.vrapper.core.tests.cases.VisualModeTests;
 
 import org.junit.runner.RunWith;
@@ -16,15 +29,28 @@ import org.junit.runners.Suite;
 
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+	BatchRunnerTests.class,
+	BracketIndexTests.class,
+	ChunkedCharSequenceTests.class,
 	CommandLineTests.class,
+	GlobalCommandTests.class,
+	HeadlessPlatformTests.class,
 	InsertModeTests.class,
 	KeyMapTests.class,
+	KeyMappingTests.class,
 	MacroTests.class,
 	MotionTests.class,
 	NormalModeTests.class,
+	RcFileSnapshotTests.class,
+	SearchIndexTests.class,
+	SearchModeTests.class,
+	SessionStoreTests.class,
 	SimpleKeyStrokeTests.class,
 	SnapshotTests.class,
 	StateAndTransitionTests.class,
+	SubstitutionTests.class,
+	TextEditTests.class,
+	TextRopeTests.class,
 	VisualModeTests.class,
 //	VrapperRCTests.class,
 //	TextObjectsUnitTests.class,
@@ -0,0 +1,103 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.InputStreamReader;
+import java.io.FileInputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sourceforge.vrapper.headless.BatchRunner;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BatchRunnerTests {
+
+    private final List<File> files = new ArrayList<File>();
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+    }
+
+    @After
+    public void tearDown() {
+        for (File file : files) {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParallelRun() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            files.add(createFile("foo " + i + "\nbar\nfoo foo\n"));
+        }
+        files.add(createFile("nothing to do\n"));
+        BatchRunner runner = new BatchRunner(Arrays.asList("%s/foo/baz/g"), parseKeyStrokes("ggdd"), "UTF-8");
+        List<BatchRunner.Result> results = runner.run(files, 4);
+        assertEquals(files.size(), results.size());
+        for (int i = 0; i < 20; i++) {
+            BatchRunner.Result result = results.get(i);
+            assertEquals(files.get(i), result.getFile());
+            assertTrue(result.isModified());
+            assertNull(result.getError());
+            assertEquals("bar\nbaz baz\n", read(files.get(i)));
+        }
+        assertEquals("", read(files.get(20)));
+        // not a failure
+        assertNull(results.get(20).getError());
+        assertEquals("'foo' not found", results.get(20).getMessage());
+    }
+
+    @Test
+    public void testUnmodifiedFileIsNotWritten() throws Exception {
+        File file = createFile("abc\n");
+        files.add(file);
+        file.setLastModified(0);
+        BatchRunner.Result result = new BatchRunner(Arrays.asList("%s/x/y/"), parseKeyStrokes(""), "UTF-8").process(file);
+        assertFalse(result.isModified());
+        assertEquals(0, file.lastModified());
+        assertEquals("abc\n", read(file));
+    }
+
+    private static File createFile(String content) throws IOException {
+        File file = File.createTempFile("vrapper", ".txt");
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+    private static String read(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), "UTF-8");
+        try {
+            StringBuilder result = new StringBuilder();
+            char[] buffer = new char[1024];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                result.append(buffer, 0, count);
+            }
+            return result.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+}
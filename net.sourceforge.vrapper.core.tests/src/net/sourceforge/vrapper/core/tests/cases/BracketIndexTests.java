@@ -0,0 +1,106 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Random;
+
+import net.sourceforge.vrapper.core.tests.utils.TestTextContent;
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.utils.BracketIndex;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BracketIndexTests {
+
+    private static final String ALPHABET = "(()) x\n";
+
+    private TestTextContent content;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        content = new TestTextContent(mock(CursorService.class));
+        random = new Random(42);
+    }
+
+    @Test
+    public void testNesting() {
+        content.setText("a(b(c)d)e");
+        BracketIndex index = BracketIndex.forContent(content);
+        assertEquals(3, index.findEnclosingOpen(content, '(', ')', 4, 1));
+        assertEquals(1, index.findEnclosingOpen(content, '(', ')', 4, 2));
+        assertEquals(-1, index.findEnclosingOpen(content, '(', ')', 4, 3));
+        assertEquals(5, index.findEnclosingClose(content, '(', ')', 4, 1));
+        assertEquals(7, index.findEnclosingClose(content, '(', ')', 4, 2));
+        assertEquals(7, index.findEnclosingClose(content, '(', ')', 1, 1));
+        assertEquals(1, index.findEnclosingOpen(content, '(', ')', 7, 1));
+    }
+
+    @Test
+    public void testFollowsModifications() {
+        content.setText("(a)");
+        BracketIndex index = BracketIndex.forContent(content);
+        assertEquals(2, index.findEnclosingClose(content, '(', ')', 0, 1));
+        content.replace(1, 0, "((b)");
+        assertEquals(-1, index.findEnclosingClose(content, '(', ')', 0, 1));
+        assertEquals(6, index.findEnclosingClose(content, '(', ')', 1, 1));
+        content.replace(0, 2, "");
+        assertEquals(0, index.findEnclosingOpen(content, '(', ')', 2, 1));
+        assertEquals(2, index.findEnclosingClose(content, '(', ')', 1, 1));
+        assertEquals(-1, index.findEnclosingClose(content, '(', ')', 2, 2));
+    }
+
+    @Test
+    public void testAgainstScanning() {
+        content.setText(randomText(200));
+        BracketIndex index = BracketIndex.forContent(content);
+        for (int round = 0; round < 200; round++) {
+            int length = content.getTextLength();
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(10, length - offset) + 1);
+            content.replace(offset, removed, randomText(random.nextInt(10)));
+            if (round % 3 == 0) {
+                // several modifications between queries
+                continue;
+            }
+            String text = content.getText();
+            for (int i = 0; i <= text.length(); i++) {
+                for (int count = 1; count <= 3; count++) {
+                    assertEquals(scan(text, i, count, true), index.findEnclosingOpen(content, '(', ')', i, count));
+                    assertEquals(scan(text, i, count, false), index.findEnclosingClose(content, '(', ')', i, count));
+                }
+            }
+        }
+    }
+
+    private String randomText(int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    /** Depth counting scan, as FindBalancedMotion used to do it. */
+    private static int scan(String text, int offset, int count, boolean backwards) {
+        char target = backwards ? '(' : ')';
+        char pair = backwards ? ')' : '(';
+        int step = backwards ? -1 : 1;
+        int depth = count;
+        for (int i = offset + step; i >= 0 && i < text.length(); i += step) {
+            char c = text.charAt(i);
+            if (c == target) {
+                --depth;
+            } else if (c == pair) {
+                ++depth;
+            }
+            if (depth == 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
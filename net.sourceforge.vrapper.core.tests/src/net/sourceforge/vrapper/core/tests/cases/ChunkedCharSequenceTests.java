@@ -0,0 +1,73 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import net.sourceforge.vrapper.core.tests.utils.TestTextContent;
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.utils.ChunkedCharSequence;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkedCharSequenceTests {
+
+    private static final String TEXT = "Ala ma kota,\nkot ma Ale.\n(a [b] {c})";
+
+    private TestTextContent content;
+
+    @Before
+    public void setUp() {
+        content = new TestTextContent(mock(CursorService.class));
+        content.setText(TEXT);
+    }
+
+    @Test
+    public void testForwardScan() {
+        for (int chunkSize = 1; chunkSize <= TEXT.length() + 1; chunkSize++) {
+            CharSequence text = new ChunkedCharSequence(content, 0, TEXT.length(), chunkSize);
+            assertEquals(TEXT.length(), text.length());
+            for (int i = 0; i < TEXT.length(); i++) {
+                assertEquals(TEXT.charAt(i), text.charAt(i));
+            }
+        }
+    }
+
+    @Test
+    public void testBackwardScan() {
+        for (int chunkSize = 1; chunkSize <= TEXT.length() + 1; chunkSize++) {
+            CharSequence text = new ChunkedCharSequence(content, 0, TEXT.length(), chunkSize);
+            for (int i = TEXT.length() - 1; i >= 0; i--) {
+                assertEquals(TEXT.charAt(i), text.charAt(i));
+            }
+        }
+    }
+
+    @Test
+    public void testSubSequence() {
+        CharSequence text = new ChunkedCharSequence(content, 0, TEXT.length(), 3);
+        CharSequence sub = text.subSequence(4, 11);
+        assertEquals("ma kota", sub.toString());
+        assertEquals('k', sub.charAt(3));
+        assertEquals("kota", sub.subSequence(3, 7).toString());
+        assertEquals(TEXT, text.toString());
+    }
+
+    @Test
+    public void testOutOfBounds() {
+        CharSequence text = new ChunkedCharSequence(content, 4, 7, 3);
+        try {
+            text.charAt(7);
+            fail("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+        try {
+            text.charAt(-1);
+            fail("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.utils.TrackedOffsets;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GlobalCommandTests {
+
+    private HeadlessPlatform platform;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        platform = new HeadlessPlatform(new SimpleConfiguration());
+    }
+
+    @Test
+    public void testDeleteMatchingLines() {
+        assertCommand("a\n\n\nb\n\nc\n", "g/^$/d", "a\nb\nc\n");
+        assertCommand("x1\ny\nx2\nx3", "g/x/d", "y");
+        assertCommand("x1\ny\nx2\nz", "g!/x/d", "x1\nx2");
+        assertCommand("x1\ny\nx2\nz\n", "v/x/d", "x1\nx2\n");
+    }
+
+    @Test
+    public void testCommandsOnMarkedLines() {
+        assertCommand("foo 1\nbar\nfoo 2", "g/foo/s/\\d/n/", "foo n\nbar\nfoo n");
+        assertCommand("a\nb\na", "g/a/normal Ax<ESC>", "ax\nb\nax");
+        // lines inserted by the command are not visited
+        assertCommand("a\nb", "g/a/normal oa", "a\na\nb");
+    }
+
+    @Test
+    public void testRange() {
+        assertCommand("x\nx\nx\nx", "2,3g/x/d", "x\nx");
+    }
+
+    @Test
+    public void testTrackedOffsets() {
+        TrackedOffsets offsets = new TrackedOffsets(20);
+        offsets.add(2);
+        offsets.add(5);
+        offsets.add(10);
+        offsets.add(15);
+        offsets.textChanged(0, 0, 3);
+        assertEquals(5, offsets.get(0));
+        assertEquals(18, offsets.get(3));
+        // removing [8, 14) keeps 8 and deletes 13
+        offsets.textChanged(8, 6, 1);
+        assertEquals(8, offsets.get(1));
+        assertFalse(offsets.isDeleted(1));
+        assertEquals(8, offsets.get(2));
+        assertTrue(offsets.isDeleted(2));
+        assertEquals(13, offsets.get(3));
+        offsets.textChanged(20, 0, 1);
+        assertEquals(5, offsets.get(0));
+        assertEquals(13, offsets.get(3));
+    }
+
+    private void assertCommand(String text, String command, String expected) {
+        HeadlessEditor editor = new HeadlessEditor(platform, text, new DefaultRegisterManager());
+        editor.executeCommand(command);
+        assertEquals(expected, editor.getText());
+    }
+
+}
@@ -0,0 +1,234 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.headless.HeadlessPosition;
+import net.sourceforge.vrapper.headless.HeadlessTextContent;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.Search;
+import net.sourceforge.vrapper.utils.SearchResult;
+import net.sourceforge.vrapper.utils.TrackedMarks;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class HeadlessPlatformTests {
+
+    private static final String ALPHABET = "ab \n\r\r\n";
+
+    private HeadlessPlatform platform;
+    private HeadlessTextContent content;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        platform = new HeadlessPlatform(new SimpleConfiguration());
+        content = platform.getModelContent();
+    }
+
+    @Test
+    public void testLineIndexAgainstScanning() {
+        StringBuilder reference = new StringBuilder();
+        Random random = new Random(7);
+        content.setText("");
+        for (int round = 0; round < 500; round++) {
+            int length = content.getTextLength();
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(5, length - offset) + 1);
+            String inserted = randomText(random, random.nextInt(6));
+            content.replace(offset, removed, inserted);
+            reference.replace(offset, offset + removed, inserted);
+            assertEquals(reference.toString(), content.getText());
+            List<LineInformation> lines = scanLines(reference);
+            assertEquals(lines.size(), content.getNumberOfLines());
+            for (LineInformation line : lines) {
+                assertLine(line, content.getLineInformation(line.getNumber()));
+                for (int i = line.getBeginOffset(); i <= line.getEndOffset(); i++) {
+                    assertEquals(line.getNumber(), content.getLineInformationOfOffset(i).getNumber());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testLineDelimiters() {
+        content.setText("a\r\nb\rc\n");
+        assertEquals(4, content.getNumberOfLines());
+        assertLine(new LineInformation(0, 0, 1), content.getLineInformation(0));
+        assertLine(new LineInformation(1, 3, 1), content.getLineInformation(1));
+        assertLine(new LineInformation(2, 5, 1), content.getLineInformation(2));
+        assertLine(new LineInformation(3, 7, 0), content.getLineInformation(3));
+        assertEquals(0, content.getLineInformationOfOffset(2).getNumber());
+        assertEquals(1, content.getLineInformationOfOffset(4).getNumber());
+        // joining \r and \n removes a line
+        content.replace(4, 2, "");
+        assertEquals("a\r\nb\n", content.getText());
+        assertEquals(3, content.getNumberOfLines());
+        content.replace(3, 1, "");
+        assertEquals("a\r\n\n", content.getText());
+        assertEquals(3, content.getNumberOfLines());
+        content.replace(4, 0, "x\r");
+        assertEquals(4, content.getNumberOfLines());
+        assertLine(new LineInformation(2, 4, 1), content.getLineInformation(2));
+    }
+
+    @Test
+    public void testNormalModeCommands() {
+        HeadlessEditor editor = new HeadlessEditor(platform, "one two\nthree\nfour", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("wdwjddp"));
+        assertEquals("one \nfour\nthree", editor.getText());
+        editor.type(parseKeyStrokes("u"));
+        assertEquals("one \nfour", editor.getText());
+        editor.type(parseKeyStrokes("ggAx<CR>y<ESC>"));
+        assertEquals("one x\ny\nfour", editor.getText());
+        editor.type(parseKeyStrokes("u"));
+        assertEquals("one \nfour", editor.getText());
+    }
+
+    @Test
+    public void testSubstitution() {
+        HeadlessEditor editor = new HeadlessEditor(platform, "foo bar\nbar foo\n", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes(":%s/foo/baz/g<CR>"));
+        assertEquals("baz bar\nbar baz\n", editor.getText());
+    }
+
+    @Test
+    public void testSearch() {
+        content.setText("abc abc\nabc");
+        HeadlessPosition start = new HeadlessPosition(1);
+        SearchResult forward = platform.getSearchAndReplaceService().find(new Search("abc", false, false, true), start);
+        assertTrue(forward.isFound());
+        assertEquals(4, forward.getStart().getModelOffset());
+        assertEquals(7, forward.getEnd().getModelOffset());
+        SearchResult backward = platform.getSearchAndReplaceService().find(new Search("abc", true, false, true), new HeadlessPosition(7));
+        assertEquals(4, backward.getStart().getModelOffset());
+        SearchResult missing = platform.getSearchAndReplaceService().find(new Search("ABC", false, false, true), start);
+        assertFalse(missing.isFound());
+    }
+
+    @Test
+    public void testCaretFollowsModifications() {
+        content.setText("0123456789");
+        platform.getCursorService().setPosition(new HeadlessPosition(5), true);
+        content.replace(0, 2, "");
+        assertEquals(3, platform.getCursorService().getPosition().getModelOffset());
+        content.replace(3, 0, "xy");
+        assertEquals(3, platform.getCursorService().getPosition().getModelOffset());
+        content.replace(2, 3, "abcd");
+        assertEquals(6, platform.getCursorService().getPosition().getModelOffset());
+    }
+
+    @Test
+    public void testMarksFollowModifications() {
+        HeadlessEditor editor = new HeadlessEditor(platform, "one\ntwo\nthree\nfour", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("jjmajmbggOzero<ESC>"));
+        editor.type(parseKeyStrokes("G'a"));
+        assertEquals(3, content.getLineInformationOfOffset(
+                platform.getCursorService().getPosition().getModelOffset()).getNumber());
+        editor.type(parseKeyStrokes("jdd"));
+        assertNull(platform.getCursorService().getMark("b"));
+    }
+
+    @Test
+    public void testMarksSurviveSubstitutionAndSwapCase() {
+        HeadlessEditor editor = new HeadlessEditor(platform, "foo\nmid\nfoo\n", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("jlma:%s/foo/bar/<CR>"));
+        assertEquals("bar\nmid\nbar\n", content.getText(0, content.getTextLength()));
+        assertEquals(5, platform.getCursorService().getMark("a").getModelOffset());
+        editor.type(parseKeyStrokes("ggVG~"));
+        assertEquals("BAR\nMID\nBAR\n", content.getText(0, content.getTextLength()));
+        assertEquals(5, platform.getCursorService().getMark("a").getModelOffset());
+    }
+
+    @Test
+    public void testTrackedMarksAgainstShifting() {
+        Random random = new Random(11);
+        TrackedMarks marks = new TrackedMarks();
+        int[] expected = new int[40];
+        boolean[] deleted = new boolean[expected.length];
+        int length = 1000;
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = random.nextInt(length);
+            marks.set(String.valueOf(i), expected[i]);
+        }
+        for (int round = 0; round < 2000; round++) {
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(20, length - offset) + 1);
+            int inserted = random.nextInt(20);
+            marks.textChanged(offset, removed, inserted);
+            length += inserted - removed;
+            for (int i = 0; i < expected.length; i++) {
+                if (expected[i] > offset && expected[i] < offset + removed) {
+                    if (inserted > 0) {
+                        expected[i] = Math.min(expected[i], offset + inserted - 1);
+                    } else {
+                        expected[i] = offset;
+                        deleted[i] = true;
+                    }
+                } else if (expected[i] > offset) {
+                    expected[i] += inserted - removed;
+                }
+            }
+            int moved = random.nextInt(expected.length);
+            if (round % 3 == 0) {
+                expected[moved] = random.nextInt(length + 1);
+                deleted[moved] = false;
+                marks.set(String.valueOf(moved), expected[moved]);
+            }
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], marks.get(String.valueOf(i)));
+                assertEquals(deleted[i], marks.isDeleted(String.valueOf(i)));
+            }
+        }
+        marks.remove("0");
+        assertEquals(-1, marks.get("0"));
+        assertEquals(expected.length - 1, marks.size());
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+    private static List<LineInformation> scanLines(CharSequence text) {
+        List<LineInformation> lines = new ArrayList<LineInformation>();
+        int begin = 0;
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r') {
+                lines.add(new LineInformation(lines.size(), begin, i - begin));
+                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                begin = i + 1;
+            }
+            i++;
+        }
+        lines.add(new LineInformation(lines.size(), begin, text.length() - begin));
+        return lines;
+    }
+
+    private static void assertLine(LineInformation expected, LineInformation actual) {
+        assertEquals(expected.getNumber(), actual.getNumber());
+        assertEquals(expected.getBeginOffset(), actual.getBeginOffset());
+        assertEquals(expected.getLength(), actual.getLength());
+    }
+
+}
@@ -5,8 +5,12 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
 import net.sourceforge.vrapper.core.tests.utils.VimTestCase;
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
 import net.sourceforge.vrapper.vim.modes.InsertMode;
 import net.sourceforge.vrapper.vim.modes.NormalMode;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
 
 public class InsertModeTests extends VimTestCase {
 
@@ -17,4 +21,38 @@ public class InsertModeTests extends VimTestCase {
 		type(parseKeyStrokes("<C-c>"));
 		assertEquals(NormalMode.NAME, adaptor.getCurrentModeName());
 	}
+
+	@Test
+	public void testCountedInsert() {
+		assertInsert("3ihi<ESC>", "hihih[i]abc\nxyz");
+		assertInsert("3ahi<ESC>", "ahihih[i]bc\nxyz");
+		assertInsert("3Ahi<ESC>", "abchihih[i]\nxyz");
+		assertInsert("3ia<CR>b<ESC>", "a\nba\nba\n[b]abc\nxyz");
+		assertInsert("3ohi<ESC>", "abc\nhi\nhi\nh[i]\nxyz");
+		assertInsert("3Ohi<ESC>", "hi\nhi\nh[i]\nabc\nxyz");
+		assertInsert("3ihi<ESC>u", "[a]bc\nxyz");
+	}
+
+	@Test
+	public void testCountedReplace() {
+		assertInsert("l2Rz<ESC>", "az[z]\nxyz");
+		assertInsert("3Rxy<ESC>", "xyxyx[y]\nxyz");
+		assertInsert("3Rxy<ESC>u", "[a]bc\nxyz");
+	}
+
+	@Test
+	public void testCountedRepetition() {
+		assertInsert("ihi<ESC>3.", "hhihih[i]iabc\nxyz");
+		assertInsert("ohi<ESC>2.", "abc\nhi\nhi\nh[i]\nxyz");
+		assertInsert("2ihi<ESC>j.", "hihiabc\nxyhih[i]z");
+	}
+
+	private static void assertInsert(String keys, String expected) {
+		HeadlessEditor editor = new HeadlessEditor(new HeadlessPlatform(new SimpleConfiguration()),
+				"abc\nxyz", new DefaultRegisterManager());
+		editor.type(parseKeyStrokes(keys));
+		int offset = editor.getEditorAdaptor().getPosition().getModelOffset();
+		String text = editor.getText();
+		assertEquals(keys, expected, text.substring(0, offset) + "[" + text.charAt(offset) + "]" + text.substring(offset + 1));
+	}
 }
@@ -44,6 +44,30 @@ public class KeyMapTests extends TestCase {
         assertRemove("abc", "bbc", 1, 2, 1, 1);
     }
 
+    @Test
+    public void testOverlayAndSharedMappings() {
+        Remapping other = new SimpleRemapping(key('l'));
+        map.addMapping(createStrokeList("ab"), mapping);
+        KeyMap overlay = new KeyMap(map);
+        assertEquals(mapping, overlay.press(key('a')).getNextState().press(key('b')).getValue());
+
+        overlay.addMapping(createStrokeList("ac"), other);
+        assertEquals(mapping, overlay.press(key('a')).getNextState().press(key('b')).getValue());
+        assertEquals(other, overlay.press(key('a')).getNextState().press(key('c')).getValue());
+        assertNull(map.press(key('a')).getNextState().press(key('c')));
+
+        map.addMapping(createStrokeList("x"), mapping);
+        assertEquals(mapping, overlay.press(key('x')).getValue());
+
+        KeyMap copy = new KeyMap();
+        copy.setMappings(map);
+        copy.removeMapping(createStrokeList("x"));
+        map.addMapping(createStrokeList("y"), mapping);
+        assertNull(copy.press(key('x')));
+        assertNull(copy.press(key('y')));
+        assertEquals(mapping, map.press(key('x')).getValue());
+    }
+
     private void assertRemove(String remove, String path, int... transitions) throws Exception {
         map.removeMapping(createStrokeList(remove));
         assertTransitionsOverPath(createStrokeList(path), transitions);
@@ -0,0 +1,114 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.Scheduler;
+import net.sourceforge.vrapper.platform.ServiceProvider;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.modes.InsertMode;
+import net.sourceforge.vrapper.vim.modes.NormalMode;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyMappingTests {
+
+    private ManualScheduler scheduler;
+    private HeadlessEditor editor;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        scheduler = new ManualScheduler();
+        HeadlessPlatform platform = new HeadlessPlatform(new SimpleConfiguration()) {
+            @Override
+            public ServiceProvider getServiceProvider() {
+                return scheduler;
+            }
+        };
+        editor = new HeadlessEditor(platform, "", new DefaultRegisterManager());
+        editor.executeCommand("inoremap jk <ESC>");
+        editor.executeCommand("inoremap ab xy");
+        editor.executeCommand("inoremap abcd z");
+    }
+
+    @Test
+    public void testCompletedMappingRemovesPendingText() {
+        editor.type(parseKeyStrokes("ifoj"));
+        assertEquals("foj", editor.getText());
+        editor.type(parseKeyStrokes("k"));
+        assertEquals("fo", editor.getText());
+        assertEquals(NormalMode.NAME, editor.getEditorAdaptor().getCurrentModeName());
+        assertNull(scheduler.pending);
+    }
+
+    @Test
+    public void testUnfinishedMappingKeepsPendingText() {
+        editor.type(parseKeyStrokes("ijx"));
+        assertEquals("jx", editor.getText());
+        assertEquals(InsertMode.NAME, editor.getEditorAdaptor().getCurrentModeName());
+    }
+
+    @Test
+    public void testTimeoutCommitsPendingText() {
+        editor.type(parseKeyStrokes("ij"));
+        scheduler.runPending();
+        editor.type(parseKeyStrokes("k"));
+        assertEquals("jk", editor.getText());
+        assertEquals(InsertMode.NAME, editor.getEditorAdaptor().getCurrentModeName());
+    }
+
+    @Test
+    public void testTimeoutAppliesLongestMapping() {
+        editor.type(parseKeyStrokes("iabc"));
+        assertEquals("abc", editor.getText());
+        scheduler.runPending();
+        assertEquals("xyc", editor.getText());
+    }
+
+    @Test
+    public void testLongerMappingWins() {
+        editor.type(parseKeyStrokes("iabcd"));
+        assertEquals("z", editor.getText());
+    }
+
+    @Test
+    public void testTimeoutCanBeDisabled() {
+        editor.executeCommand("set notimeout");
+        editor.type(parseKeyStrokes("ij"));
+        assertNull(scheduler.pending);
+    }
+
+    private static class ManualScheduler implements ServiceProvider, Scheduler {
+
+        private Runnable pending;
+
+        public <T> T getService(Class<T> serviceClass) {
+            return serviceClass == Scheduler.class ? serviceClass.cast(this) : null;
+        }
+
+        public void schedule(Runnable task, int delayMillis) {
+            pending = task;
+        }
+
+        public void cancel(Runnable task) {
+            if (pending == task) {
+                pending = null;
+            }
+        }
+
+        void runPending() {
+            Runnable task = pending;
+            pending = null;
+            task.run();
+        }
+
+    }
+
+}
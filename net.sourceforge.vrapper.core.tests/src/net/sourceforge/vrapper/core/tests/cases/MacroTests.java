@@ -33,6 +33,33 @@ public class MacroTests extends CommandTestCase {
 				"Ala fo", 'o', " kota");
 	}
 	
+	@Test public void testChangedMacro() {
+		checkCommand(forKeySeq("qaxq"),
+				"Ala ",'m', "a kota",
+				"Ala ",'a', " kota");
+
+		//recording again replaces the macro played before
+		checkCommand(forKeySeq("@a"),
+				"Ala ",'m', "a kota",
+				"Ala ",'a', " kota");
+		checkCommand(forKeySeq("qa~q"),
+				"Ala ",'m', "a kota",
+				"Ala M",'a', " kota");
+		checkCommand(forKeySeq("@a"),
+				"Ala ",'m', "a kota",
+				"Ala M",'a', " kota");
+	}
+
+	@Test public void testCountedMacroAtEndOfLine() {
+		checkCommand(forKeySeq("qbxq"),
+				"Ala ma kot",'a', "",
+				"Ala ma ko",'t', "");
+		// the cursor is placed back on the line after each command
+		checkCommand(forKeySeq("3@b"),
+				"Ala ma kot",'a', "",
+				"Ala ma ",'k', "");
+	}
+
 	@Test public void testMultipleMacros() {
 		//define macro 'a'
 		checkCommand(forKeySeq("qacwfoo<ESC>q"),
@@ -322,6 +322,17 @@ public class NormalModeTests extends CommandTestCase {
 				"Al czasami",'a'," ma kota");
 	}
 	
+	@Test public void test_P_with_count() {
+		defaultRegister.setContent(new StringRegisterContent(ContentType.TEXT, "xy"));
+		// like Vim, on the last character of the last copy
+		checkCommand(forKeySeq("3P"),
+				"Al",'a'," ma kota",
+				"Alxyxyx",'y',"a ma kota");
+		checkCommand(forKeySeq("3gP"),
+				"Al",'a'," ma kota",
+				"Alxyxyxy",'a'," ma kota");
+	}
+
 	@Test public void test_P_empty_clipboard() {
 		defaultRegister.setContent(new StringRegisterContent(ContentType.TEXT, ""));
 		checkCommand(forKeySeq("P"),
@@ -837,6 +848,27 @@ public class NormalModeTests extends CommandTestCase {
                 "sth",' ',"  sth");
     }
 
+	@Test
+    public void testCountedJoin() {
+        checkCommand(forKeySeq("4J"),
+                "s",'t',"h \n  a\n)\n\nb\nc",
+                "sth a) ",'b',"\nc");
+        checkCommand(forKeySeq("3J"),
+                "s",'t',"h\nx\ny\nz",
+                "sth x y",' ',"z");
+        checkCommand(forKeySeq("3~"),
+                "",'a',"bcd",
+                "ABC",'d',"");
+    }
+
+	@Test
+    public void testCountedJoinPastLastLine() {
+        checkCommand(forKeySeq("5J"),
+                "s",'t',"h\nx",
+                "sth",' ',"x");
+        verify(userInterfaceService).setErrorMessage("there is nothing to join below last line");
+	}
+
 	@Test
     public void testJoinLastLine() {
         checkCommand(forKeySeq("J"),
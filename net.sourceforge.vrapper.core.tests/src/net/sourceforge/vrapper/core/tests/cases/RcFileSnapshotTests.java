@@ -0,0 +1,89 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.key;
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.keyStrokesToString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.keymap.KeyMap;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.Options;
+import net.sourceforge.vrapper.vim.RcFileSnapshot;
+import net.sourceforge.vrapper.vim.modes.NormalMode;
+import net.sourceforge.vrapper.vim.modes.commandline.CommandLineParser;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RcFileSnapshotTests {
+
+    private File rc;
+
+    @Before
+    public void setUp() throws IOException {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        rc = File.createTempFile("vrapperrc", null);
+        FileWriter writer = new FileWriter(rc);
+        writer.write("set ignorecase\nset scrolljump=5\nnmap Q dd\nset number\n");
+        writer.close();
+    }
+
+    @After
+    public void tearDown() {
+        rc.delete();
+    }
+
+    @Test
+    public void testAppliedToEveryEditor() {
+        RcFileSnapshot snapshot = RcFileSnapshot.forFile(rc);
+        for (int i = 0; i < 2; i++) {
+            HeadlessPlatform platform = new HeadlessPlatform(new SimpleConfiguration());
+            HeadlessEditor editor = new HeadlessEditor(platform, "a\nb", new DefaultRegisterManager());
+            DefaultEditorAdaptor vim = editor.getEditorAdaptor();
+            snapshot.applyTo(vim);
+            assertTrue(vim.getConfiguration().get(Options.IGNORE_CASE));
+            assertEquals(Integer.valueOf(5), vim.getConfiguration().get(Options.SCROLL_JUMP));
+            assertTrue(vim.getConfiguration().get(Options.LINE_NUMBERS));
+            KeyMap map = platform.getKeyMapProvider().getKeyMap(NormalMode.KEYMAP_NAME);
+            assertEquals("dd", keyStrokesToString(map.press(key('Q')).getValue().getKeyStrokes()));
+            editor.type(key('Q'));
+            assertEquals("b", editor.getText());
+        }
+    }
+
+    @Test
+    public void testReadAgainWhenModified() {
+        RcFileSnapshot snapshot = RcFileSnapshot.forFile(rc);
+        assertSame(snapshot, RcFileSnapshot.forFile(rc));
+        rc.setLastModified(rc.lastModified() - 10000);
+        assertNotSame(snapshot, RcFileSnapshot.forFile(rc));
+        rc.delete();
+        assertNull(RcFileSnapshot.forFile(rc));
+    }
+
+    @Test
+    public void testRecordedCommands() {
+        assertTrue(CommandLineParser.onlyChangesOptionsOrKeyMaps("set ignorecase"));
+        assertTrue(CommandLineParser.onlyChangesOptionsOrKeyMaps("set tw=80"));
+        assertTrue(CommandLineParser.onlyChangesOptionsOrKeyMaps("inoremap jj <ESC>"));
+        assertTrue(CommandLineParser.onlyChangesOptionsOrKeyMaps(""));
+        assertFalse(CommandLineParser.onlyChangesOptionsOrKeyMaps("set number"));
+        assertFalse(CommandLineParser.onlyChangesOptionsOrKeyMaps("set list!"));
+        assertFalse(CommandLineParser.onlyChangesOptionsOrKeyMaps("set ignorecase?"));
+        assertFalse(CommandLineParser.onlyChangesOptionsOrKeyMaps("cd /tmp"));
+    }
+
+}
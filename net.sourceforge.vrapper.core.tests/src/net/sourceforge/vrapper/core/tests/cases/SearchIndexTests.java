@@ -0,0 +1,111 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.headless.HeadlessPosition;
+import net.sourceforge.vrapper.headless.HeadlessTextContent;
+import net.sourceforge.vrapper.platform.SearchAndReplaceService;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.utils.Search;
+import net.sourceforge.vrapper.utils.SearchIndex;
+import net.sourceforge.vrapper.utils.SearchOffset;
+import net.sourceforge.vrapper.utils.SearchResult;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchIndexTests {
+
+    private static final String ALPHABET = "aab \n";
+
+    private HeadlessPlatform platform;
+    private HeadlessTextContent content;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        platform = new HeadlessPlatform(new SimpleConfiguration());
+        content = platform.getModelContent();
+    }
+
+    @Test
+    public void testAgainstSearchingWhileEditing() {
+        Search[] searches = {
+                new Search("ab", false, false, true),
+                new Search("aa", true, false, true),
+                new Search("b", false, true, false),
+                new Search("a+b?", false, false, true, SearchOffset.NONE, true),
+                new Search("^a", true, false, true, SearchOffset.NONE, true),
+                new Search("b\\s*a", false, false, true, SearchOffset.NONE, true),
+                new Search("b\\W+a", false, false, true, SearchOffset.NONE, true),
+                new Search("(?s)b.a", false, false, true, SearchOffset.NONE, true),
+                new Search("[\\x0a]a", false, false, true, SearchOffset.NONE, true),
+                new Search("\\D\\Da", false, false, true, SearchOffset.NONE, true),
+        };
+        Random random = new Random(11);
+        content.setText("");
+        SearchIndex index = SearchIndex.forContent(content);
+        SearchAndReplaceService service = platform.getSearchAndReplaceService();
+        for (int round = 0; round < searches.length * 50; round++) {
+            int length = content.getTextLength();
+            int offset = random.nextInt(length + 1);
+            int removed = random.nextInt(Math.min(4, length - offset) + 1);
+            content.replace(offset, removed, randomText(random, random.nextInt(6)));
+            Search search = searches[round / 50];
+            if (round % 2 == 0) {
+                // a count indexes regular expressions, otherwise they are searched directly
+                index.getMatchCount(search);
+            }
+            for (int i = 0; i <= content.getTextLength(); i++) {
+                HeadlessPosition position = new HeadlessPosition(i);
+                assertResult(service.find(search, position), index.find(search, position));
+            }
+        }
+    }
+
+    @Test
+    public void testNextMatchWithCount() {
+        HeadlessEditor editor = new HeadlessEditor(platform, "x foo\nfoo x\nx foo", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("/foo<CR>"));
+        assertEquals(2, platform.getCursorService().getPosition().getModelOffset());
+        editor.type(parseKeyStrokes("2n"));
+        assertEquals(14, platform.getCursorService().getPosition().getModelOffset());
+        SearchIndex index = SearchIndex.forContent(content);
+        Search search = editor.getEditorAdaptor().getRegisterManager().getSearch();
+        assertEquals(3, index.getMatchNumber(search, 14));
+        assertEquals(3, index.getMatchCount(search));
+        editor.type(parseKeyStrokes("n"));
+        assertEquals(2, platform.getCursorService().getPosition().getModelOffset());
+        editor.type(parseKeyStrokes("N"));
+        assertEquals(14, platform.getCursorService().getPosition().getModelOffset());
+        // the index follows modifications
+        editor.type(parseKeyStrokes("ggOfoo<ESC>n"));
+        assertEquals(6, platform.getCursorService().getPosition().getModelOffset());
+        assertEquals(2, index.getMatchNumber(search, 6));
+        assertEquals(4, index.getMatchCount(search));
+    }
+
+    private static void assertResult(SearchResult expected, SearchResult actual) {
+        assertEquals(expected.isFound(), actual.isFound());
+        if (expected.isFound()) {
+            assertEquals(expected.getStart().getModelOffset(), actual.getStart().getModelOffset());
+            assertEquals(expected.getEnd().getModelOffset(), actual.getEnd().getModelOffset());
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return builder.toString();
+    }
+
+}
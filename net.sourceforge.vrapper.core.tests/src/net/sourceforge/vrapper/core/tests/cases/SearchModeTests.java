@@ -0,0 +1,56 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SearchModeTests {
+
+    private HeadlessPlatform platform;
+    private HeadlessEditor editor;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        platform = new HeadlessPlatform(new SimpleConfiguration());
+        editor = new HeadlessEditor(platform, "fa fob\nfoo fo\nfoox", new DefaultRegisterManager());
+        editor.executeCommand("set incsearch");
+    }
+
+    @Test
+    public void testIncrementalSearchFollowsKeyword() {
+        editor.type(parseKeyStrokes("/f"));
+        assertCursor(0);
+        editor.type(parseKeyStrokes("o"));
+        assertCursor(3);
+        editor.type(parseKeyStrokes("o"));
+        assertCursor(7);
+        editor.type(parseKeyStrokes("x"));
+        assertCursor(14);
+        editor.type(parseKeyStrokes("<BS><BS>"));
+        assertCursor(3);
+        editor.type(parseKeyStrokes("o<CR>"));
+        assertCursor(7);
+    }
+
+    @Test
+    public void testIncrementalSearchWrapsAround() {
+        editor.type(parseKeyStrokes("G/fa"));
+        assertCursor(0);
+        editor.type(parseKeyStrokes("<ESC>"));
+        assertCursor(14);
+    }
+
+    private void assertCursor(int offset) {
+        assertEquals(offset, platform.getCursorService().getPosition().getModelOffset());
+    }
+
+}
@@ -0,0 +1,129 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import net.sourceforge.vrapper.utils.ContentType;
+import net.sourceforge.vrapper.vim.SessionStore;
+import net.sourceforge.vrapper.vim.modes.commandline.CommandLineHistory;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+import net.sourceforge.vrapper.vim.register.RegisterContent;
+import net.sourceforge.vrapper.vim.register.StringRegisterContent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionStoreTests {
+
+    private final List<Runnable> writes = new ArrayList<Runnable>();
+    private final Executor executor = new Executor() {
+        public void execute(Runnable command) {
+            writes.add(command);
+        }
+    };
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("vrapperinfo", null);
+        file.delete();
+    }
+
+    @After
+    public void tearDown() {
+        SessionStore.setInstance(null);
+        file.delete();
+    }
+
+    @Test
+    public void testEntriesAreReadAgain() {
+        SessionStore store = new SessionStore(file, executor);
+        store.put("registers", "a", "TEXT tab\there\nand a newline \\");
+        store.put("history :", "w", "");
+        store.put("history :", "q", "");
+        store.put("history :", "w", "");
+        store.remove("registers", "b");
+        assertEquals(1, writes.size());
+        assertFalse(file.exists());
+        writes.get(0).run();
+
+        SessionStore reread = new SessionStore(file, executor);
+        assertEquals("TEXT tab\there\nand a newline \\", reread.get("registers", "a"));
+        assertEquals(Arrays.asList("q", "w"), new ArrayList<String>(reread.getSection("history :").keySet()));
+        reread.remove("registers", "a");
+        reread.flush();
+        assertNull(new SessionStore(file, executor).get("registers", "a"));
+    }
+
+    @Test
+    public void testOutdatedLinesAreDropped() {
+        SessionStore store = new SessionStore(file, executor);
+        for (int i = 0; i < 1000; i++) {
+            store.put("marks foo", "a", String.valueOf(i));
+            store.flush();
+        }
+        // a line per change until there are a few hundred of them
+        assertTrue(file.length() < 300 * 20);
+        assertEquals("999", new SessionStore(file, executor).get("marks foo", "a"));
+    }
+
+    @Test
+    public void testPreloadReadsInBackground() {
+        SessionStore store = new SessionStore(file, executor);
+        store.put("marks foo", "a", "42");
+        store.flush();
+        writes.clear();
+
+        SessionStore reread = new SessionStore(file, executor);
+        reread.preload();
+        assertEquals(1, writes.size());
+        writes.get(0).run();
+        // read already, the file isn't needed any more
+        file.delete();
+        assertEquals("42", reread.get("marks foo", "a"));
+        reread.preload();
+        assertEquals(1, writes.size());
+    }
+
+    @Test
+    public void testRegistersAreStored() {
+        SessionStore.setInstance(new SessionStore(file, executor));
+        RegisterContent content = new StringRegisterContent(ContentType.LINES, "line\n");
+        new DefaultRegisterManager().getRegister("x").setContent(content);
+        SessionStore.getInstance().flush();
+
+        SessionStore.setInstance(new SessionStore(file, executor));
+        RegisterContent restored = new DefaultRegisterManager().getRegister("x").getContent();
+        assertEquals(ContentType.LINES, restored.getPayloadType());
+        assertEquals("line\n", restored.getText());
+    }
+
+    @Test
+    public void testHistoryIsBoundedAndStored() {
+        SessionStore store = new SessionStore(file, executor);
+        SessionStore.setInstance(store);
+        CommandLineHistory history = new CommandLineHistory();
+        history.setMode("SessionStoreTests");
+        history.append("first", 2);
+        history.append("second", 2);
+        history.append("first", 2);
+        history.append("third", 2);
+        assertEquals(Arrays.asList("first", "third"),
+                new ArrayList<String>(store.getSection("history SessionStoreTests").keySet()));
+        history.setTemp("");
+        assertEquals("third", history.getPrevious());
+        assertEquals("first", history.getPrevious());
+        assertNull(history.getPrevious());
+    }
+
+}
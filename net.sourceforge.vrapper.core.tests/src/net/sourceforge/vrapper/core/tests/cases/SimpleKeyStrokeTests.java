@@ -8,10 +8,12 @@ import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.key;
 import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.keymap.SpecialKey;
 import net.sourceforge.vrapper.keymap.vim.SimpleKeyStroke;
+import net.sourceforge.vrapper.vim.RemappedKeyStroke;
 
 import org.junit.Test;
 
@@ -69,4 +71,20 @@ public class SimpleKeyStrokeTests {
 	    assertEquals(asList(new SimpleKeyStroke(SpecialKey.ESC)), parseKeyStrokes("<Esc>"));
     }
 
+	@Test
+	public void testSharedInstances() {
+		assertSame(SimpleKeyStroke.of('a'), key('a'));
+		assertSame(SimpleKeyStroke.of(ARROW_LEFT), parseKeyStrokes("<Left>").iterator().next());
+		assertEqualsAndHashAsWell(new SimpleKeyStroke('\u20ac'), SimpleKeyStroke.of('\u20ac'));
+
+		RemappedKeyStroke remapped = RemappedKeyStroke.of(key('a'), false);
+		assertSame(remapped, RemappedKeyStroke.of(new SimpleKeyStroke('a'), false));
+		assertFalse(remapped.isRecursive());
+		assertTrue(RemappedKeyStroke.of(remapped, true).isRecursive());
+		assertEqualsAndHashAsWell(key('a'), remapped);
+		RemappedKeyStroke euro = RemappedKeyStroke.of(RemappedKeyStroke.of(key('\u20ac'), false), true);
+		assertTrue(euro.isRecursive());
+		assertEqualsAndHashAsWell(key('\u20ac'), euro);
+	}
+
 }
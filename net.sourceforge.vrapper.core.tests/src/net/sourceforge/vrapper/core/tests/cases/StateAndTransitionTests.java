@@ -8,22 +8,29 @@ import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStr
 import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.state;
 import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.transitionBind;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import net.sourceforge.vrapper.keymap.ConvertingState;
 import net.sourceforge.vrapper.keymap.EmptyState;
 import net.sourceforge.vrapper.keymap.HashMapState;
 import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.keymap.SpecialKey;
 import net.sourceforge.vrapper.keymap.State;
 import net.sourceforge.vrapper.keymap.Transition;
 import net.sourceforge.vrapper.keymap.UnionState;
 import net.sourceforge.vrapper.keymap.WrappingState;
+import net.sourceforge.vrapper.keymap.vim.CompiledState;
 import net.sourceforge.vrapper.keymap.vim.CountingState;
 import net.sourceforge.vrapper.utils.Function;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.commands.Command;
 import net.sourceforge.vrapper.vim.commands.CommandExecutionException;
 import net.sourceforge.vrapper.vim.commands.CountAwareCommand;
+import net.sourceforge.vrapper.vim.modes.StateRegistry;
 
 import org.junit.Test;
 
@@ -274,7 +281,54 @@ public class StateAndTransitionTests {
         assertNull(wrapped42.press(key('-')).getNextState().press(key('5')));
         assertNull(wrapped42.press(key('-')).getNextState().press(key('-')).getNextState().press(key('5')));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCompiledState() {
+        Function<Integer, Integer> addTwo = new Function<Integer, Integer>() {
+            public Integer call(Integer arg) { return arg + 2; }
+        };
+        State<Integer> source = union(
+                new WrappingState<Integer>(state(leafBind('+', addTwo)), state(transitionBind('4', 4, state(leafBind('2', 42))))),
+                state(leafBind('9', 9), leafBind(SpecialKey.ESC, 0), leafBind('\u00e4', 7)));
+        State<Integer> compiled = CompiledState.compile(source, 1);
+
+        for (String keys: asList("4", "42", "+4", "+42", "9", "<ESC>", "\u00e4")) {
+            assertEquals(getValue(source, keys), getValue(compiled, keys));
+        }
+        assertNull(compiled.press(key('5')));
+        assertNull(compiled.press(key(SpecialKey.TAB)));
+        // one level is compiled, the next one is the source's
+        assertFalse(compiled.press(key('4')).getNextState() instanceof CompiledState<?>);
+        assertTrue(CompiledState.compile(source).press(key('4')).getNextState() instanceof CompiledState<?>);
+    }
     
+    @Test
+    public void testStateRegistryBuildsOnce() throws InterruptedException {
+        final AtomicInteger builds = new AtomicInteger();
+        final StateRegistry.Builder builder = new StateRegistry.Builder() {
+            public State<Command> build() {
+                builds.incrementAndGet();
+                return EmptyState.getInstance();
+            }
+        };
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    StateRegistry.getState("registry test mode", null, builder);
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        assertSame(EmptyState.getInstance(), StateRegistry.getState("registry test mode", null, builder));
+        assertEquals(1, builds.get());
+    }
+
     static<T> T getValue(State<T> state, String keys) {
         return goThrough(state, keys).getValue();
     }
@@ -0,0 +1,123 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.StringUtils;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SubstitutionTests {
+
+    private HeadlessPlatform platform;
+
+    @Before
+    public void setUp() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        platform = new HeadlessPlatform(new SimpleConfiguration());
+    }
+
+    @Test
+    public void testWholeFile() {
+        assertSubstitution("a-a\na\nb\na", "%s/a/x/g", "x-x\nx\nb\nx");
+        assertSubstitution("a-a\na\nb\na\n", "%s/a/x/", "x-a\nx\nb\nx\n");
+    }
+
+    @Test
+    public void testCurrentLineAndRange() {
+        HeadlessEditor editor = editor("a\na\na\na");
+        editor.type(parseKeyStrokes("j"));
+        editor.executeCommand("s/a/x/");
+        assertEquals("a\nx\na\na", editor.getText());
+        editor.executeCommand("3,4s/a/y/");
+        assertEquals("a\nx\ny\ny", editor.getText());
+    }
+
+    @Test
+    public void testSingleUndoStep() {
+        HeadlessEditor editor = editor("a b\nb a\nc\n");
+        editor.executeCommand("%s/a/xx/g");
+        assertEquals("xx b\nb xx\nc\n", editor.getText());
+        editor.type(parseKeyStrokes("u"));
+        assertEquals("a b\nb a\nc\n", editor.getText());
+    }
+
+    @Test
+    public void testLineAnchorsAndEmptyMatches() {
+        assertSubstitution("ab\n\ncd", "%s/^/> /", "> ab\n> \n> cd");
+        assertSubstitution("ab\n\ncd", "%s/$/;/", "ab;\n;\ncd;");
+        assertSubstitution("xab", "s/x*/-/g", "-a-b-");
+    }
+
+    @Test
+    public void testReplacementSyntax() {
+        assertSubstitution("key=value", "s/(\\w+)=(\\w+)/$2=$1/", "value=key");
+        assertSubstitution("a,b", "s/,/\\R/", "a\nb");
+        assertSubstitution("a\nb\nc", "%s/\\n//", "abc");
+        assertSubstitution("Foo foo", "s/FOO/bar/gi", "bar bar");
+        assertSubstitution("a/b", "s/\\//|/", "a|b");
+        assertSubstitution("a|b", "s|\\||/|", "a/b");
+    }
+
+    @Test
+    public void testMessages() {
+        HeadlessEditor editor = editor("a\na\na");
+        editor.executeCommand("%s/a/b/");
+        assertEquals("3 substitutions on 3 lines", platform.getUserInterfaceService().getInfoMessage());
+        assertNull(platform.getUserInterfaceService().getErrorMessage());
+        editor.executeCommand("%s/z/b/");
+        assertEquals("'z' not found", platform.getUserInterfaceService().getErrorMessage());
+        assertEquals("b\nb\nb", editor.getText());
+    }
+
+    @Test
+    public void testCursorOnLastSubstitutedLine() {
+        HeadlessEditor editor = editor("a\n  a\nb");
+        editor.executeCommand("%s/a/c/");
+        assertEquals(4, platform.getCursorService().getPosition().getModelOffset());
+        editor = editor("aa\nb\n  aa\nb");
+        editor.executeCommand("%s/a/xyz/g");
+        assertEquals(11, platform.getCursorService().getPosition().getModelOffset());
+    }
+
+    @Test
+    public void testTextBetweenMatchesIsNotReplaced() {
+        String middle = StringUtils.multiply("unchanged line\n", 200);
+        HeadlessEditor editor = editor("foo\n" + middle + "foo foo\n");
+        final List<int[]> replacements = new ArrayList<int[]>();
+        editor.getEditorAdaptor().getModelContent().addTextContentListener(new TextContentListener() {
+            public void textChanged(int offset, int removedLength, int insertedLength) {
+                replacements.add(new int[] { offset, removedLength, insertedLength });
+            }
+        });
+        editor.executeCommand("%s/foo/barbaz/g");
+        assertEquals("barbaz\n" + middle + "barbaz barbaz\n", editor.getText());
+        // the close matches on the last line are replaced together
+        assertEquals(2, replacements.size());
+        assertEquals(0, replacements.get(1)[0]);
+        assertEquals(3, replacements.get(1)[1]);
+        assertEquals(7, replacements.get(0)[1]);
+    }
+
+    private HeadlessEditor editor(String text) {
+        return new HeadlessEditor(platform, text, new DefaultRegisterManager());
+    }
+
+    private void assertSubstitution(String text, String command, String expected) {
+        HeadlessEditor editor = editor(text);
+        editor.executeCommand(command);
+        assertEquals(expected, editor.getText());
+    }
+
+}
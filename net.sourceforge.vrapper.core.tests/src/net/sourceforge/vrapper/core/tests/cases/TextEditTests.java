@@ -0,0 +1,130 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import net.sourceforge.vrapper.core.tests.utils.TestTextContent;
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.StringUtils;
+import net.sourceforge.vrapper.utils.TextEdit;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextEditTests {
+
+    private TestTextContent content;
+    private final List<int[]> replacements = new ArrayList<int[]>();
+
+    @Before
+    public void setUp() {
+        content = new TestTextContent(mock(CursorService.class));
+        content.addTextContentListener(new TextContentListener() {
+            public void textChanged(int offset, int removedLength, int insertedLength) {
+                replacements.add(new int[] { offset, removedLength, insertedLength });
+            }
+        });
+    }
+
+    @Test
+    public void testOnlyChangedLinesAreReplaced() {
+        List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < 100; i++) {
+            lines.add("line number " + i);
+        }
+        String oldText = StringUtils.join("\n", lines);
+        lines.set(10, "line number TEN");
+        lines.remove(50);
+        lines.add(80, "inserted");
+        String newText = StringUtils.join("\n", lines);
+        setText("head\n" + oldText + "\ntail");
+
+        TextEdit.replace(content, 5, oldText.length(), newText);
+        assertEquals("head\n" + newText + "\ntail", content.getText());
+        assertEquals(3, replacements.size());
+        // applied from the last to the first
+        int offset = 5 + oldText.indexOf("line number 10") + "line number ".length();
+        assertEquals(offset, replacements.get(2)[0]);
+        assertEquals(2, replacements.get(2)[1]);
+        assertEquals(3, replacements.get(2)[2]);
+    }
+
+    @Test
+    public void testCloseSpansAreJoined() {
+        setText("a b c d e f");
+        TextEdit.replace(content, 0, content.getTextLength(), "A b C d E f");
+        assertEquals("A b C d E f", content.getText());
+        assertEquals(1, replacements.size());
+        assertEquals(0, replacements.get(0)[0]);
+        assertEquals(9, replacements.get(0)[1]);
+    }
+
+    @Test
+    public void testUnchangedTextIsNotTouched() {
+        setText("same\ntext\n");
+        TextEdit.replace(content, 0, content.getTextLength(), "same\ntext\n");
+        assertEquals(0, replacements.size());
+    }
+
+    @Test
+    public void testRepeatedLines() {
+        String oldText = StringUtils.multiply("}\n\n", 50) + "x\n" + StringUtils.multiply("}\n\n", 50);
+        String newText = StringUtils.multiply("}\n\n", 30) + "y\n" + StringUtils.multiply("}\n\n", 70);
+        content.setText(oldText);
+        TextEdit.replace(content, 0, oldText.length(), newText);
+        assertEquals(newText, content.getText());
+    }
+
+    @Test
+    public void testRandomModifications() {
+        Random random = new Random(42);
+        String[] words = { "foo", "bar", "\n", "\r\n", " ", "baz\n", "" };
+        for (int round = 0; round < 200; round++) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = random.nextInt(60); i > 0; i--) {
+                sb.append(words[random.nextInt(words.length)]);
+            }
+            String oldText = sb.toString();
+            for (int i = random.nextInt(6); i > 0 && sb.length() > 0; i--) {
+                int start = random.nextInt(sb.length());
+                int end = Math.min(sb.length(), start + random.nextInt(10));
+                sb.replace(start, end, words[random.nextInt(words.length)]);
+            }
+            String newText = sb.toString();
+            content.setText("<" + oldText + ">");
+            TextEdit.replace(content, 1, oldText, newText);
+            assertEquals("<" + newText + ">", content.getText());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testJoinManyLines() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        int count = 50000;
+        String line = "a short line";
+        HeadlessEditor editor = new HeadlessEditor(new HeadlessPlatform(new SimpleConfiguration()),
+                line + StringUtils.multiply("\n  " + line, count), new DefaultRegisterManager());
+        // every joined line break is a span, all of them close to each other
+        editor.type(parseKeyStrokes(count + "J"));
+        assertEquals(line + StringUtils.multiply(" " + line, count), editor.getText());
+        editor.type(parseKeyStrokes("u"));
+        assertEquals(line + StringUtils.multiply("\n  " + line, count), editor.getText());
+    }
+
+    private void setText(String text) {
+        content.setText(text);
+        replacements.clear();
+    }
+
+}
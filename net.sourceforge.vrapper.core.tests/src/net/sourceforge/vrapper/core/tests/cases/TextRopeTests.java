@@ -0,0 +1,103 @@
+package net.sourceforge.vrapper.core.tests.cases;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import net.sourceforge.vrapper.core.tests.utils.TestTextContent;
+import net.sourceforge.vrapper.headless.HeadlessEditor;
+import net.sourceforge.vrapper.headless.HeadlessPlatform;
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.utils.ContentType;
+import net.sourceforge.vrapper.utils.StringUtils;
+import net.sourceforge.vrapper.utils.TextRope;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+import net.sourceforge.vrapper.vim.register.RegisterContent;
+
+import org.junit.Test;
+
+public class TextRopeTests {
+
+    @Test
+    public void testCopyInPieces() {
+        String text = longText(TextRope.PIECE_SIZE * 2 + 100);
+        TestTextContent content = new TestTextContent(mock(CursorService.class));
+        content.setText(text);
+        TextRope rope = TextRope.copyOf(content, 50, text.length() - 60);
+        assertEquals(3, rope.getPieceCount());
+        assertEquals(text.length() - 60, rope.length());
+        for (int i = 0; i < rope.length(); i += 997) {
+            assertEquals(text.charAt(50 + i), rope.charAt(i));
+        }
+        for (int i = rope.length() - 1; i >= 0; i -= 991) {
+            assertEquals(text.charAt(50 + i), rope.charAt(i));
+        }
+        int end = TextRope.PIECE_SIZE + 10;
+        assertEquals(text.substring(60, 50 + end), rope.subSequence(10, end).toString());
+        assertEquals(text.substring(50, text.length() - 10), rope.toString());
+    }
+
+    @Test
+    public void testConcatSharesPieces() {
+        TextRope large = TextRope.valueOf(longText(TextRope.PIECE_SIZE));
+        TextRope rope = large.concat("a").concat("b").concat(large);
+        assertEquals(3, rope.getPieceCount());
+        assertSame(large.getPiece(0), rope.getPiece(0));
+        assertEquals("ab", rope.getPiece(1));
+        assertSame(large.getPiece(0), rope.getPiece(2));
+        assertSame(rope, TextRope.valueOf(rope));
+        assertSame(rope, rope.concat(""));
+    }
+
+    @Test
+    public void testYankAppendAndPasteLargeText() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        String line = longText(TextRope.PIECE_SIZE + 5) + "\n";
+        HeadlessEditor editor = new HeadlessEditor(new HeadlessPlatform(new SimpleConfiguration()),
+                line + "short\n", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("\"ayyj\"Ayy\"aP"));
+        RegisterContent content = editor.getEditorAdaptor().getRegisterManager().getRegister("a").getContent();
+        assertEquals(ContentType.LINES, content.getPayloadType());
+        assertEquals(line + "short\n", content.getText());
+        assertEquals(line + line + "short\nshort\n", editor.getText());
+    }
+
+    @Test
+    public void testRepeatedInsert() {
+        TestTextContent content = new TestTextContent(mock(CursorService.class));
+        String line = "line\n";
+        int count = TextRope.PIECE_SIZE / line.length() * 2 + 3;
+        content.setText("[]");
+        assertEquals(1 + count * line.length(), TextRope.valueOf(line).insertInto(content, 1, count));
+        assertEquals("[" + StringUtils.multiply(line, count) + "]", content.getText());
+        String longLine = longText(TextRope.PIECE_SIZE + 1);
+        content.setText("");
+        TextRope.valueOf(longLine).insertInto(content, 0, 3);
+        assertEquals(StringUtils.multiply(longLine, 3), content.getText());
+    }
+
+    @Test
+    public void testCountedPaste() {
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        HeadlessEditor editor = new HeadlessEditor(new HeadlessPlatform(new SimpleConfiguration()),
+                "ab\ncd", new DefaultRegisterManager());
+        editor.type(parseKeyStrokes("yy20000p"));
+        assertEquals("ab\n" + StringUtils.multiply("ab\n", 20000) + "cd", editor.getText());
+        editor.type(parseKeyStrokes("u"));
+        assertEquals("ab\ncd", editor.getText());
+        editor.type(parseKeyStrokes("ggyl3P"));
+        assertEquals("aaaab\ncd", editor.getText());
+        assertEquals(2, editor.getEditorAdaptor().getPosition().getModelOffset());
+    }
+
+    private static String longText(int length) {
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+
+}
@@ -1,7 +1,12 @@
 package net.sourceforge.vrapper.core.tests.utils;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import net.sourceforge.vrapper.platform.CursorService;
 import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.ChunkedCharSequence;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Space;
 import net.sourceforge.vrapper.utils.TextRange;
@@ -16,6 +21,7 @@ public class TestTextContent implements TextContent {
 
     StringBuilder buffer = new StringBuilder();
 	private final CursorService cursorService;
+	private final List<TextContentListener> listeners = new CopyOnWriteArrayList<TextContentListener>();
 
     public TestTextContent(CursorService cursorService) {
 		this.cursorService = cursorService;
@@ -96,8 +102,14 @@ public class TestTextContent implements TextContent {
         return getText(range.getLeftBound().getModelOffset(), range.getModelLength());
     }
 
+    public CharSequence getCharSequence() {
+        // small chunks, so that the tests cross chunk boundaries
+        return new ChunkedCharSequence(this, 0, buffer.length(), 8);
+    }
+
     public void replace(int index, int length, String s) {
 		buffer.replace(index, index+length, s);
+		fireTextChanged(index, length, s.length());
 		cursorService.setPosition(new DumbPosition(index + s.length()), false);
     }
 
@@ -110,8 +122,10 @@ public class TestTextContent implements TextContent {
 	}
 
 	public void setText(String content) {
+		int oldLength = buffer.length();
 		buffer.setLength(0);
 		buffer.append(content);
+		fireTextChanged(0, oldLength, content.length());
 	}
 
 	public String getText() {
@@ -126,4 +140,18 @@ public class TestTextContent implements TextContent {
         smartInsert(cursorService.getPosition().getModelOffset(), s);
     }
 
+    public void addTextContentListener(TextContentListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeTextContentListener(TextContentListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireTextChanged(int offset, int removedLength, int insertedLength) {
+        for (TextContentListener listener : listeners) {
+            listener.textChanged(offset, removedLength, insertedLength);
+        }
+    }
+
 }
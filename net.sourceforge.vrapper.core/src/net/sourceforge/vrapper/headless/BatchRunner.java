@@ -0,0 +1,273 @@
+package net.sourceforge.vrapper.headless;
+
+import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.parseKeyStrokes;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.platform.SimpleConfiguration;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
+
+/**
+ * Applies command line commands and key strokes to many files, without
+ * Eclipse. Every file gets its own {@link HeadlessEditor}; the files are
+ * processed on a fixed number of worker threads and written back as soon as
+ * they are done.
+ * <p>
+ * Usage:
+ * <pre>
+ * java net.sourceforge.vrapper.headless.BatchRunner [-j threads] [-e charset]
+ *     [-s script] [-c command]... [-k keys] file...
+ * </pre>
+ * A script contains one command per line, like a .vrapperrc. Commands are
+ * executed in the given order, then the keys are typed.
+ */
+public class BatchRunner {
+
+    /** Outcome of processing one file. */
+    public static class Result {
+
+        private final File file;
+        private final long millis;
+        private final boolean modified;
+        private final String message;
+        private final String error;
+
+        Result(File file, long millis, boolean modified, String message, String error) {
+            this.file = file;
+            this.millis = millis;
+            this.modified = modified;
+            this.message = message;
+            this.error = error;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public boolean isModified() {
+            return modified;
+        }
+
+        /**
+         * @return the last error message of the editor, like a pattern
+         *         which wasn't found, or <code>null</code>. It doesn't make
+         *         the file fail.
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * @return why the file could not be processed or saved, or
+         *         <code>null</code>.
+         */
+        public String getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder result = new StringBuilder();
+            result.append(file).append(": ").append(millis).append(" ms");
+            if (modified) {
+                result.append(", modified");
+            }
+            if (message != null) {
+                result.append(", message: ").append(message);
+            }
+            if (error != null) {
+                result.append(", error: ").append(error);
+            }
+            return result.toString();
+        }
+    }
+
+    private final List<String> commands;
+    private final List<KeyStroke> keys;
+    private final String charset;
+
+    /**
+     * @param commands
+     *            command line commands, without the leading colon.
+     * @param keys
+     *            key strokes typed after executing the commands.
+     */
+    public BatchRunner(List<String> commands, Iterable<KeyStroke> keys, String charset) {
+        this.commands = new ArrayList<String>(commands);
+        this.keys = new ArrayList<KeyStroke>();
+        for (KeyStroke key : keys) {
+            this.keys.add(key);
+        }
+        this.charset = charset;
+    }
+
+    /**
+     * Processes the files on <code>threads</code> worker threads.
+     *
+     * @return the results in the order of the files.
+     */
+    public List<Result> run(List<File> files, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Result>> futures = new ArrayList<Future<Result>>();
+            for (final File file : files) {
+                futures.add(executor.submit(new Callable<Result>() {
+                    public Result call() {
+                        return process(file);
+                    }
+                }));
+            }
+            List<Result> results = new ArrayList<Result>();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    results.add(futures.get(i).get());
+                } catch (ExecutionException e) {
+                    results.add(new Result(files.get(i), 0, false, null, String.valueOf(e.getCause())));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /** Processes a single file in the calling thread. */
+    public Result process(File file) {
+        long start = System.currentTimeMillis();
+        try {
+            String text = read(file, charset);
+            HeadlessPlatform platform = new HeadlessPlatform(new SimpleConfiguration(), file, charset);
+            HeadlessEditor editor = new HeadlessEditor(platform, text, new DefaultRegisterManager());
+            for (String command : commands) {
+                editor.executeCommand(command);
+            }
+            editor.type(keys);
+            boolean modified = !text.equals(editor.getText());
+            String message = platform.getUserInterfaceService().getErrorMessage();
+            String error = null;
+            if (modified && !platform.getFileService().save()) {
+                error = "could not save";
+            }
+            return new Result(file, System.currentTimeMillis() - start, modified, message, error);
+        } catch (IOException e) {
+            return new Result(file, System.currentTimeMillis() - start, false, null, e.getMessage());
+        } catch (RuntimeException e) {
+            return new Result(file, System.currentTimeMillis() - start, false, null, e.toString());
+        }
+    }
+
+    /**
+     * Reads commands from a .vrapperrc-like script: one command per line, an
+     * optional leading colon, empty lines and lines starting with a double
+     * quote are skipped.
+     */
+    public static List<String> readScript(File script, String charset) throws IOException {
+        List<String> result = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(script), charset));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith(":")) {
+                    line = line.substring(1).trim();
+                }
+                if (line.length() > 0 && !line.startsWith("\"")) {
+                    result.add(line);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    static String read(File file, String charset) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), charset);
+        try {
+            StringBuilder result = new StringBuilder((int) Math.min(file.length(), Integer.MAX_VALUE));
+            char[] buffer = new char[8192];
+            int count;
+            while ((count = reader.read(buffer)) != -1) {
+                result.append(buffer, 0, count);
+            }
+            return result.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Runtime.getRuntime().availableProcessors();
+        String charset = "UTF-8";
+        List<String> commands = new ArrayList<String>();
+        Iterable<KeyStroke> keys = Collections.emptyList();
+        List<File> files = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.startsWith("-") && i + 1 == args.length) {
+                usage("missing value for " + arg);
+            }
+            if ("-j".equals(arg)) {
+                threads = Integer.parseInt(args[++i]);
+            } else if ("-e".equals(arg)) {
+                charset = args[++i];
+            } else if ("-s".equals(arg)) {
+                commands.addAll(readScript(new File(args[++i]), charset));
+            } else if ("-c".equals(arg)) {
+                commands.add(args[++i]);
+            } else if ("-k".equals(arg)) {
+                keys = parseKeyStrokes(args[++i]);
+            } else if (arg.startsWith("-")) {
+                usage("unknown option " + arg);
+            } else {
+                files.add(new File(arg));
+            }
+        }
+        if (files.isEmpty()) {
+            usage("no files given");
+        }
+        DefaultEditorAdaptor.SHOULD_READ_RC_FILE = false;
+        long start = System.currentTimeMillis();
+        List<Result> results = new BatchRunner(commands, keys, charset).run(files, threads);
+        int modified = 0;
+        int failed = 0;
+        for (Result result : results) {
+            System.out.println(result);
+            if (result.isModified()) {
+                modified++;
+            }
+            if (result.getError() != null) {
+                failed++;
+            }
+        }
+        System.out.println(results.size() + " files, " + modified + " modified, " + failed + " with errors, "
+                + (System.currentTimeMillis() - start) + " ms");
+        System.exit(failed > 0 ? 1 : 0);
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("usage: BatchRunner [-j threads] [-e charset] [-s script] [-c command]... [-k keys] file...");
+        System.exit(2);
+    }
+
+}
@@ -0,0 +1,116 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.SelectionService;
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.CaretType;
+import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.Position;
+import net.sourceforge.vrapper.utils.TrackedMarks;
+import net.sourceforge.vrapper.vim.commands.Selection;
+
+/**
+ * Caret, selection and marks of a headless editor.
+ * <p>
+ * The caret follows modifications of the text the same way a StyledText
+ * caret does: it stays in place before the modification, moves behind
+ * the inserted text if it was inside the replaced region and is shifted
+ * if it was behind it. Marks follow the text as {@link TrackedMarks}.
+ */
+public class HeadlessCursorAndSelection implements CursorService, SelectionService, TextContentListener {
+
+    private TextContent content;
+    private int caretOffset;
+    private int stickyColumn;
+    private Selection selection;
+    private CaretType caretType;
+    private final TrackedMarks marks = new TrackedMarks();
+
+    void setContent(TextContent content) {
+        this.content = content;
+    }
+
+    public Position getPosition() {
+        if (selection != null) {
+            return selection.getEnd();
+        }
+        return new HeadlessPosition(caretOffset);
+    }
+
+    public void setPosition(Position position, boolean updateColumn) {
+        selection = null;
+        caretOffset = Math.max(0, Math.min(position.getModelOffset(), content.getTextLength()));
+        if (updateColumn) {
+            stickyColumn = caretOffset - content.getLineInformationOfOffset(caretOffset).getBeginOffset();
+        }
+    }
+
+    public void stickToEOL() {
+        stickyColumn = Integer.MAX_VALUE;
+    }
+
+    public Position stickyColumnAtViewLine(int lineNo) {
+        return stickyColumnAtModelLine(lineNo);
+    }
+
+    public Position stickyColumnAtModelLine(int lineNo) {
+        LineInformation line = content.getLineInformation(lineNo);
+        return new HeadlessPosition(line.getBeginOffset() + Math.min(line.getLength(), stickyColumn));
+    }
+
+    public Position newPositionForViewOffset(int offset) {
+        return new HeadlessPosition(offset);
+    }
+
+    public Position newPositionForModelOffset(int offset) {
+        return new HeadlessPosition(offset);
+    }
+
+    public void setCaret(CaretType caretType) {
+        this.caretType = caretType;
+    }
+
+    public CaretType getCaret() {
+        return caretType;
+    }
+
+    public void setMark(String id, Position position) {
+        marks.set(id, position.getModelOffset());
+    }
+
+    public Position getMark(String id) {
+        if (marks.isDeleted(id)) {
+            marks.remove(id);
+        }
+        int offset = marks.get(id);
+        return offset >= 0 ? new HeadlessPosition(offset) : null;
+    }
+
+    public Selection getSelection() {
+        return selection;
+    }
+
+    public void setSelection(Selection selection) {
+        if (selection != null) {
+            caretOffset = selection.getEnd().getModelOffset();
+        }
+        this.selection = selection;
+    }
+
+    public void textChanged(int offset, int removedLength, int insertedLength) {
+        caretOffset = shift(caretOffset, offset, removedLength, insertedLength, offset + insertedLength);
+        marks.textChanged(offset, removedLength, insertedLength);
+    }
+
+    private static int shift(int position, int offset, int removedLength, int insertedLength, int inside) {
+        if (position <= offset) {
+            return position;
+        }
+        if (position >= offset + removedLength) {
+            return position + insertedLength - removedLength;
+        }
+        return inside;
+    }
+
+}
@@ -0,0 +1,113 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.keymap.SpecialKey;
+import net.sourceforge.vrapper.vim.DefaultEditorAdaptor;
+import net.sourceforge.vrapper.vim.commands.Command;
+import net.sourceforge.vrapper.vim.modes.ExecuteCommandHint;
+import net.sourceforge.vrapper.vim.modes.NormalMode;
+import net.sourceforge.vrapper.vim.modes.commandline.CommandLineMode;
+import net.sourceforge.vrapper.vim.modes.commandline.CommandLineParser;
+import net.sourceforge.vrapper.vim.register.RegisterManager;
+
+/**
+ * A {@link DefaultEditorAdaptor} running on a {@link HeadlessPlatform}.
+ * Key strokes which Vrapper does not handle itself, e.g. characters typed
+ * in insert mode, are applied the way an editor widget would apply them.
+ */
+public class HeadlessEditor {
+
+    private final HeadlessPlatform platform;
+    private final DefaultEditorAdaptor editorAdaptor;
+
+    /**
+     * Creates an editor for the given text. The text has to be known before
+     * the editor adaptor is created, as it takes the line delimiter from it.
+     */
+    public HeadlessEditor(HeadlessPlatform platform, String text, RegisterManager registerManager) {
+        this.platform = platform;
+        platform.getModelContent().setText(text);
+        editorAdaptor = new DefaultEditorAdaptor(platform, registerManager, true);
+    }
+
+    public HeadlessPlatform getPlatform() {
+        return platform;
+    }
+
+    public DefaultEditorAdaptor getEditorAdaptor() {
+        return editorAdaptor;
+    }
+
+    public String getText() {
+        return platform.getModelContent().getText();
+    }
+
+    /**
+     * Executes a command the same way as typing it on the command line
+     * (without the leading colon) and pressing return.
+     */
+    public void executeCommand(String commandLine) {
+        // normal mode executes the command when it is entered again
+        editorAdaptor.changeModeSafely(CommandLineMode.NAME);
+        Command command = new CommandLineParser(editorAdaptor).parseAndExecute(null, commandLine);
+        if (command != null) {
+            editorAdaptor.changeModeSafely(NormalMode.NAME, new ExecuteCommandHint.OnEnter(command));
+        } else {
+            editorAdaptor.changeModeSafely(NormalMode.NAME);
+        }
+    }
+
+    public void type(Iterable<KeyStroke> keyStrokes) {
+        for (KeyStroke stroke : keyStrokes) {
+            type(stroke);
+        }
+    }
+
+    public void type(KeyStroke stroke) {
+        if (!editorAdaptor.handleKey(stroke)) {
+            typeInUnderlyingEditor(stroke);
+        }
+    }
+
+    private void typeInUnderlyingEditor(KeyStroke stroke) {
+        HeadlessTextContent content = platform.getModelContent();
+        HeadlessCursorAndSelection cursor = platform.getCursorService();
+        int offset = cursor.getPosition().getModelOffset();
+        SpecialKey key = stroke.getSpecialKey();
+        if (key == null) {
+            char c = stroke.getCharacter();
+            if (c == '\t' || !Character.isISOControl(c)) {
+                insert(String.valueOf(c));
+            }
+        } else if (key == SpecialKey.RETURN) {
+            insert(editorAdaptor.getConfiguration().getNewLine());
+        } else if (key == SpecialKey.TAB) {
+            insert("\t");
+        } else if (key == SpecialKey.BACKSPACE) {
+            if (offset > 0) {
+                content.replace(offset - 1, 1, "");
+            }
+        } else if (key == SpecialKey.DELETE) {
+            if (offset < content.getTextLength()) {
+                content.replace(offset, 1, "");
+            }
+        } else if (key == SpecialKey.ARROW_LEFT) {
+            cursor.setPosition(new HeadlessPosition(Math.max(0, offset - 1)), true);
+        } else if (key == SpecialKey.ARROW_RIGHT) {
+            cursor.setPosition(new HeadlessPosition(Math.min(content.getTextLength(), offset + 1)), true);
+        }
+    }
+
+    private void insert(String s) {
+        HeadlessTextContent content = platform.getModelContent();
+        int offset = platform.getCursorService().getPosition().getModelOffset();
+        if (platform.getUnderlyingEditorSettings().isReplaceMode()) {
+            int lineEnd = content.getLineInformationOfOffset(offset).getEndOffset();
+            content.replace(offset, Math.min(s.length(), lineEnd - offset), s);
+            platform.getCursorService().setPosition(new HeadlessPosition(offset + s.length()), true);
+        } else {
+            content.smartInsert(s);
+        }
+    }
+
+}
@@ -0,0 +1,33 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.platform.UnderlyingEditorSettings;
+
+/**
+ * There is no underlying editor, so only the replace mode matters, for
+ * typing characters which Vrapper did not handle.
+ */
+public class HeadlessEditorSettings implements UnderlyingEditorSettings {
+
+    private boolean replaceMode;
+
+    public void setReplaceMode(boolean replace) {
+        replaceMode = replace;
+    }
+
+    public boolean isReplaceMode() {
+        return replaceMode;
+    }
+
+    public void setShowLineNumbers(boolean show) {
+        // nothing to do
+    }
+
+    public void setShowWhitespace(boolean show) {
+        // nothing to do
+    }
+
+    public void disableInputMethod() {
+        // nothing to do
+    }
+
+}
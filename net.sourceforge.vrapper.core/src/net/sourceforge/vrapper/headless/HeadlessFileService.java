@@ -0,0 +1,95 @@
+package net.sourceforge.vrapper.headless;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import net.sourceforge.vrapper.log.VrapperLog;
+import net.sourceforge.vrapper.platform.FileService;
+import net.sourceforge.vrapper.platform.TextContent;
+
+/**
+ * File service of a headless editor. If the editor has been created for a
+ * file, saving writes the text back to it; other editors and files cannot
+ * be opened.
+ */
+public class HeadlessFileService implements FileService {
+
+    private final TextContent content;
+    private final File file;
+    private final String charset;
+    private boolean closed;
+
+    public HeadlessFileService(TextContent content, File file, String charset) {
+        this.content = content;
+        this.file = file;
+        this.charset = charset;
+    }
+
+    public boolean isEditable() {
+        return !closed;
+    }
+
+    public boolean close(boolean force) {
+        closed = true;
+        return true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public boolean save() {
+        if (file == null) {
+            return false;
+        }
+        Writer writer = null;
+        try {
+            writer = new OutputStreamWriter(new FileOutputStream(file), charset);
+            writer.write(content.getText(0, content.getTextLength()));
+            return true;
+        } catch (IOException e) {
+            VrapperLog.error("could not save " + file, e);
+            return false;
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    VrapperLog.error("could not close " + file, e);
+                }
+            }
+        }
+    }
+
+    public boolean saveAll() {
+        return save();
+    }
+
+    public String findFileInPath(String filename, String previous, String[] paths) {
+        return null;
+    }
+
+    public String getFilePathMatch(String prefix, String previous, String startDir) {
+        return null;
+    }
+
+    public String getDirPathMatch(String prefix, String previous, String startDir) {
+        return null;
+    }
+
+    public boolean openFile(String filename) {
+        return false;
+    }
+
+    public boolean findAndOpenFile(String filename, String[] paths) {
+        return false;
+    }
+
+    public String getCurrentFilePath() {
+        return file != null ? file.getPath() : null;
+    }
+
+}
@@ -0,0 +1,169 @@
+package net.sourceforge.vrapper.headless;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.HistoryService;
+
+/**
+ * Undo history of a {@link HeadlessTextContent}.
+ * <p>
+ * Every replacement is one undo step unless it is made between
+ * {@link #beginCompoundChange()} and {@link #endCompoundChange()}. Locking
+ * works like in the Eclipse implementation: while locked, compound changes
+ * are neither started nor ended.
+ */
+public class HeadlessHistoryService implements HistoryService {
+
+    private static final int MAXIMAL_UNDO_LEVEL = 1000;
+
+    private final HeadlessTextContent content;
+    private final CursorService cursorService;
+    private final LinkedList<List<Edit>> undoStack = new LinkedList<List<Edit>>();
+    private final LinkedList<List<Edit>> redoStack = new LinkedList<List<Edit>>();
+    private List<Edit> compoundChange;
+    private boolean applying;
+    private boolean locked;
+    private String lockName = "";
+
+    public HeadlessHistoryService(HeadlessTextContent content, CursorService cursorService) {
+        this.content = content;
+        this.cursorService = cursorService;
+        content.setHistoryService(this);
+    }
+
+    public void lock(String name) {
+        if (!locked) {
+            locked = true;
+            lockName = name;
+        }
+    }
+
+    public void unlock(String name) {
+        if (locked && lockName.equals(name)) {
+            locked = false;
+            lockName = "";
+        }
+    }
+
+    public void lock() {
+        lock("unnamed");
+    }
+
+    public void unlock() {
+        unlock("unnamed");
+    }
+
+    public void beginCompoundChange() {
+        if (!locked) {
+            commit();
+            compoundChange = new ArrayList<Edit>();
+        }
+    }
+
+    public void endCompoundChange() {
+        if (!locked) {
+            commit();
+        }
+    }
+
+    public void undo() {
+        commit();
+        if (!undoStack.isEmpty()) {
+            List<Edit> edits = undoStack.removeLast();
+            int caret = Integer.MAX_VALUE;
+            applying = true;
+            try {
+                for (int i = edits.size() - 1; i >= 0; i--) {
+                    Edit edit = edits.get(i);
+                    content.replace(edit.offset, edit.inserted.length(), edit.removed);
+                    caret = Math.min(caret, edit.offset);
+                }
+            } finally {
+                applying = false;
+            }
+            redoStack.addLast(edits);
+            cursorService.setPosition(new HeadlessPosition(caret), true);
+        }
+    }
+
+    public void redo() {
+        commit();
+        if (!redoStack.isEmpty()) {
+            List<Edit> edits = redoStack.removeLast();
+            int caret = Integer.MAX_VALUE;
+            applying = true;
+            try {
+                for (Edit edit : edits) {
+                    content.replace(edit.offset, edit.removed.length(), edit.inserted);
+                    caret = Math.min(caret, edit.offset);
+                }
+            } finally {
+                applying = false;
+            }
+            undoStack.addLast(edits);
+            cursorService.setPosition(new HeadlessPosition(caret), true);
+        }
+    }
+
+    public boolean undoable() {
+        return !undoStack.isEmpty() || (compoundChange != null && !compoundChange.isEmpty());
+    }
+
+    public boolean redoable() {
+        return !redoStack.isEmpty();
+    }
+
+    /** Forgets the whole history. */
+    void reset() {
+        undoStack.clear();
+        redoStack.clear();
+        compoundChange = null;
+    }
+
+    void recordReplace(int offset, String removed, String inserted) {
+        if (applying) {
+            return;
+        }
+        redoStack.clear();
+        Edit edit = new Edit(offset, removed, inserted);
+        if (compoundChange != null) {
+            compoundChange.add(edit);
+        } else {
+            List<Edit> edits = new ArrayList<Edit>(1);
+            edits.add(edit);
+            push(edits);
+        }
+    }
+
+    private void commit() {
+        if (compoundChange != null) {
+            if (!compoundChange.isEmpty()) {
+                push(compoundChange);
+            }
+            compoundChange = null;
+        }
+    }
+
+    private void push(List<Edit> edits) {
+        undoStack.addLast(edits);
+        if (undoStack.size() > MAXIMAL_UNDO_LEVEL) {
+            undoStack.removeFirst();
+        }
+    }
+
+    private static class Edit {
+        final int offset;
+        final String removed;
+        final String inserted;
+
+        Edit(int offset, String removed, String inserted) {
+            this.offset = offset;
+            this.removed = removed;
+            this.inserted = inserted;
+        }
+    }
+
+}
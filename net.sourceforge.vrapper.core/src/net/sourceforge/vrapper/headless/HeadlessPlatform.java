@@ -0,0 +1,127 @@
+package net.sourceforge.vrapper.headless;
+
+import java.io.File;
+
+import net.sourceforge.vrapper.platform.Configuration;
+import net.sourceforge.vrapper.platform.Platform;
+import net.sourceforge.vrapper.platform.PlatformSpecificStateProvider;
+import net.sourceforge.vrapper.platform.ServiceProvider;
+import net.sourceforge.vrapper.utils.DefaultKeyMapProvider;
+
+/**
+ * {@link Platform} which runs Vrapper without Eclipse, on an in-memory
+ * {@link HeadlessTextContent}. It can be used to apply Vim commands to
+ * files in batch or to exercise the engine in benchmarks and tests.
+ * <p>
+ * A platform is not thread-safe, but independent platforms may be used from
+ * different threads.
+ */
+public class HeadlessPlatform implements Platform {
+
+    /** number of lines of the viewport, e.g. for scrolling commands */
+    public static final int DEFAULT_VIEWPORT_HEIGHT = 50;
+
+    private final Configuration configuration;
+    private final HeadlessTextContent textContent;
+    private final HeadlessCursorAndSelection cursorAndSelection;
+    private final HeadlessHistoryService historyService;
+    private final HeadlessViewportService viewportService;
+    private final HeadlessSearchAndReplaceService searchAndReplaceService;
+    private final HeadlessUserInterfaceService userInterfaceService;
+    private final HeadlessFileService fileService;
+    private final HeadlessEditorSettings editorSettings;
+    private final DefaultKeyMapProvider keyMapProvider;
+
+    public HeadlessPlatform(Configuration configuration) {
+        this(configuration, null, "UTF-8");
+    }
+
+    /**
+     * @param file
+     *            file to which the text is written on save, may be
+     *            <code>null</code>. The text is not read from it.
+     * @param charset
+     *            charset used when saving.
+     */
+    public HeadlessPlatform(Configuration configuration, File file, String charset) {
+        this.configuration = configuration;
+        cursorAndSelection = new HeadlessCursorAndSelection();
+        textContent = new HeadlessTextContent(cursorAndSelection);
+        cursorAndSelection.setContent(textContent);
+        textContent.addTextContentListener(cursorAndSelection);
+        historyService = new HeadlessHistoryService(textContent, cursorAndSelection);
+        viewportService = new HeadlessViewportService(textContent, cursorAndSelection, DEFAULT_VIEWPORT_HEIGHT);
+        searchAndReplaceService = new HeadlessSearchAndReplaceService(textContent);
+        userInterfaceService = new HeadlessUserInterfaceService();
+        fileService = new HeadlessFileService(textContent, file, charset);
+        editorSettings = new HeadlessEditorSettings();
+        keyMapProvider = new DefaultKeyMapProvider();
+    }
+
+    public HeadlessTextContent getModelContent() {
+        return textContent;
+    }
+
+    public HeadlessTextContent getViewContent() {
+        return textContent;
+    }
+
+    public HeadlessCursorAndSelection getCursorService() {
+        return cursorAndSelection;
+    }
+
+    public HeadlessCursorAndSelection getSelectionService() {
+        return cursorAndSelection;
+    }
+
+    public HeadlessFileService getFileService() {
+        return fileService;
+    }
+
+    public HeadlessViewportService getViewportService() {
+        return viewportService;
+    }
+
+    public HeadlessHistoryService getHistoryService() {
+        return historyService;
+    }
+
+    public HeadlessUserInterfaceService getUserInterfaceService() {
+        return userInterfaceService;
+    }
+
+    public ServiceProvider getServiceProvider() {
+        return NoServices.INSTANCE;
+    }
+
+    public DefaultKeyMapProvider getKeyMapProvider() {
+        return keyMapProvider;
+    }
+
+    public HeadlessEditorSettings getUnderlyingEditorSettings() {
+        return editorSettings;
+    }
+
+    public Configuration getConfiguration() {
+        return configuration;
+    }
+
+    public PlatformSpecificStateProvider getPlatformSpecificStateProvider() {
+        return HeadlessStateProvider.INSTANCE;
+    }
+
+    public HeadlessSearchAndReplaceService getSearchAndReplaceService() {
+        return searchAndReplaceService;
+    }
+
+    private static class NoServices implements ServiceProvider {
+
+        static final NoServices INSTANCE = new NoServices();
+
+        public <T> T getService(Class<T> serviceClass) {
+            return null;
+        }
+
+    }
+
+}
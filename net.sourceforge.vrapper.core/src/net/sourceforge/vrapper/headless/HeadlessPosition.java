@@ -0,0 +1,47 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.utils.AbstractPosition;
+import net.sourceforge.vrapper.utils.Position;
+
+/**
+ * Position in a headless editor. There is no folding, so model and view
+ * offsets are the same.
+ */
+public class HeadlessPosition extends AbstractPosition {
+
+    private final int offset;
+
+    public HeadlessPosition(int offset) {
+        this.offset = offset;
+    }
+
+    public int getModelOffset() {
+        return offset;
+    }
+
+    public int getViewOffset() {
+        return offset;
+    }
+
+    public Position addModelOffset(int delta) {
+        return new HeadlessPosition(offset + delta);
+    }
+
+    public Position addViewOffset(int delta) {
+        return new HeadlessPosition(offset + delta);
+    }
+
+    public Position setModelOffset(int newOffset) {
+        return new HeadlessPosition(newOffset);
+    }
+
+    public Position setViewOffset(int newOffset) {
+        return new HeadlessPosition(newOffset);
+    }
+
+    @Override
+    public String toString() {
+        return "HeadlessPosition(" + offset + ")";
+    }
+
+}
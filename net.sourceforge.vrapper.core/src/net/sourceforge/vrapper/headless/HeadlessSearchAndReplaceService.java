@@ -0,0 +1,176 @@
+package net.sourceforge.vrapper.headless;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import net.sourceforge.vrapper.platform.SearchAndReplaceService;
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.Position;
+import net.sourceforge.vrapper.utils.Search;
+import net.sourceforge.vrapper.utils.SearchResult;
+
+/**
+ * Searches the text with java.util.regex, matching the way Eclipse's
+ * FindReplaceDocumentAdapter finds and replaces. Highlighting is not
+ * displayed anywhere; only the last highlighted search is remembered.
+ */
+public class HeadlessSearchAndReplaceService implements SearchAndReplaceService {
+
+    private final TextContent content;
+    private Search lastHighlightedSearch;
+    private Search compiledSearch;
+    private Pattern compiledPattern;
+
+    public HeadlessSearchAndReplaceService(TextContent content) {
+        this.content = content;
+    }
+
+    public SearchResult find(Search search, Position start) {
+        CharSequence text = content.getCharSequence();
+        int offset = start.getModelOffset();
+        if (offset < 0 || offset > text.length()) {
+            return new SearchResult(null, null);
+        }
+        Pattern pattern;
+        try {
+            pattern = compile(search);
+        } catch (PatternSyntaxException e) {
+            return new SearchResult(null, null);
+        }
+        Matcher matcher = pattern.matcher(text);
+        if (!search.isBackward()) {
+            if (matcher.find(offset)) {
+                return new SearchResult(start.setModelOffset(matcher.start()), start.setModelOffset(matcher.end()));
+            }
+            return new SearchResult(null, null);
+        }
+        // last match ending at most one character after the offset,
+        // like FindReplaceDocumentAdapter
+        int matchStart = -1;
+        int matchEnd = -1;
+        boolean found = matcher.find(0);
+        while (found && matcher.end() <= offset + 1) {
+            matchStart = matcher.start();
+            matchEnd = matcher.end();
+            found = matchStart < text.length() && matcher.find(matchStart + 1);
+        }
+        if (matchStart == -1) {
+            return new SearchResult(null, null);
+        }
+        return new SearchResult(start.setModelOffset(matchStart), start.setModelOffset(matchEnd));
+    }
+
+    public boolean replace(LineInformation line, String toFind, String replace, String flags) {
+        int start = line.getBeginOffset();
+        int end = line.getEndOffset();
+        boolean replaceAll = flags.contains("g");
+        int patternFlags = Pattern.MULTILINE;
+        if (flags.contains("i")) {
+            patternFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        Pattern pattern;
+        try {
+            pattern = Pattern.compile(toFind, patternFlags);
+        } catch (PatternSyntaxException e) {
+            return false;
+        }
+        boolean matchFound = false;
+        while (start < end) {
+            Matcher matcher = pattern.matcher(content.getCharSequence());
+            if (!matcher.find(start) || matcher.start() >= end) {
+                break;
+            }
+            matchFound = true;
+            String replacement = expandReplacement(matcher, replace);
+            int matchStart = matcher.start();
+            int matchLength = matcher.end() - matchStart;
+            content.replace(matchStart, matchLength, replacement);
+            if (!replaceAll) {
+                break;
+            }
+            // don't match on the replacement string when we come around
+            // again (s/foo/barfoo/g)
+            start = matchStart + replacement.length();
+            end += replacement.length() - matchLength;
+            if (matchLength == 0) {
+                start++;
+            }
+        }
+        return matchFound;
+    }
+
+    public void highlight(Search search) {
+        lastHighlightedSearch = search;
+    }
+
+    public void removeHighlighting() {
+        lastHighlightedSearch = null;
+    }
+
+    public void incSearchhighlight(Position start, int length) {
+        // nothing is displayed
+    }
+
+    public void removeIncSearchHighlighting() {
+        // nothing is displayed
+    }
+
+    /**
+     * @return the search passed to the last {@link #highlight(Search)} call,
+     *         or <code>null</code> if highlighting has been removed.
+     */
+    public Search getHighlightedSearch() {
+        return lastHighlightedSearch;
+    }
+
+    private Pattern compile(Search search) {
+        if (search != compiledSearch) {
+            String regex = search.isRegExSearch() ? search.getKeyword() : Pattern.quote(search.getKeyword());
+            if (search.isWholeWord()) {
+                regex = "\\b" + regex + "\\b";
+            }
+            int flags = Pattern.MULTILINE;
+            if (!search.isCaseSensitive()) {
+                flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+            }
+            compiledPattern = Pattern.compile(regex, flags);
+            compiledSearch = search;
+        }
+        return compiledPattern;
+    }
+
+    /**
+     * Expands group references ($1) and escapes (\$) in the replacement,
+     * like {@link Matcher#appendReplacement(StringBuffer, String)} does.
+     */
+    static String expandReplacement(Matcher matcher, String replace) {
+        StringBuilder result = new StringBuilder(replace.length());
+        int i = 0;
+        while (i < replace.length()) {
+            char c = replace.charAt(i++);
+            if (c == '\\' && i < replace.length()) {
+                result.append(replace.charAt(i++));
+            } else if (c == '$' && i < replace.length() && Character.isDigit(replace.charAt(i))) {
+                int group = replace.charAt(i++) - '0';
+                // take more digits as long as the group exists
+                while (i < replace.length() && Character.isDigit(replace.charAt(i))) {
+                    int next = group * 10 + replace.charAt(i) - '0';
+                    if (next > matcher.groupCount()) {
+                        break;
+                    }
+                    group = next;
+                    i++;
+                }
+                if (group <= matcher.groupCount() && matcher.group(group) != null) {
+                    result.append(matcher.group(group));
+                }
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+}
@@ -0,0 +1,36 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.keymap.EmptyState;
+import net.sourceforge.vrapper.keymap.State;
+import net.sourceforge.vrapper.platform.PlatformSpecificStateProvider;
+import net.sourceforge.vrapper.vim.commands.Command;
+import net.sourceforge.vrapper.vim.modes.commandline.EvaluatorMapping;
+
+/**
+ * A headless editor has no platform specific commands.
+ */
+public class HeadlessStateProvider implements PlatformSpecificStateProvider {
+
+    public static final HeadlessStateProvider INSTANCE = new HeadlessStateProvider();
+
+    private HeadlessStateProvider() {
+        // use INSTANCE
+    }
+
+    public State<Command> getState(String modeName) {
+        return EmptyState.getInstance();
+    }
+
+    public State<String> getKeyMaps(String name) {
+        return EmptyState.getInstance();
+    }
+
+    public EvaluatorMapping getCommands() {
+        return null;
+    }
+
+    public String getName() {
+        return "headless";
+    }
+
+}
@@ -0,0 +1,223 @@
+package net.sourceforge.vrapper.headless;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.Space;
+import net.sourceforge.vrapper.utils.TextRange;
+
+/**
+ * In-memory {@link TextContent} which does not need a document or a widget.
+ * <p>
+ * The text is kept in a gap buffer and the line starts in a {@link LineIndex},
+ * so edits close to each other and line lookups are cheap even for large
+ * files. There is no folding, so this content serves as both model and view
+ * content.
+ */
+public class HeadlessTextContent implements TextContent {
+
+    private char[] buffer = new char[1024];
+    private int gapStart = 0;
+    private int gapEnd = buffer.length;
+    private final LineIndex lines = new LineIndex();
+    private final CharSequence chars = new BufferView();
+    private final CursorService cursorService;
+    private final List<TextContentListener> listeners = new CopyOnWriteArrayList<TextContentListener>();
+    private HeadlessHistoryService historyService;
+
+    public HeadlessTextContent(CursorService cursorService) {
+        this.cursorService = cursorService;
+    }
+
+    void setHistoryService(HeadlessHistoryService historyService) {
+        this.historyService = historyService;
+    }
+
+    /**
+     * Replaces the whole text. This is not recorded in the undo history.
+     */
+    public void setText(String text) {
+        int oldLength = getTextLength();
+        buffer = new char[Math.max(text.length() * 5 / 4, 1024)];
+        text.getChars(0, text.length(), buffer, 0);
+        gapStart = text.length();
+        gapEnd = buffer.length;
+        lines.reset(chars);
+        if (historyService != null) {
+            historyService.reset();
+        }
+        fireTextChanged(0, oldLength, text.length());
+    }
+
+    public String getText() {
+        return getText(0, getTextLength());
+    }
+
+    public LineInformation getLineInformation(int line) {
+        int numberOfLines = lines.getNumberOfLines();
+        if (line < 0 || line >= numberOfLines) {
+            throw new IndexOutOfBoundsException("line: " + line + ", number of lines: " + numberOfLines);
+        }
+        int begin = lines.getLineStart(line);
+        int end;
+        if (line == numberOfLines - 1) {
+            end = getTextLength();
+        } else {
+            int next = lines.getLineStart(line + 1);
+            end = next - 1;
+            if (end > begin && charAt(end) == '\n' && charAt(end - 1) == '\r') {
+                end--;
+            }
+        }
+        return new LineInformation(line, begin, end - begin);
+    }
+
+    public LineInformation getLineInformationOfOffset(int offset) {
+        return getLineInformation(lines.getLineOfOffset(offset));
+    }
+
+    public int getNumberOfLines() {
+        return lines.getNumberOfLines();
+    }
+
+    public void replace(int index, int length, String s) {
+        int textLength = getTextLength();
+        if (index < 0 || length < 0 || index + length > textLength) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length
+                    + ", text length: " + textLength);
+        }
+        if (historyService != null) {
+            historyService.recordReplace(index, getText(index, length), s);
+        }
+        moveGap(index + length);
+        gapStart = index;
+        ensureGap(s.length());
+        s.getChars(0, s.length(), buffer, gapStart);
+        gapStart += s.length();
+        lines.replace(chars, index, length, s.length());
+        fireTextChanged(index, length, s.length());
+    }
+
+    public void smartInsert(int index, String s) {
+        replace(index, 0, s);
+    }
+
+    public void smartInsert(String s) {
+        int offset = cursorService.getPosition().getModelOffset();
+        replace(offset, 0, s);
+        cursorService.setPosition(new HeadlessPosition(offset + s.length()), true);
+    }
+
+    public String getText(int index, int length) {
+        if (index < 0 || length < 0 || index + length > getTextLength()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length
+                    + ", text length: " + getTextLength());
+        }
+        int end = index + length;
+        if (end <= gapStart) {
+            return new String(buffer, index, length);
+        }
+        int gapLength = gapEnd - gapStart;
+        if (index >= gapStart) {
+            return new String(buffer, index + gapLength, length);
+        }
+        StringBuilder result = new StringBuilder(length);
+        result.append(buffer, index, gapStart - index);
+        result.append(buffer, gapEnd, end - gapStart);
+        return result.toString();
+    }
+
+    public String getText(TextRange range) {
+        return getText(range.getLeftBound().getModelOffset(), range.getModelLength());
+    }
+
+    /**
+     * The returned view reads directly from the buffer.
+     */
+    public CharSequence getCharSequence() {
+        return chars;
+    }
+
+    public int getTextLength() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    public Space getSpace() {
+        return Space.MODEL;
+    }
+
+    public void addTextContentListener(TextContentListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeTextContentListener(TextContentListener listener) {
+        listeners.remove(listener);
+    }
+
+    private char charAt(int index) {
+        return buffer[index < gapStart ? index : index + gapEnd - gapStart];
+    }
+
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(buffer, index, buffer, gapEnd - count, count);
+            gapStart -= count;
+            gapEnd -= count;
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    private void ensureGap(int length) {
+        if (gapEnd - gapStart >= length) {
+            return;
+        }
+        int textLength = getTextLength();
+        char[] newBuffer = new char[Math.max((textLength + length) * 3 / 2, 1024)];
+        int tail = buffer.length - gapEnd;
+        System.arraycopy(buffer, 0, newBuffer, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, newBuffer, newBuffer.length - tail, tail);
+        gapEnd = newBuffer.length - tail;
+        buffer = newBuffer;
+    }
+
+    private void fireTextChanged(int offset, int removedLength, int insertedLength) {
+        for (TextContentListener listener : listeners) {
+            listener.textChanged(offset, removedLength, insertedLength);
+        }
+    }
+
+    /** Live view of the buffer. */
+    private class BufferView implements CharSequence {
+
+        public char charAt(int index) {
+            if (index < 0 || index >= getTextLength()) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + getTextLength());
+            }
+            return HeadlessTextContent.this.charAt(index);
+        }
+
+        public int length() {
+            return getTextLength();
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return getText(start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return getText();
+        }
+
+    }
+
+}
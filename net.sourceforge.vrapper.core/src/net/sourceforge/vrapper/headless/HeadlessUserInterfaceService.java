@@ -0,0 +1,57 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.platform.UserInterfaceService;
+
+/**
+ * Keeps the last state of the command line, mode and messages so that a
+ * caller can report them.
+ */
+public class HeadlessUserInterfaceService implements UserInterfaceService {
+
+    private String commandLine = "";
+    private String editorMode = VRAPPER_DISABLED;
+    private String infoMessage;
+    private String errorMessage;
+    private boolean recording;
+
+    public void setCommandLine(String content, int position) {
+        commandLine = content;
+    }
+
+    public void setEditorMode(String modeName) {
+        editorMode = modeName;
+    }
+
+    public void setInfoMessage(String content) {
+        infoMessage = content;
+    }
+
+    public void setErrorMessage(String content) {
+        errorMessage = content;
+    }
+
+    public void setRecording(boolean recording) {
+        this.recording = recording;
+    }
+
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    public String getEditorMode() {
+        return editorMode;
+    }
+
+    public String getInfoMessage() {
+        return infoMessage;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+}
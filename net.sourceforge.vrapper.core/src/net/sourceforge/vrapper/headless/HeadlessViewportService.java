@@ -0,0 +1,67 @@
+package net.sourceforge.vrapper.headless;
+
+import net.sourceforge.vrapper.platform.CursorService;
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.ViewportService;
+import net.sourceforge.vrapper.utils.Position;
+import net.sourceforge.vrapper.utils.ViewPortInformation;
+
+/**
+ * Viewport of a fixed number of lines. Like an editor widget, it scrolls so
+ * that the caret stays visible. There is no folding, so view lines and model
+ * lines are the same.
+ */
+public class HeadlessViewportService implements ViewportService {
+
+    private final TextContent content;
+    private final CursorService cursorService;
+    private final int height;
+    private int topLine;
+
+    public HeadlessViewportService(TextContent content, CursorService cursorService, int height) {
+        this.content = content;
+        this.cursorService = cursorService;
+        this.height = Math.max(1, height);
+    }
+
+    public void setRepaint(boolean b) {
+        // nothing is painted
+    }
+
+    public void lockRepaint(Object lock) {
+        // nothing is painted
+    }
+
+    public void unlockRepaint(Object lock) {
+        // nothing is painted
+    }
+
+    public void exposeModelPosition(Position position) {
+        // nothing is folded
+    }
+
+    public ViewPortInformation getViewPortInformation() {
+        int lastLine = content.getNumberOfLines() - 1;
+        int caretLine = content.getLineInformationOfOffset(cursorService.getPosition().getModelOffset()).getNumber();
+        if (caretLine < topLine) {
+            topLine = caretLine;
+        } else if (caretLine >= topLine + height) {
+            topLine = caretLine - height + 1;
+        }
+        topLine = Math.max(0, Math.min(topLine, lastLine));
+        return new ViewPortInformation(topLine, Math.min(topLine + height - 1, lastLine));
+    }
+
+    public void setTopLine(int line) {
+        topLine = Math.max(0, Math.min(line, content.getNumberOfLines() - 1));
+    }
+
+    public int viewLine2ModelLine(int line) {
+        return line;
+    }
+
+    public int modelLine2ViewLine(int line) {
+        return line;
+    }
+
+}
@@ -0,0 +1,145 @@
+package net.sourceforge.vrapper.headless;
+
+/**
+ * Start offsets of all lines of a text, kept up to date while the text is
+ * modified.
+ * <p>
+ * The offsets are stored in an array with a gap at the last modified line.
+ * Offsets before the gap are absolute, offsets after the gap are relative to
+ * the end of the text, so a modification only touches the lines it changes
+ * and the ones between the previous and the current modification.
+ * Recognized line delimiters are "\n", "\r\n" and "\r".
+ */
+class LineIndex {
+
+    /** starts of lines 1..n, line 0 always starts at 0 */
+    private int[] starts = new int[64];
+    private int gapStart = 0;
+    private int gapEnd = starts.length;
+    private int textLength = 0;
+
+    /** Rebuilds the index for the given text. */
+    void reset(CharSequence text) {
+        gapStart = 0;
+        gapEnd = starts.length;
+        textLength = text.length();
+        for (int offset = 1; offset <= textLength; offset++) {
+            if (isLineStart(text, offset)) {
+                insertAtGap(offset);
+            }
+        }
+    }
+
+    /**
+     * Updates the index after text in [offset, offset + removedLength) has
+     * been replaced by <code>insertedLength</code> characters.
+     *
+     * @param text
+     *            the text after the modification.
+     */
+    void replace(CharSequence text, int offset, int removedLength, int insertedLength) {
+        // line starts depend on the character before them, so the lines
+        // starting anywhere in [offset, offset + length] may change
+        moveGap(firstStartAtOrAfter(offset));
+        int removedEnd = offset + removedLength;
+        while (gapEnd < starts.length && starts[gapEnd] + textLength <= removedEnd) {
+            gapEnd++;
+        }
+        textLength = text.length();
+        int insertedEnd = Math.min(offset + insertedLength, textLength);
+        for (int i = Math.max(offset, 1); i <= insertedEnd; i++) {
+            if (isLineStart(text, i)) {
+                insertAtGap(i);
+            }
+        }
+    }
+
+    int getNumberOfLines() {
+        return 1 + size();
+    }
+
+    int getLineStart(int line) {
+        if (line == 0) {
+            return 0;
+        }
+        return entry(line - 1);
+    }
+
+    int getLineOfOffset(int offset) {
+        // number of lines starting at or before offset
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entry(mid) <= offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static boolean isLineStart(CharSequence text, int offset) {
+        if (offset == 0) {
+            return false;
+        }
+        char previous = text.charAt(offset - 1);
+        if (previous == '\n') {
+            return true;
+        }
+        return previous == '\r' && (offset == text.length() || text.charAt(offset) != '\n');
+    }
+
+    private int size() {
+        return gapStart + starts.length - gapEnd;
+    }
+
+    private int entry(int index) {
+        if (index < gapStart) {
+            return starts[index];
+        }
+        return starts[index + gapEnd - gapStart] + textLength;
+    }
+
+    private int firstStartAtOrAfter(int offset) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (entry(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void moveGap(int index) {
+        int gapLength = gapEnd - gapStart;
+        while (gapStart > index) {
+            --gapStart;
+            --gapEnd;
+            starts[gapEnd] = starts[gapStart] - textLength;
+        }
+        while (gapStart < index) {
+            starts[gapStart] = starts[gapStart + gapLength] + textLength;
+            ++gapStart;
+            ++gapEnd;
+        }
+    }
+
+    private void insertAtGap(int offset) {
+        if (gapStart == gapEnd) {
+            int[] newStarts = new int[starts.length * 2];
+            int tail = starts.length - gapEnd;
+            System.arraycopy(starts, 0, newStarts, 0, gapStart);
+            System.arraycopy(starts, gapEnd, newStarts, newStarts.length - tail, tail);
+            gapEnd = newStarts.length - tail;
+            starts = newStarts;
+        }
+        starts[gapStart++] = offset;
+    }
+
+}
@@ -1,6 +1,5 @@
 package net.sourceforge.vrapper.keymap;
 
-import net.sourceforge.vrapper.log.VrapperLog;
 import net.sourceforge.vrapper.utils.Function;
 
 public class ConvertingState<T1, T2> implements State<T1> {
@@ -21,8 +20,8 @@ public class ConvertingState<T1, T2> implements State<T1> {
     }
 
     public State<T1> union(State<T1> other) {
-        if (other instanceof ConvertingState<?,?>)
-        	VrapperLog.info("TODO: implement ConvertingState's union efficently");
+        // converted values can't be merged, the union asks both states;
+        // compiling the key maps calls this for every key, so nothing is logged
         return new UnionState<T1>(this, other);
     }
 }
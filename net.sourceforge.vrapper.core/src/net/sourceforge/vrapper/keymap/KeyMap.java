@@ -1,15 +1,38 @@
 package net.sourceforge.vrapper.keymap;
 
+import static net.sourceforge.vrapper.keymap.StateUtils.transitionUnion;
+
 import java.util.Iterator;
 
 /**
  * Maps collections of keystrokes to another collection of keystrokes.
+ * <p>
+ * The mappings are stored in a trie which is never modified. A modification
+ * builds a new trie sharing the unmodified branches with the old one and
+ * publishes it at once, so keymaps can be shared by all editors and read
+ * without locking while another editor changes them.
+ * <p>
+ * A keymap may be an overlay of another one: its own mappings take
+ * precedence, other keys are looked up in the underlying keymap.
  *
  * @author Matthias Radig
  */
 public class KeyMap {
 
-    private KeyMapState root = new KeyMapState();
+    private final KeyMap parent;
+    private volatile KeyMapState root = KeyMapState.EMPTY;
+
+    public KeyMap() {
+        this(null);
+    }
+
+    /**
+     * Creates an overlay of <code>parent</code>. Its modifications aren't
+     * visible in the parent, modifications of the parent are visible in it.
+     */
+    public KeyMap(KeyMap parent) {
+        this.parent = parent;
+    }
 
     /**
      * Remaps the given keystrokes.
@@ -19,8 +42,8 @@ public class KeyMap {
      * @param mapping
      *            the mapping
      */
-    public void addMapping(Iterable<KeyStroke> strokes, Remapping mapping) {
-        root.addMapping(strokes.iterator(), mapping);
+    public synchronized void addMapping(Iterable<KeyStroke> strokes, Remapping mapping) {
+        root = root.addMapping(strokes.iterator(), mapping);
     }
 
     /**
@@ -29,84 +52,88 @@ public class KeyMap {
      * @param strokes
      *            the keystrokes to unmap
      */
-    public void removeMapping(Iterable<KeyStroke> strokes) {
-        root.removeMapping(strokes.iterator());
+    public synchronized void removeMapping(Iterable<KeyStroke> strokes) {
+        root = root.removeMapping(strokes.iterator());
     }
 
     /**
      * Removes all mappings from this keymap.
      */
-    public void clear() {
-        root = new KeyMapState();
+    public synchronized void clear() {
+        root = KeyMapState.EMPTY;
+    }
+
+    /**
+     * Replaces the mappings of this keymap with the ones of another keymap.
+     * Later changes to either of them don't affect the other one.
+     */
+    public synchronized void setMappings(KeyMap other) {
+        root = other.root;
     }
 
     public Transition<Remapping> press(KeyStroke key) {
-        return root.press(key);
+        Transition<Remapping> transition = root.press(key);
+        if (parent == null) {
+            return transition;
+        }
+        return transitionUnion(transition, parent.press(key));
     }
 
     private static class KeyMapState extends HashMapState<Remapping> {
 
+        private static final KeyMapState EMPTY = new KeyMapState();
+
         int transitions = 0;
 
-        private void addMapping(Iterator<KeyStroke> strokes, Remapping mapping) {
+        /** @return a copy of this state with the transition of key replaced */
+        private KeyMapState with(KeyStroke key, Transition<Remapping> transition) {
+            KeyMapState result = new KeyMapState();
+            result.map.putAll(map);
+            if (transition != null) {
+                result.map.put(key, transition);
+            } else {
+                result.map.remove(key);
+            }
+            result.transitions = result.map.size();
+            return result;
+        }
+
+        private KeyMapState addMapping(Iterator<KeyStroke> strokes, Remapping mapping) {
             KeyStroke first = strokes.next();
             Transition<Remapping> trans = map.get(first);
+            Remapping value = trans != null ? trans.getValue() : null;
+            KeyMapState next = trans != null ? (KeyMapState) trans.getNextState() : null;
             if (strokes.hasNext()) {
-                if (trans != null) {
-                    KeyMapState next = (KeyMapState) trans.getNextState();
-                    if (next == null) {
-                        next = new KeyMapState();
-                        map.put(first, new SimpleTransition<Remapping>(trans.getValue(), next));
-                    }
-                    next.addMapping(strokes, mapping);
-                } else {
-                    KeyMapState next = new KeyMapState();
-                    map.put(first, new SimpleTransition<Remapping>(next));
-                    transitions += 1;
-                    next.addMapping(strokes, mapping);
-                }
-            } else {
-                if (trans != null) {
-                    map.put(first, new SimpleTransition<Remapping>(mapping, trans.getNextState()));
-                } else {
-                    transitions += 1;
-                    map.put(first, new SimpleTransition<Remapping>(mapping));
+                if (next == null) {
+                    next = EMPTY;
                 }
+                return with(first, new SimpleTransition<Remapping>(value, next.addMapping(strokes, mapping)));
             }
+            return with(first, new SimpleTransition<Remapping>(mapping, next));
         }
 
-        private void removeMapping(Iterator<KeyStroke> strokes) {
+        private KeyMapState removeMapping(Iterator<KeyStroke> strokes) {
             KeyStroke first = strokes.next();
             Transition<Remapping> trans = map.get(first);
+            if (trans == null) {
+                return this;
+            }
+            KeyMapState next = (KeyMapState) trans.getNextState();
             if (strokes.hasNext()) {
-                if (trans != null) {
-                    KeyMapState next = (KeyMapState) trans.getNextState();
-                    if (next != null) {
-                        next.removeMapping(strokes);
-                        if (next.transitions == 0) {
-                            Remapping value = trans.getValue();
-                            if (value != null) {
-                                map.put(first, new SimpleTransition<Remapping>(value));
-                            } else {
-                                map.remove(first);
-                                transitions -= 1;
-                            }
-                        }
-                    } else {
-                        map.remove(first);
-                        transitions -= 1;
-                    }
+                if (next == null) {
+                    return with(first, null);
                 }
-            } else {
-                if (trans != null) {
-                    if (trans.getNextState() == null) {
-                        map.remove(first);
-                        transitions -= 1;
-                    } else {
-                        map.put(first, new SimpleTransition<Remapping>(trans.getNextState()));
-                    }
+                KeyMapState newNext = next.removeMapping(strokes);
+                if (newNext == next) {
+                    return this;
+                }
+                Remapping value = trans.getValue();
+                if (newNext.transitions != 0) {
+                    return with(first, new SimpleTransition<Remapping>(value, newNext));
                 }
+                return with(first, value != null ? new SimpleTransition<Remapping>(value) : null);
             }
+            return with(first, next != null ? new SimpleTransition<Remapping>(next) : null);
         }
     }
-}
\ No newline at end of file
+}
@@ -3,8 +3,8 @@ package net.sourceforge.vrapper.keymap;
 
 public class SimpleTransition<T> implements Transition<T> {
 
-    private State<T> nextState;
-    private T value;
+    private final State<T> nextState;
+    private final T value;
 
     public SimpleTransition(T value, State<T> nextState) {
         this.value = value;
@@ -12,11 +12,11 @@ public class SimpleTransition<T> implements Transition<T> {
     }
 
     public SimpleTransition(T value) {
-        this.value = value;
+        this(value, null);
     }
 
     public SimpleTransition(State<T> nextState) {
-        this.nextState = nextState;
+        this(null, nextState);
     }
 
     public State<T> getNextState() {
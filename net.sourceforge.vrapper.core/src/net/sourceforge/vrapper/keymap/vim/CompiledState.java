@@ -0,0 +1,102 @@
+package net.sourceforge.vrapper.keymap.vim;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.keymap.SimpleTransition;
+import net.sourceforge.vrapper.keymap.SpecialKey;
+import net.sourceforge.vrapper.keymap.State;
+import net.sourceforge.vrapper.keymap.Transition;
+
+/**
+ * Dispatch table built from a keymap state graph. The transitions of all
+ * ASCII characters and special keys are looked up once, when the table is
+ * built, so unions, wrapping and converting states of the source are resolved
+ * then and a key press is a single array access. Other characters are given
+ * to the source state.
+ * <p>
+ * The states reached from the compiled state are compiled as well, up to a
+ * given depth. States deeper than that are used as they are, because states
+ * built for counts and prefixes are created on the fly.
+ */
+public class CompiledState<T> implements State<T> {
+
+    /** Root state and the states reached with a single key, e.g. 'g' or 'd'. */
+    public static final int DEFAULT_DEPTH = 2;
+
+    private static final int ASCII = 128;
+    private static final SpecialKey[] SPECIAL_KEYS = SpecialKey.values();
+
+    private final State<T> source;
+    private final Transition<T>[] characters;
+    private final Transition<T>[] specialKeys;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private CompiledState(State<T> source) {
+        this.source = source;
+        this.characters = new Transition[ASCII];
+        this.specialKeys = new Transition[SPECIAL_KEYS.length];
+    }
+
+    /**
+     * Compiles the state and the states reached from it with less than
+     * {@link #DEFAULT_DEPTH} keys.
+     */
+    public static<T> State<T> compile(State<T> state) {
+        return compile(state, DEFAULT_DEPTH);
+    }
+
+    public static<T> State<T> compile(State<T> state, int depth) {
+        return compile(state, depth, new IdentityHashMap<State<?>, State<?>>());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static<T> State<T> compile(State<T> state, int depth, Map<State<?>, State<?>> compiled) {
+        if (state == null || state instanceof CompiledState<?>) {
+            return state;
+        }
+        if (compiled.containsKey(state)) {
+            // states referring back to an already compiled one, e.g. after "x
+            return (State<T>) compiled.get(state);
+        }
+        if (depth <= 0) {
+            return state;
+        }
+        CompiledState<T> result = new CompiledState<T>(state);
+        compiled.put(state, result);
+        for (char c = 0; c < ASCII; c++) {
+            result.characters[c] = resolve(state.press(SimpleKeyStroke.of(c)), depth, compiled);
+        }
+        for (SpecialKey key: SPECIAL_KEYS) {
+            result.specialKeys[key.ordinal()] = resolve(state.press(SimpleKeyStroke.of(key)), depth, compiled);
+        }
+        return result;
+    }
+
+    private static<T> Transition<T> resolve(Transition<T> transition, int depth, Map<State<?>, State<?>> compiled) {
+        if (transition == null) {
+            return null;
+        }
+        State<T> nextState = compile(transition.getNextState(), depth - 1, compiled);
+        return new SimpleTransition<T>(transition.getValue(), nextState);
+    }
+
+    public Transition<T> press(KeyStroke key) {
+        SpecialKey specialKey = key.getSpecialKey();
+        if (specialKey != null) {
+            return specialKeys[specialKey.ordinal()];
+        }
+        char c = key.getCharacter();
+        if (c < ASCII) {
+            return characters[c];
+        }
+        return source.press(key);
+    }
+
+    /** The union is built from the source state and is not compiled. */
+    public State<T> union(State<T> other) {
+        return source.union(other);
+    }
+
+}
@@ -128,7 +128,7 @@ public class ConstructorWrappers {
     }
 
     public static KeyStroke key(char key) {
-        return new SimpleKeyStroke(key);
+        return SimpleKeyStroke.of(key);
     }
 
     public static KeyStroke ctrlKey(char key) {
@@ -136,7 +136,7 @@ public class ConstructorWrappers {
     }
 
     public static KeyStroke key(SpecialKey key) {
-        return new SimpleKeyStroke(key);
+        return SimpleKeyStroke.of(key);
     }
 
     public static<T> KeyBinding<T> binding(char k, Transition<T> transition) {
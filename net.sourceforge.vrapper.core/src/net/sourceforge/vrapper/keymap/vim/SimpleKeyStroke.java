@@ -9,6 +9,19 @@ import net.sourceforge.vrapper.utils.StringUtils;
 
 public class SimpleKeyStroke implements KeyStroke {
 
+    /** Characters below this have a shared instance. */
+    private static final int CACHED_CHARACTERS = 256;
+    private static final SimpleKeyStroke[] CHARACTERS = new SimpleKeyStroke[CACHED_CHARACTERS];
+    private static final SimpleKeyStroke[] SPECIAL_KEYS = new SimpleKeyStroke[SpecialKey.values().length];
+    static {
+        for (char c = 0; c < CACHED_CHARACTERS; c++) {
+            CHARACTERS[c] = new SimpleKeyStroke(c);
+        }
+        for (SpecialKey key: SpecialKey.values()) {
+            SPECIAL_KEYS[key.ordinal()] = new SimpleKeyStroke(key);
+        }
+    }
+
     private final char character;
     private final SpecialKey specialKey;
 
@@ -22,6 +35,22 @@ public class SimpleKeyStroke implements KeyStroke {
         this.specialKey = key;
     }
 
+    /**
+     * @return a shared instance for the character, so that translating input
+     *         events doesn't allocate for the common keys.
+     */
+    public static SimpleKeyStroke of(char character) {
+        if (character < CACHED_CHARACTERS) {
+            return CHARACTERS[character];
+        }
+        return new SimpleKeyStroke(character);
+    }
+
+    /** @return the shared instance for the special key. */
+    public static SimpleKeyStroke of(SpecialKey key) {
+        return SPECIAL_KEYS[key.ordinal()];
+    }
+
     public char getCharacter() {
         return character;
     }
@@ -0,0 +1,20 @@
+package net.sourceforge.vrapper.platform;
+
+/**
+ * Runs tasks later in the thread which handles the key strokes. Used to
+ * defer work until the user stops typing. Obtained through
+ * {@link ServiceProvider#getService(Class)}; platforms without it run
+ * everything immediately.
+ */
+public interface Scheduler {
+
+    /**
+     * Runs the task after the given delay. Scheduling a task which is still
+     * pending postpones it instead of running it twice.
+     */
+    void schedule(Runnable task, int delayMillis);
+
+    /** Drops the task if it is still pending. */
+    void cancel(Runnable task);
+
+}
@@ -71,6 +71,15 @@ public interface TextContent {
 
     String getText(TextRange range);
 
+    /**
+     * Returns a read-only view of the whole text which can be scanned
+     * character by character without creating a String for each of them.
+     * The view must not be used after the text has been modified.
+     *
+     * @return the text as a {@link CharSequence}.
+     */
+    CharSequence getCharSequence();
+
     /**
      * @return length of text
      */
@@ -78,4 +87,12 @@ public interface TextContent {
 
 	Space getSpace();
 
+	/**
+	 * Registers a listener which is notified after each modification of the
+	 * text, no matter whether Vrapper or somebody else modified it.
+	 */
+	void addTextContentListener(TextContentListener listener);
+
+	void removeTextContentListener(TextContentListener listener);
+
 }
@@ -0,0 +1,21 @@
+package net.sourceforge.vrapper.platform;
+
+/**
+ * Gets notified about modifications of a {@link TextContent}. Offsets are in
+ * the space of the content the listener has been registered with.
+ */
+public interface TextContentListener {
+
+    /**
+     * Called after a part of the text has been replaced.
+     *
+     * @param offset
+     *            start of the modified region.
+     * @param removedLength
+     *            length of the text which has been removed.
+     * @param insertedLength
+     *            length of the text which has been inserted.
+     */
+    void textChanged(int offset, int removedLength, int insertedLength);
+
+}
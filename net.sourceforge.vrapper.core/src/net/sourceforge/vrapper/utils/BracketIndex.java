@@ -0,0 +1,313 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+
+/**
+ * Index of bracket positions in a {@link TextContent}, used to find enclosing
+ * brackets without scanning the text between the cursor and the bracket.
+ * <p>
+ * One index exists per content; it is kept up to date by a
+ * {@link TextContentListener}. A modification only drops the brackets in the
+ * modified region and shifts the ones after it, the region is rescanned
+ * lazily on the next query. The shift is applied lazily too, only to the
+ * positions between two modifications. Pairs are resolved the same way as a
+ * scan counting nesting depth would, so unbalanced text yields the same
+ * results as before. The nesting is computed again for all brackets when
+ * brackets have been added or removed.
+ */
+public class BracketIndex implements TextContentListener {
+
+    private static final Map<TextContent, BracketIndex> INDICES = new WeakHashMap<TextContent, BracketIndex>();
+
+    private final Map<Integer, PairIndex> pairs = new HashMap<Integer, PairIndex>();
+
+    private BracketIndex() {
+        // use forContent()
+    }
+
+    /**
+     * @return the index of the given content, created on first use.
+     */
+    public static BracketIndex forContent(TextContent content) {
+        synchronized (INDICES) {
+            BracketIndex index = INDICES.get(content);
+            if (index == null) {
+                index = new BracketIndex();
+                content.addTextContentListener(index);
+                INDICES.put(content, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Finds the <code>count</code>-th unmatched <code>open</code> bracket
+     * before <code>offset</code>, i.e. the opening bracket of the pair of depth
+     * <code>count</code> enclosing the offset.
+     *
+     * @return offset of the bracket or -1 if there is none.
+     */
+    public synchronized int findEnclosingOpen(TextContent content, char open, char close, int offset, int count) {
+        return getPairIndex(content, open, close).findEnclosingOpen(offset, count);
+    }
+
+    /**
+     * Finds the <code>count</code>-th unmatched <code>close</code> bracket
+     * after <code>offset</code>, i.e. the closing bracket of the pair of depth
+     * <code>count</code> enclosing the offset. For an opening bracket at
+     * <code>offset</code> and <code>count == 1</code> this is its partner.
+     *
+     * @return offset of the bracket or -1 if there is none.
+     */
+    public synchronized int findEnclosingClose(TextContent content, char open, char close, int offset, int count) {
+        return getPairIndex(content, open, close).findEnclosingClose(offset, count);
+    }
+
+    public synchronized void textChanged(int offset, int removedLength, int insertedLength) {
+        for (PairIndex pairIndex : pairs.values()) {
+            pairIndex.textChanged(offset, removedLength, insertedLength);
+        }
+    }
+
+    private PairIndex getPairIndex(TextContent content, char open, char close) {
+        if (open == close) {
+            throw new IllegalArgumentException("brackets must differ: " + open);
+        }
+        Integer key = Integer.valueOf((open << 16) | close);
+        PairIndex pairIndex = pairs.get(key);
+        if (pairIndex == null) {
+            pairIndex = new PairIndex(open, close);
+            pairs.put(key, pairIndex);
+        }
+        pairIndex.update(content.getCharSequence());
+        return pairIndex;
+    }
+
+    /** Sorted positions of one kind of brackets together with their nesting. */
+    private static class PairIndex {
+
+        private static final int NONE = -1;
+
+        private final char open;
+        private final char close;
+
+        private int size;
+        private int[] positions = new int[16];
+        private boolean[] opening = new boolean[16];
+        /** index of the innermost unmatched open bracket after scanning up to i from the left */
+        private int[] leftTop = new int[0];
+        /** for open brackets: index of the unmatched open bracket enclosing it */
+        private int[] leftParent = new int[0];
+        /** index of the innermost unmatched close bracket after scanning down to i from the right */
+        private int[] rightTop = new int[0];
+        /** for close brackets: index of the unmatched close bracket enclosing it */
+        private int[] rightParent = new int[0];
+        private boolean nestingValid;
+        /** positions from this index on have yet to be shifted by pendingDelta */
+        private int pendingFrom;
+        private int pendingDelta;
+
+        /** region in current coordinates which has to be rescanned; empty if start > end */
+        private int dirtyStart = 0;
+        private int dirtyEnd = Integer.MAX_VALUE;
+
+        PairIndex(char open, char close) {
+            this.open = open;
+            this.close = close;
+        }
+
+        int findEnclosingOpen(int offset, int count) {
+            int i = lowerBound(offset) - 1;
+            if (i < 0) {
+                return NONE;
+            }
+            int result = leftTop[i];
+            while (--count > 0 && result != NONE) {
+                result = leftParent[result];
+            }
+            return result == NONE ? NONE : position(result);
+        }
+
+        int findEnclosingClose(int offset, int count) {
+            int i = lowerBound(offset + 1);
+            if (i >= size) {
+                return NONE;
+            }
+            int result = rightTop[i];
+            while (--count > 0 && result != NONE) {
+                result = rightParent[result];
+            }
+            return result == NONE ? NONE : position(result);
+        }
+
+        void textChanged(int offset, int removedLength, int insertedLength) {
+            int end = offset + removedLength;
+            int delta = insertedLength - removedLength;
+            int from = lowerBound(offset);
+            int to = lowerBound(end);
+            moveShift(from);
+            removeRange(from, to);
+            pendingDelta += delta;
+            int newEnd = offset + insertedLength;
+            if (dirtyStart > dirtyEnd) {
+                dirtyStart = offset;
+                dirtyEnd = newEnd;
+            } else {
+                dirtyStart = Math.min(shift(dirtyStart, offset, end, delta, offset), offset);
+                if (dirtyEnd != Integer.MAX_VALUE) {
+                    dirtyEnd = Math.max(shift(dirtyEnd, offset, end, delta, newEnd), newEnd);
+                }
+            }
+        }
+
+        /** Rescans the damaged region and recomputes the nesting if needed. */
+        void update(CharSequence text) {
+            if (dirtyStart <= dirtyEnd) {
+                int start = Math.min(dirtyStart, text.length());
+                int end = Math.min(dirtyEnd, text.length());
+                int from = lowerBound(start);
+                int to = lowerBound(end);
+                moveShift(from);
+                removeRange(from, to);
+                int[] found = new int[16];
+                int count = 0;
+                for (int offset = start; offset < end; offset++) {
+                    char c = text.charAt(offset);
+                    if (c == open || c == close) {
+                        if (count == found.length) {
+                            int[] grown = new int[count * 2];
+                            System.arraycopy(found, 0, grown, 0, count);
+                            found = grown;
+                        }
+                        found[count++] = offset;
+                    }
+                }
+                insert(from, found, count, text);
+                dirtyStart = 1;
+                dirtyEnd = 0;
+            }
+            if (!nestingValid) {
+                computeNesting();
+            }
+        }
+
+        private void computeNesting() {
+            if (leftTop.length < size) {
+                int capacity = positions.length;
+                leftTop = new int[capacity];
+                leftParent = new int[capacity];
+                rightTop = new int[capacity];
+                rightParent = new int[capacity];
+            }
+            int[] stack = new int[size];
+            int depth = 0;
+            for (int i = 0; i < size; i++) {
+                if (opening[i]) {
+                    leftParent[i] = depth > 0 ? stack[depth - 1] : NONE;
+                    stack[depth++] = i;
+                } else if (depth > 0) {
+                    --depth;
+                }
+                leftTop[i] = depth > 0 ? stack[depth - 1] : NONE;
+            }
+            depth = 0;
+            for (int i = size - 1; i >= 0; i--) {
+                if (!opening[i]) {
+                    rightParent[i] = depth > 0 ? stack[depth - 1] : NONE;
+                    stack[depth++] = i;
+                } else if (depth > 0) {
+                    --depth;
+                }
+                rightTop[i] = depth > 0 ? stack[depth - 1] : NONE;
+            }
+            nestingValid = true;
+        }
+
+        private int position(int i) {
+            return i >= pendingFrom ? positions[i] + pendingDelta : positions[i];
+        }
+
+        /**
+         * Applies the pending shift to the positions between its start and
+         * <code>index</code>, so that it starts there.
+         */
+        private void moveShift(int index) {
+            for (int i = pendingFrom; i < index; i++) {
+                positions[i] += pendingDelta;
+            }
+            for (int i = index; i < pendingFrom; i++) {
+                positions[i] -= pendingDelta;
+            }
+            pendingFrom = index;
+        }
+
+        /** @return index of the first bracket at or after offset */
+        private int lowerBound(int offset) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (position(mid) < offset) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private void removeRange(int from, int to) {
+            if (from < to) {
+                System.arraycopy(positions, to, positions, from, size - to);
+                System.arraycopy(opening, to, opening, from, size - to);
+                size -= to - from;
+                nestingValid = false;
+            }
+        }
+
+        /**
+         * Inserts the brackets at the given offsets before the pending shift,
+         * which has to start at <code>index</code>.
+         */
+        private void insert(int index, int[] offsets, int count, CharSequence text) {
+            if (count == 0) {
+                return;
+            }
+            if (size + count > positions.length) {
+                int capacity = Math.max(positions.length * 2, size + count);
+                int[] newPositions = new int[capacity];
+                boolean[] newOpening = new boolean[capacity];
+                System.arraycopy(positions, 0, newPositions, 0, size);
+                System.arraycopy(opening, 0, newOpening, 0, size);
+                positions = newPositions;
+                opening = newOpening;
+            }
+            System.arraycopy(positions, index, positions, index + count, size - index);
+            System.arraycopy(opening, index, opening, index + count, size - index);
+            for (int i = 0; i < count; i++) {
+                positions[index + i] = offsets[i];
+                opening[index + i] = text.charAt(offsets[i]) == open;
+            }
+            size += count;
+            pendingFrom += count;
+            nestingValid = false;
+        }
+
+        /** Maps an offset over a replacement of [start, end) by text shifting by delta. */
+        private static int shift(int offset, int start, int end, int delta, int inside) {
+            if (offset < start) {
+                return offset;
+            }
+            if (offset >= end) {
+                return offset + delta;
+            }
+            return inside;
+        }
+    }
+
+}
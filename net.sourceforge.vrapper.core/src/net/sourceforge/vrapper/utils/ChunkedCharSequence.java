@@ -0,0 +1,77 @@
+package net.sourceforge.vrapper.utils;
+
+import net.sourceforge.vrapper.platform.TextContent;
+
+/**
+ * Read-only {@link CharSequence} view of a {@link TextContent}. The text is
+ * fetched in chunks, so scanning it character by character does not create
+ * a String for every character. Chunks are not refreshed, so the view must
+ * not be used after the underlying text has been modified.
+ */
+public class ChunkedCharSequence implements CharSequence {
+
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    private final TextContent content;
+    private final int start;
+    private final int length;
+    private final int chunkSize;
+    private String chunk = "";
+    private int chunkStart = 0;
+
+    public ChunkedCharSequence(TextContent content) {
+        this(content, 0, content.getTextLength(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ChunkedCharSequence(TextContent content, int start, int length, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be positive: " + chunkSize);
+        }
+        this.content = content;
+        this.start = start;
+        this.length = length;
+        this.chunkSize = chunkSize;
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+        int relative = index - chunkStart;
+        if (relative < 0 || relative >= chunk.length()) {
+            fetchChunk(index);
+            relative = index - chunkStart;
+        }
+        return chunk.charAt(relative);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + length);
+        }
+        return new ChunkedCharSequence(content, start + from, to - from, chunkSize);
+    }
+
+    @Override
+    public String toString() {
+        return content.getText(start, length);
+    }
+
+    private void fetchChunk(int index) {
+        int from;
+        if (index < chunkStart) {
+            // scanning backwards, so keep the preceding text in the chunk
+            from = Math.max(0, index - chunkSize + 1);
+        } else {
+            from = index;
+        }
+        int to = Math.min(length, from + chunkSize);
+        chunk = content.getText(start + from, to - from);
+        chunkStart = from;
+    }
+
+}
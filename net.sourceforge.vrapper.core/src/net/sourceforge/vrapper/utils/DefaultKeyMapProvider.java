@@ -1,25 +1,51 @@
 package net.sourceforge.vrapper.utils;
 
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import net.sourceforge.vrapper.keymap.KeyMap;
 import net.sourceforge.vrapper.platform.KeyMapProvider;
 
 /**
- * Uses a {@link HashMap} to store different keymaps. {@link KeyMap} instances
- * are created lazily when they are looked up for the first time.
+ * Uses a {@link ConcurrentHashMap} to store different keymaps. {@link KeyMap}
+ * instances are created lazily when they are looked up for the first time.
+ * <p>
+ * {@link #GLOBAL} holds the keymaps shared by all editors. A provider
+ * created with a parent provider holds overlays of the parent's keymaps, for
+ * mappings which only apply to one editor.
  *
  * @author Matthias Radig
  */
 public class DefaultKeyMapProvider implements KeyMapProvider {
 
-    private final HashMap<String, KeyMap> keymaps = new HashMap<String, KeyMap>();
+    /** Keymaps shared by all editors of the workspace. */
+    public static final DefaultKeyMapProvider GLOBAL = new DefaultKeyMapProvider();
+
+    private final ConcurrentMap<String, KeyMap> keymaps = new ConcurrentHashMap<String, KeyMap>();
+    private final KeyMapProvider parent;
+
+    public DefaultKeyMapProvider() {
+        this(null);
+    }
+
+    /**
+     * Creates a provider whose keymaps are overlays of the keymaps of
+     * <code>parent</code>.
+     */
+    public DefaultKeyMapProvider(KeyMapProvider parent) {
+        this.parent = parent;
+    }
 
     public KeyMap getKeyMap(String id) {
-        if (!keymaps.containsKey(id)) {
-            keymaps.put(id, new KeyMap());
+        KeyMap keymap = keymaps.get(id);
+        if (keymap == null) {
+            KeyMap created = parent != null ? new KeyMap(parent.getKeyMap(id)) : new KeyMap();
+            keymap = keymaps.putIfAbsent(id, created);
+            if (keymap == null) {
+                keymap = created;
+            }
         }
-        return keymaps.get(id);
+        return keymap;
     }
 
 }
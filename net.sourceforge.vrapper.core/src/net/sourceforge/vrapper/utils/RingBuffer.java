@@ -0,0 +1,131 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.AbstractQueue;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Queue backed by a circular array which can also be filled from the front.
+ * The array is allocated once and only grows if more elements than its
+ * capacity are queued, so adding and polling don't allocate anything.
+ * <p>
+ * Not thread safe, does not accept <code>null</code>.
+ */
+public class RingBuffer<E> extends AbstractQueue<E> {
+
+    private Object[] elements;
+    private int head;
+    private int size;
+    private int modCount;
+
+    public RingBuffer(int capacity) {
+        elements = new Object[Math.max(capacity, 1)];
+    }
+
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        ensureCapacity();
+        elements[index(size)] = element;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    /** Inserts the element before all other elements. */
+    public void addFirst(E element) {
+        if (element == null) {
+            throw new NullPointerException();
+        }
+        ensureCapacity();
+        head = index(elements.length - 1);
+        elements[head] = element;
+        size++;
+        modCount++;
+    }
+
+    public E poll() {
+        if (size == 0) {
+            return null;
+        }
+        E result = get(0);
+        elements[head] = null;
+        head = index(1);
+        size--;
+        modCount++;
+        return result;
+    }
+
+    public E peek() {
+        return size == 0 ? null : get(0);
+    }
+
+    /** @return the element at the given position, counted from the head. */
+    @SuppressWarnings("unchecked")
+    public E get(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException(String.valueOf(i));
+        }
+        return (E) elements[index(i)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            elements[index(i)] = null;
+        }
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final int expectedModCount = modCount;
+            private int next = 0;
+
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            public E next() {
+                if (expectedModCount != modCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(next++);
+            }
+
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private int index(int i) {
+        return (head + i) % elements.length;
+    }
+
+    private void ensureCapacity() {
+        if (size < elements.length) {
+            return;
+        }
+        Object[] grown = new Object[elements.length * 2];
+        for (int i = 0; i < size; i++) {
+            grown[i] = elements[index(i)];
+        }
+        elements = grown;
+        head = 0;
+    }
+
+}
@@ -0,0 +1,351 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+
+/**
+ * Index of the matches of the last searched pattern in a {@link TextContent},
+ * used to repeat a search without scanning the text again.
+ * <p>
+ * One index exists per content; it is kept up to date by a
+ * {@link TextContentListener}. A modification drops the matches in the
+ * modified lines and shifts the others, the lines are searched again lazily
+ * on the next query. A modification drops all matches of a regular
+ * expression, as they may span lines. Until they are needed again for a
+ * count, a match is found by a single search of the text.
+ * <p>
+ * Matches are collected the way Eclipse's FindReplaceDocumentAdapter finds
+ * them: a forward search returns the first match starting at or after the
+ * offset, a backward search the last match ending at most one character
+ * after it.
+ */
+public class SearchIndex implements TextContentListener {
+
+    private static final Map<TextContent, SearchIndex> INDICES = new WeakHashMap<TextContent, SearchIndex>();
+
+    private final TextContent content;
+
+    private Search indexedSearch;
+    private Pattern pattern;
+    /**
+     * whether matches may span lines, so lines can't be searched again one by
+     * one; true for every regular expression
+     */
+    private boolean multiLine;
+
+    private int size;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+
+    /** region in current coordinates which has to be searched again; empty if start > end */
+    private int dirtyStart = 0;
+    private int dirtyEnd = Integer.MAX_VALUE;
+
+    private SearchIndex(TextContent content) {
+        this.content = content;
+    }
+
+    /**
+     * @return the index of the given content, created on first use.
+     */
+    public static SearchIndex forContent(TextContent content) {
+        synchronized (INDICES) {
+            SearchIndex index = INDICES.get(content);
+            if (index == null) {
+                index = new SearchIndex(content);
+                content.addTextContentListener(index);
+                INDICES.put(content, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Finds the next match in the direction of the search.
+     *
+     * @return the match or an empty result if there is none or the pattern
+     *         is invalid.
+     */
+    public synchronized SearchResult find(Search search, Position start) {
+        if (!prepare(search)) {
+            return new SearchResult(null, null);
+        }
+        if (multiLine && dirtyStart <= dirtyEnd) {
+            return search(search, start, start.getModelOffset());
+        }
+        update(search);
+        int i = search.isBackward() ? before(start.getModelOffset()) : lowerBound(start.getModelOffset());
+        return result(start, i);
+    }
+
+    /**
+     * Like {@link #find(Search, Position)}, but continues at the other end of
+     * the text if there is no match, like
+     * {@link VimUtils#wrapAroundSearch(net.sourceforge.vrapper.vim.EditorAdaptor, Search, Position)}.
+     */
+    public synchronized SearchResult wrapAroundFind(Search search, Position start) {
+        if (!prepare(search)) {
+            return new SearchResult(null, null);
+        }
+        int offset = start.getModelOffset();
+        if (multiLine && dirtyStart <= dirtyEnd) {
+            SearchResult result = search(search, start, offset);
+            if (result.isFound()) {
+                return result;
+            }
+            return search(search, start, search.isBackward()
+                    ? content.getLineInformation(content.getNumberOfLines() - 1).getEndOffset() - 1
+                    : 0);
+        }
+        update(search);
+        if (search.isBackward()) {
+            int i = before(offset);
+            if (i < 0) {
+                i = before(content.getLineInformation(content.getNumberOfLines() - 1).getEndOffset() - 1);
+            }
+            return result(start, i);
+        }
+        int i = lowerBound(offset);
+        return result(start, i < size ? i : 0);
+    }
+
+    /** @return the number of matches of the search in the whole text. */
+    public synchronized int getMatchCount(Search search) {
+        return update(search) ? size : 0;
+    }
+
+    /**
+     * @return the one-based number of the match starting at
+     *         <code>offset</code>, or 0 if no match starts there.
+     */
+    public synchronized int getMatchNumber(Search search, int offset) {
+        if (!update(search)) {
+            return 0;
+        }
+        int i = lowerBound(offset);
+        return i < size && starts[i] == offset ? i + 1 : 0;
+    }
+
+    public synchronized void textChanged(int offset, int removedLength, int insertedLength) {
+        if (indexedSearch == null) {
+            return;
+        }
+        if (multiLine) {
+            // searched again as a whole, when needed
+            size = 0;
+            dirtyStart = 0;
+            dirtyEnd = Integer.MAX_VALUE;
+            return;
+        }
+        int end = offset + removedLength;
+        int delta = insertedLength - removedLength;
+        int from = lowerBound(offset);
+        int to = lowerBound(end);
+        removeRange(from, to);
+        for (int i = from; i < size; i++) {
+            starts[i] += delta;
+            ends[i] += delta;
+        }
+        // whole lines, a match may depend on the text around it
+        int newStart = content.getLineInformationOfOffset(offset).getBeginOffset();
+        LineInformation lastLine = content.getLineInformationOfOffset(offset + insertedLength);
+        int newEnd = lastLine.getNumber() + 1 < content.getNumberOfLines()
+                ? content.getLineInformation(lastLine.getNumber() + 1).getBeginOffset()
+                : content.getTextLength();
+        // and matches reaching into the modified region
+        for (int i = from - 1; i >= 0 && ends[i] >= newStart; i--) {
+            newStart = Math.min(newStart, starts[i]);
+        }
+        if (dirtyStart > dirtyEnd) {
+            dirtyStart = newStart;
+            dirtyEnd = newEnd;
+        } else {
+            dirtyStart = Math.min(shift(dirtyStart, offset, end, delta, offset), newStart);
+            if (dirtyEnd != Integer.MAX_VALUE) {
+                dirtyEnd = Math.max(shift(dirtyEnd, offset, end, delta, newEnd), newEnd);
+            }
+        }
+    }
+
+    /**
+     * Makes the index cover the given search and searches the damaged
+     * region again.
+     *
+     * @return false if the pattern is invalid.
+     */
+    private boolean update(Search search) {
+        if (!prepare(search)) {
+            return false;
+        }
+        if (dirtyStart <= dirtyEnd) {
+            CharSequence text = content.getCharSequence();
+            int start = Math.min(dirtyStart, text.length());
+            int end = Math.min(dirtyEnd, text.length());
+            int from = lowerBound(start);
+            removeRange(from, end == text.length() ? size : lowerBound(end));
+            int insertAt = from;
+            Matcher matcher = pattern.matcher(text);
+            // every offset at which a match starts, like a search repeated
+            // from one character after the previous match
+            int offset = start;
+            while (offset <= text.length() && matcher.find(offset)
+                    && (matcher.start() < end || end == text.length())) {
+                insert(insertAt++, matcher.start(), matcher.end());
+                offset = matcher.start() + 1;
+            }
+            dirtyStart = 1;
+            dirtyEnd = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Compiles the pattern of the search, unless the index already covers
+     * it.
+     *
+     * @return false if the pattern is invalid.
+     */
+    private boolean prepare(Search search) {
+        if (!sameMatches(search, indexedSearch)) {
+            try {
+                pattern = compile(search);
+            } catch (PatternSyntaxException e) {
+                indexedSearch = null;
+                return false;
+            }
+            indexedSearch = search;
+            // too many constructs match a line break (\W, \D, [^x], (?s). ...)
+            // to tell from a regular expression whether a match may span lines
+            String keyword = search.getKeyword();
+            multiLine = search.isRegExSearch() || keyword.indexOf('\n') >= 0 || keyword.indexOf('\r') >= 0;
+            size = 0;
+            dirtyStart = 0;
+            dirtyEnd = Integer.MAX_VALUE;
+        }
+        return true;
+    }
+
+    /**
+     * Finds a match with a single search of the text instead of the index,
+     * the match the index would return.
+     */
+    private SearchResult search(Search search, Position start, int offset) {
+        CharSequence text = content.getCharSequence();
+        Matcher matcher = pattern.matcher(text);
+        if (!search.isBackward()) {
+            if (offset <= text.length() && matcher.find(Math.max(offset, 0))) {
+                return new SearchResult(start.setModelOffset(matcher.start()), start.setModelOffset(matcher.end()));
+            }
+            return new SearchResult(null, null);
+        }
+        // the last match ending at most one character after offset
+        int matchStart = -1;
+        int matchEnd = -1;
+        int position = 0;
+        while (position <= text.length() && matcher.find(position) && matcher.start() <= offset + 1) {
+            if (matcher.end() <= offset + 1) {
+                matchStart = matcher.start();
+                matchEnd = matcher.end();
+            }
+            position = matcher.start() + 1;
+        }
+        if (matchStart < 0) {
+            return new SearchResult(null, null);
+        }
+        return new SearchResult(start.setModelOffset(matchStart), start.setModelOffset(matchEnd));
+    }
+
+    private SearchResult result(Position start, int i) {
+        if (i < 0 || i >= size) {
+            return new SearchResult(null, null);
+        }
+        return new SearchResult(start.setModelOffset(starts[i]), start.setModelOffset(ends[i]));
+    }
+
+    /** @return index of the last match ending at most one character after offset, or -1 */
+    private int before(int offset) {
+        int i = lowerBound(offset + 2) - 1;
+        while (i >= 0 && ends[i] > offset + 1) {
+            i--;
+        }
+        return i;
+    }
+
+    /** @return index of the first match starting at or after offset */
+    private int lowerBound(int offset) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void removeRange(int from, int to) {
+        if (from < to) {
+            System.arraycopy(starts, to, starts, from, size - to);
+            System.arraycopy(ends, to, ends, from, size - to);
+            size -= to - from;
+        }
+    }
+
+    private void insert(int index, int start, int end) {
+        if (size == starts.length) {
+            int[] newStarts = new int[size * 2];
+            int[] newEnds = new int[size * 2];
+            System.arraycopy(starts, 0, newStarts, 0, size);
+            System.arraycopy(ends, 0, newEnds, 0, size);
+            starts = newStarts;
+            ends = newEnds;
+        }
+        System.arraycopy(starts, index, starts, index + 1, size - index);
+        System.arraycopy(ends, index, ends, index + 1, size - index);
+        starts[index] = start;
+        ends[index] = end;
+        size++;
+    }
+
+    private static boolean sameMatches(Search search, Search other) {
+        return other != null
+                && search.getKeyword().equals(other.getKeyword())
+                && search.isWholeWord() == other.isWholeWord()
+                && search.isCaseSensitive() == other.isCaseSensitive()
+                && search.isRegExSearch() == other.isRegExSearch();
+    }
+
+    /** Compiles the search the way FindReplaceDocumentAdapter does. */
+    private static Pattern compile(Search search) {
+        String regex = search.isRegExSearch() ? search.getKeyword() : Pattern.quote(search.getKeyword());
+        if (search.isWholeWord()) {
+            regex = "\\b" + regex + "\\b";
+        }
+        int flags = Pattern.MULTILINE;
+        if (!search.isCaseSensitive()) {
+            flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        return Pattern.compile(regex, flags);
+    }
+
+    /** Maps an offset over a replacement of [start, end) by text shifting by delta. */
+    private static int shift(int offset, int start, int end, int delta, int inside) {
+        if (offset < start) {
+            return offset;
+        }
+        if (offset >= end) {
+            return offset + delta;
+        }
+        return inside;
+    }
+
+}
@@ -0,0 +1,257 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.vrapper.platform.TextContent;
+
+/**
+ * Replacements of a {@link TextContent} which are collected first and
+ * applied together, touching only the text which actually changes.
+ * <p>
+ * Replacing a large range whose text mostly stays the same produces a large
+ * undo record and makes the editor re-highlight the range and update the
+ * annotations in it. Spans are added in ascending order of offset, spans
+ * separated by just a few characters are joined, and {@link #apply()}
+ * replaces them from the last to the first so their offsets stay valid.
+ * <p>
+ * {@link #diff(int, String, String)} finds the changed spans of a region by
+ * stripping the common prefix and suffix and matching the lines which occur
+ * once in both versions of the rest, like the patience diff does.
+ */
+public class TextEdit {
+
+    /** spans which are closer to each other are replaced together */
+    public static final int JOIN_DISTANCE = 32;
+
+    private final TextContent content;
+    private final List<Integer> offsets = new ArrayList<Integer>();
+    private final List<Integer> lengths = new ArrayList<Integer>();
+    /** builders, as a span may be joined with many others */
+    private final List<StringBuilder> texts = new ArrayList<StringBuilder>();
+
+    public TextEdit(TextContent content) {
+        this.content = content;
+    }
+
+    /**
+     * Replaces a region with a new text, modifying only the spans which
+     * differ. Call it inside a compound change, so that undo takes back the
+     * whole replacement.
+     */
+    public static void replace(TextContent content, int offset, int length, String text) {
+        replace(content, offset, content.getText(offset, length), text);
+    }
+
+    /**
+     * Like {@link #replace(TextContent, int, int, String)}, for a caller
+     * which has already read the text of the region.
+     */
+    public static void replace(TextContent content, int offset, String oldText, String newText) {
+        TextEdit edit = new TextEdit(content);
+        edit.diff(offset, oldText, newText);
+        edit.apply();
+    }
+
+    /**
+     * Adds a replacement. It must not start before the end of the previous
+     * one.
+     */
+    public void replace(int offset, int length, String text) {
+        int last = offsets.size() - 1;
+        if (last >= 0) {
+            int end = offsets.get(last) + lengths.get(last);
+            if (offset < end) {
+                throw new IllegalArgumentException("replacement at " + offset + " overlaps the previous one");
+            }
+            if (offset - end <= JOIN_DISTANCE) {
+                lengths.set(last, offset + length - offsets.get(last));
+                texts.get(last).append(content.getText(end, offset - end)).append(text);
+                return;
+            }
+        }
+        if (length > 0 || text.length() > 0) {
+            offsets.add(offset);
+            lengths.add(length);
+            texts.add(new StringBuilder(text));
+        }
+    }
+
+    /**
+     * Adds the replacements which turn <code>oldText</code>, the current text
+     * at <code>offset</code>, into <code>newText</code>.
+     */
+    public void diff(int offset, String oldText, String newText) {
+        int prefix = 0;
+        int max = Math.min(oldText.length(), newText.length());
+        while (prefix < max && oldText.charAt(prefix) == newText.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        max -= prefix;
+        while (suffix < max && oldText.charAt(oldText.length() - 1 - suffix)
+                == newText.charAt(newText.length() - 1 - suffix)) {
+            suffix++;
+        }
+        if (prefix + suffix == oldText.length() && prefix + suffix == newText.length()) {
+            return;
+        }
+        String oldMiddle = oldText.substring(prefix, oldText.length() - suffix);
+        String newMiddle = newText.substring(prefix, newText.length() - suffix);
+        List<String> oldLines = lines(oldMiddle);
+        List<String> newLines = lines(newMiddle);
+        int[] oldStarts = starts(oldLines);
+        int[] newStarts = starts(newLines);
+        int oldLine = 0;
+        int newLine = 0;
+        for (int[] anchor : anchors(oldLines, newLines)) {
+            addHunk(offset + prefix, oldMiddle, newMiddle, oldStarts, newStarts,
+                    oldLines, newLines, oldLine, anchor[0], newLine, anchor[1]);
+            oldLine = anchor[0] + 1;
+            newLine = anchor[1] + 1;
+        }
+        addHunk(offset + prefix, oldMiddle, newMiddle, oldStarts, newStarts,
+                oldLines, newLines, oldLine, oldLines.size(), newLine, newLines.size());
+    }
+
+    /** @return the number of replacements. */
+    public int size() {
+        return offsets.size();
+    }
+
+    /**
+     * Applies the replacements. Call it inside a compound change, so that
+     * undo takes back all of them.
+     */
+    public void apply() {
+        for (int i = offsets.size() - 1; i >= 0; i--) {
+            content.replace(offsets.get(i), lengths.get(i), texts.get(i).toString());
+        }
+        offsets.clear();
+        lengths.clear();
+        texts.clear();
+    }
+
+    /**
+     * Adds the difference between two ranges of lines, without the lines and
+     * characters they start or end with in common.
+     */
+    private void addHunk(int offset, String oldText, String newText, int[] oldStarts, int[] newStarts,
+            List<String> oldLines, List<String> newLines,
+            int oldFrom, int oldTo, int newFrom, int newTo) {
+        while (oldFrom < oldTo && newFrom < newTo && oldLines.get(oldFrom).equals(newLines.get(newFrom))) {
+            oldFrom++;
+            newFrom++;
+        }
+        while (oldFrom < oldTo && newFrom < newTo && oldLines.get(oldTo - 1).equals(newLines.get(newTo - 1))) {
+            oldTo--;
+            newTo--;
+        }
+        int oldStart = oldStarts[oldFrom];
+        int oldEnd = oldStarts[oldTo];
+        int newStart = newStarts[newFrom];
+        int newEnd = newStarts[newTo];
+        while (oldStart < oldEnd && newStart < newEnd && oldText.charAt(oldStart) == newText.charAt(newStart)) {
+            oldStart++;
+            newStart++;
+        }
+        while (oldStart < oldEnd && newStart < newEnd && oldText.charAt(oldEnd - 1) == newText.charAt(newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        if (oldStart < oldEnd || newStart < newEnd) {
+            replace(offset + oldStart, oldEnd - oldStart, newText.substring(newStart, newEnd));
+        }
+    }
+
+    /**
+     * @return pairs of indices of the lines which occur exactly once in both
+     *         lists, the longest sequence of them which is in the same order
+     *         in both.
+     */
+    private static List<int[]> anchors(List<String> oldLines, List<String> newLines) {
+        Map<String, int[]> occurrences = new HashMap<String, int[]>();
+        for (int i = 0; i < oldLines.size(); i++) {
+            int[] o = occurrences.get(oldLines.get(i));
+            if (o == null) {
+                occurrences.put(oldLines.get(i), new int[] { 1, 0, i, -1 });
+            } else {
+                o[0]++;
+            }
+        }
+        for (int i = 0; i < newLines.size(); i++) {
+            int[] o = occurrences.get(newLines.get(i));
+            if (o != null) {
+                o[1]++;
+                o[3] = i;
+            }
+        }
+        List<int[]> unique = new ArrayList<int[]>();
+        for (int i = 0; i < oldLines.size(); i++) {
+            int[] o = occurrences.get(oldLines.get(i));
+            if (o[0] == 1 && o[1] == 1) {
+                unique.add(new int[] { i, o[3] });
+            }
+        }
+        // longest increasing subsequence of the new indices
+        int[] tails = new int[unique.size()];
+        int[] previous = new int[unique.size()];
+        int length = 0;
+        for (int i = 0; i < unique.size(); i++) {
+            int newIndex = unique.get(i)[1];
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (unique.get(tails[mid])[1] < newIndex) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+        int[][] sequence = new int[length][];
+        for (int i = length - 1, j = length > 0 ? tails[length - 1] : -1; i >= 0; i--, j = previous[j]) {
+            sequence[i] = unique.get(j);
+        }
+        List<int[]> anchors = new ArrayList<int[]>(length);
+        for (int[] anchor : sequence) {
+            anchors.add(anchor);
+        }
+        return anchors;
+    }
+
+    /** @return the lines of the text, each with its line delimiter. */
+    private static List<String> lines(String text) {
+        List<String> lines = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                lines.add(text.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    /** @return start offset of each line, followed by the end of the last one. */
+    private static int[] starts(List<String> lines) {
+        int[] starts = new int[lines.size() + 1];
+        for (int i = 0; i < lines.size(); i++) {
+            starts[i + 1] = starts[i] + lines.get(i).length();
+        }
+        return starts;
+    }
+
+}
@@ -0,0 +1,186 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import net.sourceforge.vrapper.platform.TextContent;
+
+/**
+ * Immutable text made of String pieces of bounded size.
+ * <p>
+ * A range of a {@link TextContent} is copied piece by piece, so yanking or
+ * deleting a huge range never creates a String of the whole range.
+ * Concatenated ropes share their pieces. The text becomes a single String
+ * only through {@link #toString()}.
+ */
+public final class TextRope implements CharSequence {
+
+    public static final int PIECE_SIZE = 64 * 1024;
+    public static final TextRope EMPTY = new TextRope(new String[0]);
+
+    private final String[] pieces;
+    /** end offset of each piece */
+    private final int[] ends;
+    /** piece of the last {@link #charAt(int)}, for scanning */
+    private int lastPiece;
+
+    private TextRope(String[] pieces) {
+        this.pieces = pieces;
+        ends = new int[pieces.length];
+        int end = 0;
+        for (int i = 0; i < pieces.length; i++) {
+            end += pieces[i].length();
+            ends[i] = end;
+        }
+    }
+
+    /** @return a rope holding a copy of a range of the text. */
+    public static TextRope copyOf(TextContent content, int offset, int length) {
+        String[] pieces = new String[(length + PIECE_SIZE - 1) / PIECE_SIZE];
+        for (int i = 0; i < pieces.length; i++) {
+            int start = i * PIECE_SIZE;
+            pieces[i] = content.getText(offset + start, Math.min(PIECE_SIZE, length - start));
+        }
+        return new TextRope(pieces);
+    }
+
+    /** @return the text itself if it is a rope, a rope of one piece otherwise. */
+    public static TextRope valueOf(CharSequence text) {
+        if (text instanceof TextRope) {
+            return (TextRope) text;
+        }
+        if (text.length() == 0) {
+            return EMPTY;
+        }
+        return new TextRope(new String[] { text.toString() });
+    }
+
+    /**
+     * @return a rope of this text followed by the other one. Their pieces
+     *         are shared, only two short pieces meeting in the middle are
+     *         joined.
+     */
+    public TextRope concat(CharSequence text) {
+        TextRope other = valueOf(text);
+        if (other.pieces.length == 0) {
+            return this;
+        }
+        if (pieces.length == 0) {
+            return other;
+        }
+        List<String> joined = new ArrayList<String>(pieces.length + other.pieces.length);
+        joined.addAll(Arrays.asList(pieces));
+        String last = pieces[pieces.length - 1];
+        String first = other.pieces[0];
+        int from = 0;
+        if (last.length() + first.length() <= PIECE_SIZE) {
+            joined.set(joined.size() - 1, last + first);
+            from = 1;
+        }
+        joined.addAll(Arrays.asList(other.pieces).subList(from, other.pieces.length));
+        return new TextRope(joined.toArray(new String[joined.size()]));
+    }
+
+    public int getPieceCount() {
+        return pieces.length;
+    }
+
+    public String getPiece(int index) {
+        return pieces[index];
+    }
+
+    /**
+     * Inserts the text piece by piece. Call it inside a compound change, so
+     * that undo takes back the whole text.
+     */
+    public void insertInto(TextContent content, int offset) {
+        for (String piece : pieces) {
+            content.replace(offset, 0, piece);
+            offset += piece.length();
+        }
+    }
+
+    /**
+     * Inserts the text <code>count</code> times. A short text is repeated
+     * into a block of up to {@link #PIECE_SIZE} chars which is inserted as
+     * often as needed, so the memory used doesn't grow with the count and
+     * a long text is inserted piece by piece.
+     *
+     * @return the offset after the inserted text.
+     */
+    public int insertInto(TextContent content, int offset, int count) {
+        int length = length();
+        if (length == 0 || count <= 0) {
+            return offset;
+        }
+        int perBlock = Math.max(1, Math.min(count, PIECE_SIZE / length));
+        if (perBlock == 1) {
+            for (int i = 0; i < count; i++) {
+                insertInto(content, offset);
+                offset += length;
+            }
+            return offset;
+        }
+        StringBuilder sb = new StringBuilder(perBlock * length);
+        for (int i = 0; i < perBlock; i++) {
+            sb.append(toString());
+        }
+        String block = sb.toString();
+        for (int left = count; left > 0; left -= perBlock) {
+            String s = left >= perBlock ? block : block.substring(0, left * length);
+            content.replace(offset, 0, s);
+            offset += s.length();
+        }
+        return offset;
+    }
+
+    public int length() {
+        return ends.length > 0 ? ends[ends.length - 1] : 0;
+    }
+
+    public char charAt(int index) {
+        if (index < 0 || index >= length()) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length());
+        }
+        int piece = lastPiece;
+        if (index >= ends[piece] || index < start(piece)) {
+            piece = Arrays.binarySearch(ends, index);
+            // an end offset is the start of the next piece
+            piece = piece >= 0 ? piece + 1 : -piece - 1;
+            lastPiece = piece;
+        }
+        return pieces[piece].charAt(index - start(piece));
+    }
+
+    public CharSequence subSequence(int from, int to) {
+        if (from < 0 || to > length() || from > to) {
+            throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", length: " + length());
+        }
+        List<String> sub = new ArrayList<String>();
+        for (int i = 0; i < pieces.length && start(i) < to; i++) {
+            if (ends[i] > from) {
+                int start = start(i);
+                sub.add(pieces[i].substring(Math.max(from, start) - start, Math.min(to, ends[i]) - start));
+            }
+        }
+        return new TextRope(sub.toArray(new String[sub.size()]));
+    }
+
+    @Override
+    public String toString() {
+        if (pieces.length == 1) {
+            return pieces[0];
+        }
+        StringBuilder sb = new StringBuilder(length());
+        for (String piece : pieces) {
+            sb.append(piece);
+        }
+        return sb.toString();
+    }
+
+    private int start(int piece) {
+        return piece > 0 ? ends[piece - 1] : 0;
+    }
+
+}
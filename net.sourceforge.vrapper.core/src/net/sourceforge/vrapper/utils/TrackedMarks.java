@@ -0,0 +1,223 @@
+package net.sourceforge.vrapper.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+
+/**
+ * Named offsets into a {@link TextContent} which follow the modifications of
+ * the text, like positions registered with a document.
+ * <p>
+ * An offset after a modified region is shifted. An offset inside a region
+ * which is replaced by other text stays where it is, or moves to the last
+ * inserted character if the new text is shorter, like Vim keeps the marks of
+ * the lines a substitution goes over. An offset inside a removed region is
+ * moved to its start and marked as deleted, except when it is the start of
+ * the region itself.
+ * <p>
+ * The offsets are kept in a treap ordered by offset. Shifting the offsets
+ * after a modification is recorded once at the root of the subtree behind
+ * it and handed down lazily, so a modification costs O(log n) plus the
+ * number of offsets it deletes, regardless of how many offsets follow it.
+ */
+public class TrackedMarks implements TextContentListener {
+
+    private static final class Node {
+        final String name;
+        final int priority;
+        /** offset, without the shifts pending in the ancestors */
+        int offset;
+        /** shift pending for the descendants */
+        int shift;
+        boolean deleted;
+        Node left, right, parent;
+
+        Node(String name, int offset, int priority) {
+            this.name = name;
+            this.offset = offset;
+            this.priority = priority;
+        }
+    }
+
+    private final Map<String, Node> nodes = new HashMap<String, Node>();
+    private final Random random = new Random(0);
+    private Node root;
+
+    /** Sets the offset of a mark, replacing its previous offset. */
+    public void set(String name, int offset) {
+        remove(name);
+        Node node = new Node(name, offset, random.nextInt());
+        nodes.put(name, node);
+        Node[] parts = split(root, offset);
+        root = merge(merge(parts[0], node), parts[1]);
+        root.parent = null;
+    }
+
+    /** @return the current offset of the mark, or -1 if it is not set. */
+    public int get(String name) {
+        Node node = nodes.get(name);
+        if (node == null) {
+            return -1;
+        }
+        int offset = node.offset;
+        for (Node p = node.parent; p != null; p = p.parent) {
+            offset += p.shift;
+        }
+        return offset;
+    }
+
+    /**
+     * @return whether the text around the mark has been removed.
+     */
+    public boolean isDeleted(String name) {
+        Node node = nodes.get(name);
+        return node != null && node.deleted;
+    }
+
+    public void remove(String name) {
+        Node node = nodes.remove(name);
+        if (node == null) {
+            return;
+        }
+        pushPath(node);
+        Node replacement = merge(node.left, node.right);
+        Node parent = node.parent;
+        if (replacement != null) {
+            replacement.parent = parent;
+        }
+        if (parent == null) {
+            root = replacement;
+        } else if (parent.left == node) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /** @return names of the marks which are set. */
+    public List<String> getNames() {
+        return new ArrayList<String>(nodes.keySet());
+    }
+
+    public void textChanged(int offset, int removedLength, int insertedLength) {
+        Node[] before = split(root, offset + 1);
+        Node[] after = split(before[1], offset + removedLength);
+        if (insertedLength > 0) {
+            // offsets inside the replaced region stay inside the new text
+            clamp(after[0], offset + insertedLength - 1);
+        } else {
+            // offsets inside the removed region collapse to its start
+            collapse(after[0], offset);
+        }
+        shift(after[1], insertedLength - removedLength);
+        root = merge(merge(before[0], after[0]), after[1]);
+        if (root != null) {
+            root.parent = null;
+        }
+    }
+
+    private static void collapse(Node node, int offset) {
+        if (node == null) {
+            return;
+        }
+        node.offset = offset;
+        node.shift = 0;
+        node.deleted = true;
+        collapse(node.left, offset);
+        collapse(node.right, offset);
+    }
+
+    private static void clamp(Node node, int max) {
+        if (node == null) {
+            return;
+        }
+        push(node);
+        node.offset = Math.min(node.offset, max);
+        clamp(node.left, max);
+        clamp(node.right, max);
+    }
+
+    private static void shift(Node node, int delta) {
+        if (node != null) {
+            node.offset += delta;
+            node.shift += delta;
+        }
+    }
+
+    private static void push(Node node) {
+        if (node.shift != 0) {
+            shift(node.left, node.shift);
+            shift(node.right, node.shift);
+            node.shift = 0;
+        }
+    }
+
+    /** Hands the pending shifts down from the root to the node. */
+    private static void pushPath(Node node) {
+        if (node.parent != null) {
+            pushPath(node.parent);
+        }
+        push(node);
+    }
+
+    /**
+     * @return the nodes with an offset lower than <code>offset</code> and
+     *         the other nodes.
+     */
+    private static Node[] split(Node node, int offset) {
+        if (node == null) {
+            return new Node[2];
+        }
+        push(node);
+        Node[] parts;
+        if (node.offset < offset) {
+            parts = split(node.right, offset);
+            node.right = parts[0];
+            setParent(parts[0], node);
+            parts[0] = node;
+        } else {
+            parts = split(node.left, offset);
+            node.left = parts[1];
+            setParent(parts[1], node);
+            parts[1] = node;
+        }
+        node.parent = null;
+        return parts;
+    }
+
+    /** Joins two treaps, the offsets of the first are not higher. */
+    private static Node merge(Node first, Node second) {
+        if (first == null) {
+            return second;
+        }
+        if (second == null) {
+            return first;
+        }
+        if (first.priority > second.priority) {
+            push(first);
+            first.right = merge(first.right, second);
+            first.right.parent = first;
+            return first;
+        }
+        push(second);
+        second.left = merge(first, second.left);
+        second.left.parent = second;
+        return second;
+    }
+
+    private static void setParent(Node node, Node parent) {
+        if (node != null) {
+            node.parent = parent;
+        }
+    }
+
+}
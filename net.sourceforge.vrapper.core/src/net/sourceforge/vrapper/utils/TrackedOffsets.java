@@ -0,0 +1,121 @@
+package net.sourceforge.vrapper.utils;
+
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+
+/**
+ * Ascending list of offsets into a {@link TextContent} which follow the
+ * modifications of the text, like positions registered with a document.
+ * <p>
+ * An offset after a modified region is shifted, an offset inside a removed
+ * region is moved to its start and marked as deleted, except when it is the
+ * start of the region itself. Entries are never removed, so indices stay
+ * valid while the text is modified.
+ * <p>
+ * The offsets are stored in an array with a gap at the last modification.
+ * Offsets before the gap are absolute, offsets after the gap are relative to
+ * the end of the text, so a modification costs as much as the distance from
+ * the previous one. Walking the offsets in order and modifying the text at
+ * each of them is therefore linear.
+ */
+public class TrackedOffsets implements TextContentListener {
+
+    private int[] offsets = new int[16];
+    private boolean[] deleted = new boolean[16];
+    private int gapStart = 0;
+    private int gapEnd = offsets.length;
+    private int textLength;
+
+    public TrackedOffsets(int textLength) {
+        this.textLength = textLength;
+    }
+
+    /**
+     * Appends an offset, which must not be lower than the last one. Should be
+     * called before the text is modified.
+     */
+    public void add(int offset) {
+        moveGap(size());
+        if (gapStart == gapEnd) {
+            int newLength = offsets.length * 2;
+            int[] newOffsets = new int[newLength];
+            boolean[] newDeleted = new boolean[newLength];
+            System.arraycopy(offsets, 0, newOffsets, 0, gapStart);
+            System.arraycopy(deleted, 0, newDeleted, 0, gapStart);
+            offsets = newOffsets;
+            deleted = newDeleted;
+            gapEnd = newLength;
+        }
+        offsets[gapStart] = offset;
+        deleted[gapStart] = false;
+        gapStart++;
+    }
+
+    public int size() {
+        return gapStart + offsets.length - gapEnd;
+    }
+
+    /** @return the current value of the <code>index</code>-th offset. */
+    public int get(int index) {
+        if (index < gapStart) {
+            return offsets[index];
+        }
+        return offsets[index + gapEnd - gapStart] + textLength;
+    }
+
+    /**
+     * @return whether the text around the <code>index</code>-th offset has
+     *         been removed.
+     */
+    public boolean isDeleted(int index) {
+        if (index < gapStart) {
+            return deleted[index];
+        }
+        return deleted[index + gapEnd - gapStart];
+    }
+
+    public void textChanged(int offset, int removedLength, int insertedLength) {
+        moveGap(firstAtOrAfter(offset));
+        // offsets inside the removed region collapse to its start
+        int removedEnd = offset + removedLength;
+        while (gapEnd < offsets.length && offsets[gapEnd] + textLength < removedEnd) {
+            boolean collapsed = offsets[gapEnd] + textLength > offset;
+            offsets[gapStart] = offset;
+            deleted[gapStart] = deleted[gapEnd] || collapsed;
+            gapStart++;
+            gapEnd++;
+        }
+        textLength += insertedLength - removedLength;
+    }
+
+    private int firstAtOrAfter(int offset) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (get(mid) < offset) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void moveGap(int index) {
+        int gapLength = gapEnd - gapStart;
+        while (gapStart > index) {
+            --gapStart;
+            --gapEnd;
+            offsets[gapEnd] = offsets[gapStart] - textLength;
+            deleted[gapEnd] = deleted[gapStart];
+        }
+        while (gapStart < index) {
+            offsets[gapStart] = offsets[gapStart + gapLength] + textLength;
+            deleted[gapStart] = deleted[gapStart + gapLength];
+            ++gapStart;
+            ++gapEnd;
+        }
+    }
+
+}
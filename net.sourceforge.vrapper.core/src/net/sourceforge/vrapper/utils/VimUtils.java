@@ -36,17 +36,24 @@ public class VimUtils {
         return VimConstants.WHITESPACE.contains(s);
     }
 
+    /**
+     * @return whether c is a whitespace character, see {@link VimConstants#WHITESPACE}.
+     */
+    public static boolean isWhiteSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
     /**
      * @param line
      *            a line in the text.
      * @return the offset where the first non-whitespace character occurs in the given line.
      */
     public static int getFirstNonWhiteSpaceOffset(TextContent content, LineInformation line) {
+        CharSequence text = content.getCharSequence();
         int index = line.getBeginOffset();
         int end = line.getEndOffset();
         while (index < end) {
-            String s = content.getText(index, 1);
-            if (!isWhiteSpace(s)) {
+            if (!isWhiteSpace(text.charAt(index))) {
                 break;
             }
             index += 1;
@@ -85,6 +92,14 @@ public class VimUtils {
         return VimUtils.COMPILED_WORD_CHAR_PATTERN.matcher(s).find();
     }
 
+    /**
+     * @return whether c matches {@link VimConstants#WORD_CHAR_PATTERN}.
+     */
+    public static boolean isWordCharacter(char c) {
+        return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z')
+            || (c >= '0' && c <= '9') || c == '_';
+    }
+
     public static boolean isBlank(String s) {
         return s == null || s.trim().equals("");
     }
@@ -142,6 +157,21 @@ public class VimUtils {
         return text;
     }
 
+    /**
+     * Like {@link #stripLastNewline(String)}, without turning the text into
+     * a String.
+     */
+    public static CharSequence stripLastNewline(CharSequence text) {
+        int length = text.length();
+        if (length >= 2 && text.charAt(length - 2) == '\r' && text.charAt(length - 1) == '\n') {
+            return text.subSequence(0, length - 2);
+        }
+        if (length >= 1 && (text.charAt(length - 1) == '\n' || text.charAt(length - 1) == '\r')) {
+            return text.subSequence(0, length - 1);
+        }
+        return text;
+    }
+
     public static final <T> Set<T> set(T... content) {
         return Collections.unmodifiableSet(new HashSet<T>(Arrays.asList(content)));
     }
@@ -2,19 +2,13 @@ package net.sourceforge.vrapper.vim;
 
 import static java.lang.String.format;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
 
 import net.sourceforge.vrapper.keymap.KeyMap;
 import net.sourceforge.vrapper.keymap.KeyStroke;
-import net.sourceforge.vrapper.keymap.SpecialKey;
-import net.sourceforge.vrapper.keymap.vim.SimpleKeyStroke;
 import net.sourceforge.vrapper.log.VrapperLog;
 import net.sourceforge.vrapper.platform.CursorService;
 import net.sourceforge.vrapper.platform.FileService;
@@ -22,6 +16,7 @@ import net.sourceforge.vrapper.platform.HistoryService;
 import net.sourceforge.vrapper.platform.KeyMapProvider;
 import net.sourceforge.vrapper.platform.Platform;
 import net.sourceforge.vrapper.platform.PlatformSpecificStateProvider;
+import net.sourceforge.vrapper.platform.Scheduler;
 import net.sourceforge.vrapper.platform.SearchAndReplaceService;
 import net.sourceforge.vrapper.platform.SelectionService;
 import net.sourceforge.vrapper.platform.ServiceProvider;
@@ -44,7 +39,6 @@ import net.sourceforge.vrapper.vim.modes.NormalMode;
 import net.sourceforge.vrapper.vim.modes.ReplaceMode;
 import net.sourceforge.vrapper.vim.modes.VisualMode;
 import net.sourceforge.vrapper.vim.modes.commandline.CommandLineMode;
-import net.sourceforge.vrapper.vim.modes.commandline.CommandLineParser;
 import net.sourceforge.vrapper.vim.modes.commandline.PasteRegisterMode;
 import net.sourceforge.vrapper.vim.modes.commandline.SearchMode;
 import net.sourceforge.vrapper.vim.register.DefaultRegisterManager;
@@ -80,6 +74,14 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
     private final SearchAndReplaceService searchAndReplaceService;
     private MacroRecorder macroRecorder;
     private MacroPlayer macroPlayer;
+    private int macrosPlaying;
+    /** model offset of the characters displayed for a pending mapping in insert mode */
+    private int pendingTextStart = -1;
+    private final Runnable mappingTimeout = new Runnable() {
+        public void run() {
+            onMappingTimeout();
+        }
+    };
 
     public DefaultEditorAdaptor(Platform editor, RegisterManager registerManager, boolean isActive) {
         this.modelContent = editor.getModelContent();
@@ -173,28 +175,9 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
         	config =  new File(homeDir, WINDOWS_CONFIG_FILE_NAME);
         }
         
-        if(config.exists()) {
-        	BufferedReader reader = null;
-        	try {
-        		reader = new BufferedReader(new FileReader(config));
-        		String line;
-        		CommandLineParser parser = new CommandLineParser(this);
-        		while((line = reader.readLine()) != null) {
-        			parser.parseAndExecute(null, line.trim());
-        		}
-        	} catch (FileNotFoundException e) {
-        		// ignore
-        	} catch (IOException e) {
-        		e.printStackTrace();
-        	} finally {
-        		if(reader != null) {
-        			try {
-        				reader.close();
-        			} catch (IOException e) {
-        				e.printStackTrace();
-        			}
-        		}
-        	}
+        RcFileSnapshot snapshot = RcFileSnapshot.forFile(config);
+        if (snapshot != null) {
+            snapshot.applyTo(this);
         }
     }
 
@@ -339,6 +322,18 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
         return macroPlayer;
     }
 
+    public boolean isPlayingMacro() {
+        return macrosPlaying > 0;
+    }
+
+    void macroPlaybackStarted() {
+        macrosPlaying++;
+    }
+
+    void macroPlaybackFinished() {
+        macrosPlaying--;
+    }
+
     private void swapMacroRecorder() {
         if (macroRecorder.isRecording()) {
             macroRecorder.stopRecording();
@@ -350,6 +345,7 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
         if (currentMode != null) {
             KeyMap map = currentMode.resolveKeyMap(keyMapProvider);
             if (map != null) {
+                cancelMappingTimeout();
                 boolean inMapping = keyStrokeTranslator.processKeyStroke(map, key);
                 if (inMapping) {
                     Queue<RemappedKeyStroke> resultingKeyStrokes =
@@ -359,31 +355,28 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
                     if(currentMode.getName() == InsertMode.NAME) {
                     	//display pending character
                     	if(resultingKeyStrokes.isEmpty()) {
+                    		if (pendingTextStart < 0) {
+                    			pendingTextStart = cursorService.getPosition().getModelOffset();
+                    		}
+                    		scheduleMappingTimeout();
                     		return currentMode.handleKey(key);
                     	}
                     	//mapping completed
                     	//(delete all the pending characters we had displayed)
-                    	else if(keyStrokeTranslator.numUnconsumedKeys() > 0) {
-                    		for(int i=0; i < keyStrokeTranslator.numUnconsumedKeys(); i++) {
-	                    		currentMode.handleKey(new RemappedKeyStroke(new SimpleKeyStroke(SpecialKey.BACKSPACE), false));
-                    		}
+                    	else if(keyStrokeTranslator.isMappingCompleted()) {
+                    		removePendingText();
                     	}
                     	//mapping did not complete
                     	//(we've already displayed the pending characters, so don't re-apply them)
                     	else {
+                    		pendingTextStart = -1;
+                    		resultingKeyStrokes.clear();
                     		//display character that didn't complete the mapping and return
                     		return currentMode.handleKey(key);
                     	}
                     }
-                    //play all resulting key strokes
-                    while (!resultingKeyStrokes.isEmpty()) {
-                        RemappedKeyStroke next = resultingKeyStrokes.poll();
-                        if (next.isRecursive()) {
-                            handleKey(next);
-                        } else {
-                            currentMode.handleKey(next);
-                        }
-                    }
+                    scheduleMappingTimeout();
+                    playResultingKeyStrokes();
                     return true;
                 }
             }
@@ -392,6 +385,68 @@ public class DefaultEditorAdaptor implements EditorAdaptor {
         return false;
     }
 
+    private void playResultingKeyStrokes() {
+        Queue<RemappedKeyStroke> resultingKeyStrokes = keyStrokeTranslator.resultingKeyStrokes();
+        while (!resultingKeyStrokes.isEmpty()) {
+            RemappedKeyStroke next = resultingKeyStrokes.poll();
+            if (next.isRecursive()) {
+                handleKey(next);
+            } else {
+                currentMode.handleKey(next);
+            }
+        }
+    }
+
+    /**
+     * Removes the characters displayed while an insert mode mapping was
+     * pending with a single change of the document.
+     */
+    private void removePendingText() {
+        int end = cursorService.getPosition().getModelOffset();
+        if (pendingTextStart >= 0 && pendingTextStart < end) {
+            modelContent.replace(pendingTextStart, end - pendingTextStart, "");
+            cursorService.setPosition(cursorService.newPositionForModelOffset(pendingTextStart), false);
+        }
+        pendingTextStart = -1;
+    }
+
+    private void scheduleMappingTimeout() {
+        Scheduler scheduler = serviceProvider.getService(Scheduler.class);
+        if (scheduler != null && keyStrokeTranslator.isPending() && configuration.get(Options.TIMEOUT)) {
+            scheduler.schedule(mappingTimeout, configuration.get(Options.TIMEOUT_LENGTH));
+        }
+    }
+
+    private void cancelMappingTimeout() {
+        if (keyStrokeTranslator.isPending()) {
+            Scheduler scheduler = serviceProvider.getService(Scheduler.class);
+            if (scheduler != null) {
+                scheduler.cancel(mappingTimeout);
+            }
+        }
+    }
+
+    /**
+     * Resolves a pending mapping after the user stopped typing. In insert
+     * mode, pending characters which are not part of a mapping stay in the
+     * document.
+     */
+    private void onMappingTimeout() {
+        if (currentMode == null || !keyStrokeTranslator.resolvePending()) {
+            return;
+        }
+        if (currentMode.getName() == InsertMode.NAME) {
+            if (keyStrokeTranslator.isMappingCompleted()) {
+                removePendingText();
+            } else {
+                pendingTextStart = -1;
+                keyStrokeTranslator.resultingKeyStrokes().clear();
+                return;
+            }
+        }
+        playResultingKeyStrokes();
+    }
+
     public void onChangeEnabled(boolean enabled) {
         if (enabled) {
             // switch mode for set-up/tear-down
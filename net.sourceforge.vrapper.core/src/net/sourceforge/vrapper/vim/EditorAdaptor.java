@@ -48,6 +48,12 @@ public interface EditorAdaptor {
     LocalConfiguration getConfiguration();
     MacroRecorder getMacroRecorder();
     MacroPlayer getMacroPlayer();
+
+    /**
+     * @return whether keystrokes are played from a macro at the moment. The
+     *         modes don't update the status line and the caret then.
+     */
+    boolean isPlayingMacro();
     PlatformSpecificStateProvider getPlatformSpecificStateProvider();
     SearchAndReplaceService getSearchAndReplaceService();
 
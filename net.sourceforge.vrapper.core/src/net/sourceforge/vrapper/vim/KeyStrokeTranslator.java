@@ -1,8 +1,6 @@
 package net.sourceforge.vrapper.vim;
 
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
 
 import net.sourceforge.vrapper.keymap.KeyMap;
@@ -10,24 +8,31 @@ import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.keymap.Remapping;
 import net.sourceforge.vrapper.keymap.State;
 import net.sourceforge.vrapper.keymap.Transition;
+import net.sourceforge.vrapper.utils.RingBuffer;
 
 /**
  * Determines whether keystrokes are part of a mapping or not and handles
  * the current state of multi-keystroke mappings.
+ * <p>
+ * Pending and resulting keystrokes are kept in ring buffers which are
+ * reused for every mapping.
  *
  * @author Matthias Radig
  */
 public class KeyStrokeTranslator {
 
+    private static final int CAPACITY = 16;
+
     private State<Remapping> currentState;
     private Remapping lastValue;
-    private final List<RemappedKeyStroke> unconsumedKeyStrokes;
-    private final LinkedList<RemappedKeyStroke> resultingKeyStrokes;
+    private final RingBuffer<RemappedKeyStroke> unconsumedKeyStrokes;
+    private final RingBuffer<RemappedKeyStroke> resultingKeyStrokes;
     private int numUnconsumed = 0;
+    private boolean mappingCompleted;
 
     public KeyStrokeTranslator() {
-        unconsumedKeyStrokes = new LinkedList<RemappedKeyStroke>();
-        resultingKeyStrokes  = new LinkedList<RemappedKeyStroke>();
+        unconsumedKeyStrokes = new RingBuffer<RemappedKeyStroke>(CAPACITY);
+        resultingKeyStrokes  = new RingBuffer<RemappedKeyStroke>(CAPACITY);
     }
 
     public boolean processKeyStroke(KeyMap keymap, KeyStroke key) {
@@ -41,6 +46,7 @@ public class KeyStrokeTranslator {
             //begin new mapping, make sure values are reset
             resultingKeyStrokes.clear();
             numUnconsumed = 0;
+            mappingCompleted = false;
         } else {
             trans = currentState.press(key);
         }
@@ -54,22 +60,42 @@ public class KeyStrokeTranslator {
                 // as long as no preliminary result is found, keystrokes
                 // should not be evaluated again
                 boolean recursive = !unconsumedKeyStrokes.isEmpty() || lastValue != null;
-                unconsumedKeyStrokes.add(new RemappedKeyStroke(key, recursive));
+                unconsumedKeyStrokes.add(RemappedKeyStroke.of(key, recursive));
             }
             if (trans.getNextState() == null) {
-                prependUnconsumed();
-                prependLastValue();
-                currentState = null;
+                endMapping();
             } else {
                 currentState = trans.getNextState();
             }
         } else {
             // mapping ends here
-            unconsumedKeyStrokes.add(new RemappedKeyStroke(key, true));
-            prependUnconsumed();
-            prependLastValue();
-            currentState = null;
+            unconsumedKeyStrokes.add(RemappedKeyStroke.of(key, true));
+            endMapping();
+        }
+        return true;
+    }
+
+    /**
+     * @return whether the keystrokes processed so far are the beginning of a
+     *         longer mapping which is not finished yet.
+     */
+    public boolean isPending() {
+        return currentState != null;
+    }
+
+    /**
+     * Ends the pending mapping as if a key which doesn't continue it was
+     * pressed, e.g. because the user stopped typing for <code>timeoutlen</code>.
+     * The longest mapping found so far is applied, the keystrokes after it
+     * become resulting keystrokes.
+     *
+     * @return whether a mapping was pending.
+     */
+    public boolean resolvePending() {
+        if (currentState == null) {
+            return false;
         }
+        endMapping();
         return true;
     }
 
@@ -82,8 +108,24 @@ public class KeyStrokeTranslator {
         return numUnconsumed;
     }
 
+    /**
+     * @return whether the last mapping which ended was applied, as opposed
+     *         to keystrokes which only looked like the beginning of one.
+     */
+    public boolean isMappingCompleted() {
+        return mappingCompleted;
+    }
+
+    private void endMapping() {
+        prependUnconsumed();
+        prependLastValue();
+        currentState = null;
+    }
+
     private void prependUnconsumed() {
-        resultingKeyStrokes.addAll(0, unconsumedKeyStrokes);
+        for (int i = unconsumedKeyStrokes.size() - 1; i >= 0; i--) {
+            resultingKeyStrokes.addFirst(unconsumedKeyStrokes.get(i));
+        }
         unconsumedKeyStrokes.clear();
     }
 
@@ -92,10 +134,15 @@ public class KeyStrokeTranslator {
             return;
         }
         boolean recursive = lastValue.isRecursive();
-        int i = 0;
+        RingBuffer<RemappedKeyStroke> value = unconsumedKeyStrokes;
         for (KeyStroke key : lastValue.getKeyStrokes()) {
-            resultingKeyStrokes.add(i++, new RemappedKeyStroke(key, recursive));
+            value.add(RemappedKeyStroke.of(key, recursive));
+        }
+        for (int i = value.size() - 1; i >= 0; i--) {
+            resultingKeyStrokes.addFirst(value.get(i));
         }
+        value.clear();
         lastValue = null;
+        mappingCompleted = true;
     }
 }
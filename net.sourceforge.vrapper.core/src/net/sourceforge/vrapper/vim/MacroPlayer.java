@@ -1,12 +1,17 @@
 package net.sourceforge.vrapper.vim;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
 
 import net.sourceforge.vrapper.keymap.KeyStroke;
+import net.sourceforge.vrapper.keymap.vim.ConstructorWrappers;
 import net.sourceforge.vrapper.platform.ViewportService;
+import net.sourceforge.vrapper.utils.RingBuffer;
 import net.sourceforge.vrapper.vim.commands.PlaybackMacroCommand;
 import net.sourceforge.vrapper.vim.modes.EditorMode;
+import net.sourceforge.vrapper.vim.register.RegisterContent;
 
 /**
  * Handles playback of user-recorded macros.
@@ -15,24 +20,35 @@ import net.sourceforge.vrapper.vim.modes.EditorMode;
  * This is necessary because executing macros from a command would mean that
  * an {@link EditorMode}'s {@link EditorMode#handleKey(KeyStroke)} method
  * would be called recursivly, which results in undefined behaviour.
+ * <p>
+ * Macros are parsed once per register content and kept as long as the
+ * content is, so a changed register is parsed again. While playing, the
+ * modes skip status line and caret updates, see
+ * {@link EditorAdaptor#isPlayingMacro()}.
  *
  * @author Matthias Radig
  */
 public class MacroPlayer {
 
-    private final Queue<KeyStroke> playlist;
-    private final EditorAdaptor editorAdaptor;
+    private static final int CAPACITY = 64;
 
-    MacroPlayer (EditorAdaptor editorAdaptor) {
+    /** parsed macros, by register content */
+    private static final Map<RegisterContent, List<KeyStroke>> parsedMacros =
+        new WeakHashMap<RegisterContent, List<KeyStroke>>();
+
+    private final RingBuffer<KeyStroke> playlist;
+    private final DefaultEditorAdaptor editorAdaptor;
+
+    MacroPlayer (DefaultEditorAdaptor editorAdaptor) {
         this.editorAdaptor = editorAdaptor;
-        playlist = new LinkedList<KeyStroke>();
+        playlist = new RingBuffer<KeyStroke>(CAPACITY);
     }
 
     /**
      * Adds a key stroke to the playlist. May be called by commands.
      */
     public void add(KeyStroke stroke) {
-        playlist.add(new RemappedKeyStroke(stroke, true));
+        playlist.add(RemappedKeyStroke.of(stroke, true));
     }
 
     /**
@@ -40,8 +56,27 @@ public class MacroPlayer {
      */
     public void add(Iterable<KeyStroke> macro) {
         for (KeyStroke stroke : macro) {
-            playlist.add(new RemappedKeyStroke(stroke, true));
+            playlist.add(RemappedKeyStroke.of(stroke, true));
+        }
+    }
+
+    /**
+     * Adds the keystrokes stored in a register to the playlist. May be called
+     * by commands.
+     */
+    public void add(RegisterContent macro) {
+        List<KeyStroke> strokes;
+        synchronized (parsedMacros) {
+            strokes = parsedMacros.get(macro);
+            if (strokes == null) {
+                strokes = new ArrayList<KeyStroke>();
+                for (KeyStroke stroke : ConstructorWrappers.parseKeyStrokes(macro.getText())) {
+                    strokes.add(RemappedKeyStroke.of(stroke, true));
+                }
+                parsedMacros.put(macro, strokes);
+            }
         }
+        playlist.addAll(strokes);
     }
 
     /**
@@ -55,10 +90,12 @@ public class MacroPlayer {
         try {
             view.setRepaint(false);
             view.lockRepaint(this);
+            editorAdaptor.macroPlaybackStarted();
             while (!playlist.isEmpty()) {
                 editorAdaptor.handleKeyOffRecord(playlist.poll());
             }
         } finally {
+            editorAdaptor.macroPlaybackFinished();
             view.unlockRepaint(this);
             view.setRepaint(true);
         }
@@ -27,13 +27,14 @@ public interface Options {
     public static final Option<Boolean> IM_DISABLE         = bool("imdisable",    false, "imd");
     public static final Option<Boolean> VISUAL_MOUSE       = bool("visualmouse",  true,  "vm");
     public static final Option<Boolean> AUTO_CHDIR         = bool("autochdir",    false, "acd");
+    public static final Option<Boolean> TIMEOUT            = bool("timeout",      true,  "to");
 
     @SuppressWarnings("unchecked")
     public static final Set<Option<Boolean>> BOOLEAN_OPTIONS = set(
             SMART_INDENT, AUTO_INDENT, ATOMIC_INSERT, IGNORE_CASE, SMART_CASE,
             SANE_CW, SANE_Y, SEARCH_HIGHLIGHT, SEARCH_REGEX,
             INCREMENTAL_SEARCH, LINE_NUMBERS, SHOW_WHITESPACE, IM_DISABLE,
-            VISUAL_MOUSE, AUTO_CHDIR);
+            VISUAL_MOUSE, AUTO_CHDIR, TIMEOUT);
 
     // String options:
     public static final Option<String> CLIPBOARD = string("clipboard", "autoselect", "unnamed, autoselect", "cb");
@@ -47,6 +48,8 @@ public interface Options {
     public static final Option<Integer> SCROLL_JUMP   = integer("scrolljump",  1, "sj");
     public static final Option<Integer> TEXT_WIDTH    = integer("textwidth",  80, "tw");
     public static final Option<Integer> SOFT_TAB      = integer("softtabstop", 0, "sts");
+    public static final Option<Integer> TIMEOUT_LENGTH = integer("timeoutlen", 1000, "tm");
+    public static final Option<Integer> HISTORY       = integer("history",    50, "hi");
     @SuppressWarnings("unchecked")
-    public static final Set<Option<Integer>> INT_OPTIONS = set(SCROLL_JUMP, SCROLL_OFFSET, TEXT_WIDTH, SOFT_TAB);
+    public static final Set<Option<Integer>> INT_OPTIONS = set(SCROLL_JUMP, SCROLL_OFFSET, TEXT_WIDTH, SOFT_TAB, TIMEOUT_LENGTH, HISTORY);
 }
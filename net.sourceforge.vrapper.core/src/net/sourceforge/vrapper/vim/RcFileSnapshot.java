@@ -0,0 +1,196 @@
+package net.sourceforge.vrapper.vim;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import net.sourceforge.vrapper.keymap.KeyMap;
+import net.sourceforge.vrapper.log.VrapperLog;
+import net.sourceforge.vrapper.platform.KeyMapProvider;
+import net.sourceforge.vrapper.platform.Configuration.Option;
+import net.sourceforge.vrapper.vim.modes.AbstractVisualMode;
+import net.sourceforge.vrapper.vim.modes.InsertMode;
+import net.sourceforge.vrapper.vim.modes.NormalMode;
+import net.sourceforge.vrapper.vim.modes.commandline.CommandLineParser;
+
+/**
+ * Contents of a .vrapperrc, read once and applied to every editor.
+ * <p>
+ * The commands are executed for the first editor only. The option values
+ * set by the commands which only set options or change key maps are recorded
+ * together with the resulting key maps, the following editors get those
+ * without executing anything; key maps shared by several editors get them
+ * once. Other commands, e.g. <code>set number</code> which changes the editor
+ * itself, are executed for every editor.
+ * <p>
+ * {@link #forFile(File)} reads the file again when its modification time
+ * changes. The time it takes to read the file and to execute it for the
+ * first editor is logged.
+ */
+public class RcFileSnapshot {
+
+    private static final String[] KEYMAP_NAMES = {
+        NormalMode.KEYMAP_NAME, AbstractVisualMode.KEYMAP_NAME, InsertMode.KEYMAP_NAME
+    };
+
+    private static RcFileSnapshot current;
+
+    private final File file;
+    private final long lastModified;
+    private final List<String> lines;
+    private final long parseTime;
+
+    /** commands executed for every editor, available once the snapshot is recorded */
+    private List<String> editorCommands;
+    private Map<Option<?>, Object> options;
+    private Map<String, KeyMap> keyMaps;
+    private final Map<KeyMapProvider, Boolean> keyMapProviders = new WeakHashMap<KeyMapProvider, Boolean>();
+    private long applyTime;
+
+    private RcFileSnapshot(File file, long lastModified, List<String> lines, long parseTime) {
+        this.file = file;
+        this.lastModified = lastModified;
+        this.lines = lines;
+        this.parseTime = parseTime;
+    }
+
+    /**
+     * @return the snapshot of the file, read again if it has been modified
+     *         since the last call, or <code>null</code> if it doesn't exist
+     *         or can't be read.
+     */
+    public static synchronized RcFileSnapshot forFile(File file) {
+        if (!file.exists()) {
+            current = null;
+            return null;
+        }
+        long lastModified = file.lastModified();
+        if (current == null || !current.file.equals(file) || current.lastModified != lastModified) {
+            current = read(file, lastModified);
+        }
+        return current;
+    }
+
+    private static RcFileSnapshot read(File file, long lastModified) {
+        long start = System.nanoTime();
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(file));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line.trim());
+            }
+        } catch (IOException e) {
+            VrapperLog.error("could not read " + file, e);
+            return null;
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    VrapperLog.error("could not close " + file, e);
+                }
+            }
+        }
+        return new RcFileSnapshot(file, lastModified, lines, System.nanoTime() - start);
+    }
+
+    /**
+     * Applies the file to an editor. The first call executes all commands
+     * and records their effects.
+     */
+    public synchronized void applyTo(EditorAdaptor vim) {
+        long start = System.nanoTime();
+        boolean first = editorCommands == null;
+        if (first) {
+            record(vim);
+        } else {
+            for (Map.Entry<Option<?>, Object> entry: options.entrySet()) {
+                set(vim.getConfiguration(), entry.getKey(), entry.getValue());
+            }
+            KeyMapProvider provider = vim.getKeyMapProvider();
+            // keymaps shared by editors only get them once, so that mappings
+            // made since then aren't lost
+            if (!keyMapProviders.containsKey(provider)) {
+                for (Map.Entry<String, KeyMap> entry: keyMaps.entrySet()) {
+                    provider.getKeyMap(entry.getKey()).setMappings(entry.getValue());
+                }
+                keyMapProviders.put(provider, Boolean.TRUE);
+            }
+            CommandLineParser parser = new CommandLineParser(vim);
+            for (String command: editorCommands) {
+                parser.parseAndExecute(null, command);
+            }
+        }
+        applyTime = System.nanoTime() - start;
+        if (first) {
+            VrapperLog.info(file + " read in " + parseTime / 1000000 + " ms, executed in "
+                    + applyTime / 1000000 + " ms");
+        }
+    }
+
+    private void record(EditorAdaptor vim) {
+        final Map<Option<?>, Object> recorded = new LinkedHashMap<Option<?>, Object>();
+        final boolean[] recording = new boolean[1];
+        LocalConfigurationListener listener = new LocalConfigurationListener() {
+            public <T> void optionChanged(Option<T> option, T oldValue, T newValue) {
+                if (recording[0]) {
+                    // keep the order in which they are set last
+                    recorded.remove(option);
+                    recorded.put(option, newValue);
+                }
+            }
+        };
+        List<String> commands = new ArrayList<String>();
+        CommandLineParser parser = new CommandLineParser(vim);
+        vim.getConfiguration().addListener(listener);
+        try {
+            for (String line: lines) {
+                recording[0] = CommandLineParser.onlyChangesOptionsOrKeyMaps(line);
+                if (!recording[0]) {
+                    commands.add(line);
+                }
+                parser.parseAndExecute(null, line);
+            }
+        } finally {
+            vim.getConfiguration().removeListener(listener);
+        }
+        Map<String, KeyMap> maps = new HashMap<String, KeyMap>();
+        for (String name: KEYMAP_NAMES) {
+            KeyMap copy = new KeyMap();
+            copy.setMappings(vim.getKeyMapProvider().getKeyMap(name));
+            maps.put(name, copy);
+        }
+        options = recorded;
+        keyMaps = maps;
+        keyMapProviders.put(vim.getKeyMapProvider(), Boolean.TRUE);
+        editorCommands = commands;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void set(LocalConfiguration configuration, Option<T> option, Object value) {
+        configuration.set(option, (T) value);
+    }
+
+    /** @return time it took to read the file, in nanoseconds. */
+    public long getParseTime() {
+        return parseTime;
+    }
+
+    /**
+     * @return time the last {@link #applyTo(EditorAdaptor)} took, in
+     *         nanoseconds. The first one executes the whole file.
+     */
+    public synchronized long getApplyTime() {
+        return applyTime;
+    }
+
+}
@@ -2,6 +2,7 @@ package net.sourceforge.vrapper.vim;
 
 import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.keymap.SpecialKey;
+import net.sourceforge.vrapper.keymap.vim.SimpleKeyStroke;
 
 /**
  * Wrapper class for {@link KeyStroke} which provides an additional
@@ -11,6 +12,21 @@ import net.sourceforge.vrapper.keymap.SpecialKey;
  */
 public class RemappedKeyStroke implements KeyStroke {
 
+    private static final int CACHED_CHARACTERS = 256;
+    /** shared instances, indexed by [recursive ? 1 : 0][character or ordinal] */
+    private static final RemappedKeyStroke[][] CHARACTERS = new RemappedKeyStroke[2][CACHED_CHARACTERS];
+    private static final RemappedKeyStroke[][] SPECIAL_KEYS = new RemappedKeyStroke[2][SpecialKey.values().length];
+    static {
+        for (int r = 0; r < 2; r++) {
+            for (char c = 0; c < CACHED_CHARACTERS; c++) {
+                CHARACTERS[r][c] = new RemappedKeyStroke(SimpleKeyStroke.of(c), r == 1);
+            }
+            for (SpecialKey key: SpecialKey.values()) {
+                SPECIAL_KEYS[r][key.ordinal()] = new RemappedKeyStroke(SimpleKeyStroke.of(key), r == 1);
+            }
+        }
+    }
+
     private final KeyStroke delegate;
     private final boolean recursive;
 
@@ -20,6 +36,27 @@ public class RemappedKeyStroke implements KeyStroke {
         this.recursive = recursive;
     }
 
+    /**
+     * @return a shared instance for the key stroke if there is one, or a new
+     *         one. Used on the input path, where a key stroke is remapped
+     *         for every key typed, mapped or played back from a macro.
+     */
+    public static RemappedKeyStroke of(KeyStroke key, boolean recursive) {
+        int r = recursive ? 1 : 0;
+        SpecialKey specialKey = key.getSpecialKey();
+        if (specialKey != null) {
+            return SPECIAL_KEYS[r][specialKey.ordinal()];
+        }
+        char character = key.getCharacter();
+        if (character < CACHED_CHARACTERS) {
+            return CHARACTERS[r][character];
+        }
+        if (key instanceof RemappedKeyStroke) {
+            key = ((RemappedKeyStroke) key).delegate;
+        }
+        return new RemappedKeyStroke(key, recursive);
+    }
+
     public char getCharacter() {
         return delegate.getCharacter();
     }
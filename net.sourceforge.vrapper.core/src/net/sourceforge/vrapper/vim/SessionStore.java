@@ -0,0 +1,313 @@
+package net.sourceforge.vrapper.vim;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import net.sourceforge.vrapper.log.VrapperLog;
+
+/**
+ * Registers, marks and command line history kept between sessions, like
+ * Vim's viminfo file.
+ * <p>
+ * Entries are grouped in sections and keep the order in which they were put.
+ * Every change is appended to the file by a background thread. The file is
+ * read when the store is used for the first time, and it is rewritten
+ * without the outdated lines once they outnumber the entries.
+ * <p>
+ * The platform installs a store with {@link #setInstance(SessionStore)};
+ * without one nothing is kept.
+ */
+public class SessionStore {
+
+    private static final String CHARSET = "UTF-8";
+    private static final char PUT = '+';
+    private static final char REMOVE = '-';
+    /** the file isn't rewritten while it has fewer lines */
+    private static final int MIN_COMPACTION_LINES = 256;
+
+    private static volatile SessionStore instance;
+
+    private final File file;
+    private final Executor writer;
+    private final Object fileLock = new Object();
+    private final Runnable writeTask = new Runnable() {
+        public void run() {
+            flush();
+        }
+    };
+    private final Runnable readTask = new Runnable() {
+        public void run() {
+            synchronized (SessionStore.this) {
+                section("", false);
+            }
+        }
+    };
+
+    /** <code>null</code> until the file is read */
+    private Map<String, LinkedHashMap<String, String>> sections;
+    private int entries;
+    private int fileLines;
+    private final List<String> unwritten = new ArrayList<String>();
+    private boolean writeScheduled;
+
+    /**
+     * Creates a store which writes to the file in a daemon thread. The file
+     * is not read yet.
+     */
+    public SessionStore(File file) {
+        this(file, Executors.newSingleThreadExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Vrapper session store");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+    }
+
+    public SessionStore(File file, Executor writer) {
+        this.file = file;
+        this.writer = writer;
+    }
+
+    /** @return the installed store, or <code>null</code>. */
+    public static SessionStore getInstance() {
+        return instance;
+    }
+
+    public static void setInstance(SessionStore store) {
+        instance = store;
+    }
+
+    /**
+     * Reads the file in the background thread, so that the first lookup
+     * doesn't have to wait for it.
+     */
+    public synchronized void preload() {
+        if (sections == null) {
+            writer.execute(readTask);
+        }
+    }
+
+    public synchronized String get(String section, String key) {
+        Map<String, String> entries = section(section, false);
+        return entries != null ? entries.get(key) : null;
+    }
+
+    /**
+     * @return keys and values of a section, in the order in which they were
+     *         put. Modifying the result doesn't change the store.
+     */
+    public synchronized Map<String, String> getSection(String section) {
+        Map<String, String> entries = section(section, false);
+        return entries != null
+                ? new LinkedHashMap<String, String>(entries)
+                : new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Sets the value of a key. The key becomes the last one of its section.
+     */
+    public synchronized void put(String section, String key, String value) {
+        Map<String, String> entries = section(section, true);
+        if (entries.remove(key) == null) {
+            this.entries++;
+        }
+        entries.put(key, value);
+        append(line(PUT, section, key, value));
+    }
+
+    public synchronized void remove(String section, String key) {
+        Map<String, String> entries = section(section, false);
+        if (entries != null && entries.containsKey(key)) {
+            entries.remove(key);
+            this.entries--;
+            append(line(REMOVE, section, key, null));
+        }
+    }
+
+    /**
+     * Writes pending changes now, in the calling thread.
+     */
+    public void flush() {
+        synchronized (fileLock) {
+            List<String> lines;
+            boolean compact;
+            synchronized (this) {
+                writeScheduled = false;
+                if (unwritten.isEmpty()) {
+                    return;
+                }
+                compact = fileLines > MIN_COMPACTION_LINES && fileLines > 2 * entries;
+                if (compact) {
+                    lines = currentLines();
+                    fileLines = lines.size();
+                } else {
+                    lines = new ArrayList<String>(unwritten);
+                }
+                unwritten.clear();
+            }
+            try {
+                if (compact) {
+                    File temp = new File(file.getPath() + ".tmp");
+                    write(temp, lines, false);
+                    if (!file.delete() || !temp.renameTo(file)) {
+                        VrapperLog.error("could not replace " + file);
+                    }
+                } else {
+                    write(file, lines, true);
+                }
+            } catch (IOException e) {
+                VrapperLog.error("could not write " + file, e);
+            }
+        }
+    }
+
+    private Map<String, String> section(String name, boolean create) {
+        if (sections == null) {
+            sections = new HashMap<String, LinkedHashMap<String, String>>();
+            read();
+        }
+        LinkedHashMap<String, String> section = sections.get(name);
+        if (section == null && create) {
+            section = new LinkedHashMap<String, String>();
+            sections.put(name, section);
+        }
+        return section;
+    }
+
+    private void append(String line) {
+        unwritten.add(line);
+        fileLines++;
+        if (!writeScheduled) {
+            writeScheduled = true;
+            writer.execute(writeTask);
+        }
+    }
+
+    private List<String> currentLines() {
+        List<String> lines = new ArrayList<String>(entries);
+        for (Map.Entry<String, LinkedHashMap<String, String>> section : sections.entrySet()) {
+            for (Map.Entry<String, String> entry : section.getValue().entrySet()) {
+                lines.add(line(PUT, section.getKey(), entry.getKey(), entry.getValue()));
+            }
+        }
+        return lines;
+    }
+
+    private void read() {
+        if (!file.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fileLines++;
+                String[] fields = line.split("\t", -1);
+                if (fields.length < 3 || fields[0].length() != 1) {
+                    continue;
+                }
+                String section = unescape(fields[1]);
+                String key = unescape(fields[2]);
+                LinkedHashMap<String, String> entries = sections.get(section);
+                if (fields[0].charAt(0) == PUT && fields.length == 4) {
+                    if (entries == null) {
+                        entries = new LinkedHashMap<String, String>();
+                        sections.put(section, entries);
+                    }
+                    if (entries.remove(key) == null) {
+                        this.entries++;
+                    }
+                    entries.put(key, unescape(fields[3]));
+                } else if (fields[0].charAt(0) == REMOVE && entries != null
+                        && entries.remove(key) != null) {
+                    this.entries--;
+                }
+            }
+        } catch (IOException e) {
+            VrapperLog.error("could not read " + file, e);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    VrapperLog.error("could not close " + file, e);
+                }
+            }
+        }
+    }
+
+    private static void write(File file, List<String> lines, boolean append) throws IOException {
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), CHARSET));
+        try {
+            for (String line : lines) {
+                out.write(line);
+                out.write('\n');
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static String line(char operation, String section, String key, String value) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(operation).append('\t').append(escape(section)).append('\t').append(escape(key));
+        if (value != null) {
+            sb.append('\t').append(escape(value));
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '\\': sb.append("\\\\"); break;
+            case '\t': sb.append("\\t"); break;
+            case '\n': sb.append("\\n"); break;
+            case '\r': sb.append("\\r"); break;
+            default: sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unescape(String s) {
+        if (s.indexOf('\\') < 0) {
+            return s;
+        }
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\\' && i + 1 < s.length()) {
+                c = s.charAt(++i);
+                switch (c) {
+                case 't': c = '\t'; break;
+                case 'n': c = '\n'; break;
+                case 'r': c = '\r'; break;
+                default: break;
+                }
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+}
@@ -12,10 +12,11 @@ import net.sourceforge.vrapper.vim.EditorAdaptor;
  */
 public class AnonymousMacroOperation extends SimpleTextOperation {
 	
-	private String macro;
+	private final Iterable<KeyStroke> macro;
 	
 	public AnonymousMacroOperation(String macro) {
-		this.macro = macro;
+		//parse once, the operation runs on every line of a :g command
+		this.macro = ConstructorWrappers.parseKeyStrokes(macro);
 	}
 
 	public TextOperation repetition() {
@@ -30,8 +31,7 @@ public class AnonymousMacroOperation extends SimpleTextOperation {
 		editorAdaptor.getCursorService().setPosition(region.getLeftBound(), false);
 		
 		//set macro
-		Iterable<KeyStroke> parsed = ConstructorWrappers.parseKeyStrokes(macro);
-		editorAdaptor.getMacroPlayer().add(parsed);
+		editorAdaptor.getMacroPlayer().add(macro);
 		
 		//run macro
 		editorAdaptor.getMacroPlayer().play();
@@ -35,6 +35,10 @@ public class ChangeCaretShapeCommand extends CountIgnoringNonRepeatableCommand {
     }
 
     public void execute(EditorAdaptor editorAdaptor) {
+        if (editorAdaptor.isPlayingMacro()) {
+            // normal mode doesn't set the caret back while a macro is played
+            return;
+        }
         editorAdaptor.getCursorService().setCaret(caretType);
     }
 
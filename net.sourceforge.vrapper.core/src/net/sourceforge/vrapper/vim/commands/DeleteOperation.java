@@ -37,12 +37,11 @@ public class DeleteOperation extends SimpleTextOperation {
             int position = range.getLeftBound().getModelOffset();
             int length = range.getModelLength();
             
-            String text = txtContent.getText(position, length);
             //if we're in LINES mode but the text doesn't end in a newline
             //try to include the previous newline character
             //(this is mostly to handle the last line of a file)
             if(contentType == ContentType.LINES && position > 0
-                    && (text.length() == 0 || ! VimUtils.isNewLine(text.substring(text.length()-1)))) {
+                    && (length == 0 || ! VimUtils.isNewLine(txtContent.getText(position + length - 1, 1)))) {
                 //include the previous newline
                 LineInformation line = txtContent.getLineInformationOfOffset(position);
                 int previousNewlinePos = txtContent.getLineInformation(line.getNumber() - 1).getEndOffset();
@@ -1,10 +1,16 @@
 package net.sourceforge.vrapper.vim.commands;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.StartEndTextRange;
 import net.sourceforge.vrapper.utils.TextRange;
+import net.sourceforge.vrapper.utils.TrackedOffsets;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 
 /**
@@ -115,80 +121,97 @@ public class ExCommandOperation extends SimpleTextOperation {
 	private void executeExCommand(TextRange region, boolean findMatch,
 			String pattern, SimpleTextOperation operation, EditorAdaptor editorAdaptor) {
 		
-    	int startLine;
-    	int endLine;
-    	if(region == null) { //default case, entire file
-    		startLine = 0;
-    		endLine = editorAdaptor.getModelContent().getNumberOfLines();
-    	}
-    	else {
-	    	startLine = editorAdaptor.getModelContent()
-	    			.getLineInformationOfOffset( region.getLeftBound().getModelOffset() ).getNumber();
-	    	endLine = editorAdaptor.getModelContent()
-	    			.getLineInformationOfOffset( region.getRightBound().getModelOffset() ).getNumber();
-    	}
+		Pattern compiled;
+		try {
+			compiled = Pattern.compile(pattern, Pattern.MULTILINE);
+		} catch (PatternSyntaxException e) {
+			editorAdaptor.getUserInterfaceService().setErrorMessage(e.getDescription());
+			return;
+		}
 		
-		LineInformation line;
-		editorAdaptor.getHistory().beginCompoundChange();
-		editorAdaptor.getHistory().lock("ex-command");
-		if(startLine == endLine) {
-			line = editorAdaptor.getModelContent().getLineInformation(startLine);
-			processLine(pattern, findMatch, operation, line, editorAdaptor);
+		TextContent content = editorAdaptor.getModelContent();
+		int startLine;
+		int endLine;
+		if(region == null) { //default case, entire file
+			startLine = 0;
+			endLine = content.getNumberOfLines() - 1;
+			//a trailing newline doesn't start another line
+			if(endLine > 0 && content.getLineInformation(endLine).getLength() == 0) {
+				endLine--;
+			}
 		}
 		else {
-			int oldLineCount = editorAdaptor.getModelContent().getNumberOfLines();
-			for(int i=startLine; i < endLine; i++) {
-				line = editorAdaptor.getModelContent().getLineInformation(i);
-				boolean operationPerformed = processLine(pattern, findMatch, operation, line, editorAdaptor);
-				
-				if(operationPerformed) {
-					int currentNumLines = editorAdaptor.getModelContent().getNumberOfLines();
-					//if this was a destructive operation and a line was removed
-					//stay in sync
-					if(oldLineCount > currentNumLines) {
-						//next line moved up, make sure we don't skip it
-						i--;
-						//make sure we don't run outside our boundary
-						endLine--;
-						oldLineCount = currentNumLines;
-					}
-				}
+			startLine = content.getLineInformationOfOffset( region.getLeftBound().getModelOffset() ).getNumber();
+			int rightOffset = region.getRightBound().getModelOffset();
+			endLine = content.getLineInformationOfOffset(rightOffset).getNumber();
+			//a line-wise range ends at the start of the line after it
+			if(endLine > startLine && content.getLineInformation(endLine).getBeginOffset() == rightOffset) {
+				endLine--;
 			}
 		}
-		editorAdaptor.getHistory().unlock("ex-command");
-		editorAdaptor.getHistory().endCompoundChange();
 		
+		//like Vim, first mark all lines and then run the command on them,
+		//so lines inserted or removed by the command don't confuse us
+		TrackedOffsets marks = markLines(content, compiled, findMatch, startLine, endLine);
+		
+		editorAdaptor.getHistory().beginCompoundChange();
+		editorAdaptor.getHistory().lock("ex-command");
+		content.addTextContentListener(marks);
+		try {
+			for(int i=0; i < marks.size(); i++) {
+				if( ! marks.isDeleted(i)) {
+					LineInformation line = content.getLineInformationOfOffset(marks.get(i));
+					processLine(operation, line, editorAdaptor);
+				}
+			}
+		}
+		finally {
+			content.removeTextContentListener(marks);
+			editorAdaptor.getHistory().unlock("ex-command");
+			editorAdaptor.getHistory().endCompoundChange();
+		}
 	}
 	
-	private boolean processLine(String pattern, boolean findMatch, SimpleTextOperation operation,
-			LineInformation line, EditorAdaptor editorAdaptor) {
-		boolean operationPerformed = false;
-		String text = editorAdaptor.getModelContent().getText(line.getBeginOffset(), line.getLength());
-		//Java's matches() method expects to match the entire string.
-		//If the user isn't explicitly matching beginning or end of
-		//a String, fake it out so Java is happy.
-		if( ! pattern.startsWith("^")) {
-			//line can start with anything
-			pattern = ".*" + pattern;
-		}
-		if( ! pattern.endsWith("$")) {
-			//line can end with anything
-			pattern += ".*";
-		}
-		
-		boolean matches = text.matches(pattern);
-		if( (findMatch && matches) || (!findMatch && !matches) ) {
-			try {
-				Position start = editorAdaptor.getCursorService().newPositionForModelOffset(line.getBeginOffset());
-				Position end = editorAdaptor.getCursorService().newPositionForModelOffset(line.getEndOffset());
-				TextRange range = new StartEndTextRange(start, end);
-				
-				operation.execute(editorAdaptor, range, ContentType.LINES);
-				operationPerformed = true;
-			} catch (CommandExecutionException e) {
+	/**
+	 * Collects the start offsets of the lines in the range which contain
+	 * (or don't contain) a match, in a single pass over the text.
+	 */
+	private TrackedOffsets markLines(TextContent content, Pattern pattern, boolean findMatch,
+			int startLine, int endLine) {
+		TrackedOffsets marks = new TrackedOffsets(content.getTextLength());
+		CharSequence text = content.getCharSequence();
+		int rangeEnd = content.getLineInformation(endLine).getEndOffset();
+		Matcher matcher = pattern.matcher(text);
+		int line = startLine;
+		while(line <= endLine) {
+			int matchLine = endLine + 1;
+			if(matcher.find(content.getLineInformation(line).getBeginOffset()) && matcher.start() <= rangeEnd) {
+				matchLine = content.getLineInformationOfOffset(matcher.start()).getNumber();
+			}
+			if(findMatch) {
+				if(matchLine <= endLine) {
+					marks.add(content.getLineInformation(matchLine).getBeginOffset());
+				}
 			}
+			else {
+				for(; line < matchLine; line++) {
+					marks.add(content.getLineInformation(line).getBeginOffset());
+				}
+			}
+			line = matchLine + 1;
+		}
+		return marks;
+	}
+	
+	private void processLine(SimpleTextOperation operation, LineInformation line, EditorAdaptor editorAdaptor) {
+		try {
+			//the whole line including its newline, so 'd' removes it entirely
+			Position start = editorAdaptor.getCursorService().newPositionForModelOffset(line.getBeginOffset());
+			TextRange range = StartEndTextRange.lines(editorAdaptor, start, start);
+			
+			operation.execute(editorAdaptor, range, ContentType.LINES);
+		} catch (CommandExecutionException e) {
 		}
-		return operationPerformed;
 	}
 
 }
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
+import net.sourceforge.vrapper.utils.TextEdit;
 import net.sourceforge.vrapper.utils.TextRange;
 import net.sourceforge.vrapper.utils.VimUtils;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
@@ -79,16 +80,22 @@ public class FormatOperation implements TextOperation {
 			
 		}
 		
-		String newLines = "";
+		StringBuilder formatted = new StringBuilder(text.length());
 		for(String line : formattedLines) {
-			newLines += line + newlineChar;
+			formatted.append(line).append(newlineChar);
 		}
+		String newLines = formatted.toString();
 		
-		//swap out the old text with the formatted text
+		//swap out the old text with the formatted text, leaving the lines
+		//which are already formatted untouched
 		TextRange region = textObject.getRegion(editorAdaptor, count);
 		int start = region.getLeftBound().getModelOffset();
-		int length = region.getModelLength();
-		editorAdaptor.getModelContent().replace(start, length, newLines);
+		try {
+			editorAdaptor.getHistory().beginCompoundChange();
+			TextEdit.replace(editorAdaptor.getModelContent(), start, text, newLines);
+		} finally {
+			editorAdaptor.getHistory().endCompoundChange();
+		}
 		editorAdaptor.getCursorService().setPosition(region.getStart(), true);
 	}
 	
@@ -2,6 +2,7 @@ package net.sourceforge.vrapper.vim.commands;
 
 import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.TextEdit;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 
 // FIXME: In Vim, if line ends with dot, two spaces are inserted isnead of one
@@ -32,32 +33,55 @@ public class JoinLinesCommand extends CountAwareCommand {
         }
     }
 
+    /**
+     * Joins <code>count</code> lines to the current one, replacing only the
+     * line breaks and the indentation which are removed.
+     */
     public static void doIt(EditorAdaptor editorAdaptor, int count, boolean isSmart)
             throws CommandExecutionException {
         TextContent modelContent = editorAdaptor.getModelContent();
-        for (int i = 0; i < count; i++) {
-            int modelOffset = editorAdaptor.getPosition().getModelOffset();
-            LineInformation firstLnInfo = modelContent.getLineInformationOfOffset(modelOffset);
-            if (firstLnInfo.getNumber() + 1 == modelContent.getNumberOfLines())
-                throw new CommandExecutionException("there is nothing to join below last line");
-            LineInformation secondLnInfo = modelContent.getLineInformation(firstLnInfo.getNumber() + 1);
-            int eolOffset = firstLnInfo.getEndOffset();
-            int bolOffset = secondLnInfo.getBeginOffset();
-            String secondLine = modelContent.getText(bolOffset, secondLnInfo.getLength());
+        int modelOffset = editorAdaptor.getPosition().getModelOffset();
+        LineInformation firstLnInfo = modelContent.getLineInformationOfOffset(modelOffset);
+        int lastLineNo = Math.min(firstLnInfo.getNumber() + count, modelContent.getNumberOfLines() - 1);
+        if (lastLineNo <= firstLnInfo.getNumber())
+            throw new CommandExecutionException("there is nothing to join below last line");
+        int start = firstLnInfo.getEndOffset();
+        int end = modelContent.getLineInformation(lastLineNo).getEndOffset();
+        String text = modelContent.getText(start, end - start);
+        TextEdit edit = new TextEdit(modelContent);
+        // length of the joined lines, to find the cursor position
+        int joined = 0;
+        int previousEol = 0;
+        int eolOffset = start;
+        for (int lineNo = firstLnInfo.getNumber() + 1; lineNo <= lastLineNo; lineNo++) {
+            LineInformation lnInfo = modelContent.getLineInformation(lineNo);
+            int bol = lnInfo.getBeginOffset() - start;
+            int eol = lnInfo.getEndOffset() - start;
             String glue;
             if (isSmart) {
                 glue = " ";
-                if (firstLnInfo.getLength() > 0 && Character.isWhitespace(modelContent.getText(eolOffset - 1, 1).charAt(0)))
+                char last;
+                if (previousEol > 0)
+                    last = text.charAt(previousEol - 1);
+                else
+                    last = firstLnInfo.getLength() > 0 ? modelContent.getText(start - 1, 1).charAt(0) : 'x';
+                if (Character.isWhitespace(last))
                     glue = "";
-                for (int j = 0; j < secondLine.length() && Character.isWhitespace(secondLine.charAt(j)); j++)
-                    bolOffset++;
-                if (modelContent.getText(bolOffset, 1).charAt(0) == ')')
+                while (bol < eol && Character.isWhitespace(text.charAt(bol)))
+                    bol++;
+                if (bol < eol && text.charAt(bol) == ')')
                     glue = "";
             } else
                 glue = "";
-            modelContent.replace(eolOffset, bolOffset - eolOffset, glue);
-            editorAdaptor.setPosition(editorAdaptor.getPosition().setModelOffset(eolOffset), true);
+            eolOffset = start + joined;
+            edit.replace(start + previousEol, bol - previousEol, glue);
+            joined += glue.length() + eol - bol;
+            previousEol = eol;
         }
+        edit.apply();
+        editorAdaptor.setPosition(editorAdaptor.getPosition().setModelOffset(eolOffset), true);
+        if (lastLineNo < firstLnInfo.getNumber() + count)
+            throw new CommandExecutionException("there is nothing to join below last line");
     }
 
     @Override
@@ -4,7 +4,7 @@ import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
-import net.sourceforge.vrapper.utils.StringUtils;
+import net.sourceforge.vrapper.utils.TextRope;
 import net.sourceforge.vrapper.utils.VimUtils;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.register.RegisterContent;
@@ -29,7 +29,7 @@ public class PasteAfterCommand extends CountAwareCommand {
             count = 1;
         }
         RegisterContent registerContent = editorAdaptor.getRegisterManager().getActiveRegister().getContent();
-        String text = registerContent.getText();
+        TextRope text = TextRope.valueOf(registerContent.getCharSequence());
         TextContent content = editorAdaptor.getModelContent();
         int offset = editorAdaptor.getPosition().getModelOffset();
         LineInformation line = content.getLineInformationOfOffset(offset);
@@ -44,7 +44,7 @@ public class PasteAfterCommand extends CountAwareCommand {
             } else {
                 offset = content.getTextLength();
                 String newLine = editorAdaptor.getConfiguration().getNewLine();
-                text = newLine + VimUtils.stripLastNewline(text);
+                text = TextRope.valueOf(newLine).concat(VimUtils.stripLastNewline(text));
                 position = offset + newLine.length();
             }
         } else {
@@ -55,7 +55,7 @@ public class PasteAfterCommand extends CountAwareCommand {
         }
         try {
             editorAdaptor.getHistory().beginCompoundChange();
-            content.replace(offset, 0, StringUtils.multiply(text, count));
+            text.insertInto(content, offset, count);
             int followingLine = lineNo + count;
             if (linewise && placeCursorAfter
 				&& followingLine < content.getNumberOfLines()) {
@@ -4,7 +4,7 @@ import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
-import net.sourceforge.vrapper.utils.StringUtils;
+import net.sourceforge.vrapper.utils.TextRope;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.register.RegisterContent;
 
@@ -28,7 +28,7 @@ public class PasteBeforeCommand extends CountAwareCommand {
             count = 1;
         }
 		RegisterContent registerContent = editorAdaptor.getRegisterManager().getActiveRegister().getContent();
-		String text = registerContent.getText();
+		TextRope text = TextRope.valueOf(registerContent.getCharSequence());
 		TextContent content = editorAdaptor.getModelContent();
 		int offset = editorAdaptor.getPosition().getModelOffset();
 		boolean linewise = registerContent.getPayloadType() == ContentType.LINES;
@@ -38,7 +38,7 @@ public class PasteBeforeCommand extends CountAwareCommand {
         }
 		try {
 			editorAdaptor.getHistory().beginCompoundChange();
-			content.replace(offset, 0, StringUtils.multiply(text, count));
+			text.insertInto(content, offset, count);
 			if (text.length() > 0) {
 				int position;
 				if (linewise)
@@ -48,7 +48,7 @@ public class PasteBeforeCommand extends CountAwareCommand {
 		            	
 				else {
 		        	position = offset;
-					position += text.length();
+					position += text.length() * count;
 					if (!placeCursorAfter)
 						position -= 1;
 				}
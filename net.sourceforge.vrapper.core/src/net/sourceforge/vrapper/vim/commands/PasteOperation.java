@@ -4,8 +4,8 @@ import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
-import net.sourceforge.vrapper.utils.StringUtils;
 import net.sourceforge.vrapper.utils.TextRange;
+import net.sourceforge.vrapper.utils.TextRope;
 import net.sourceforge.vrapper.utils.VimUtils;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.register.RegisterContent;
@@ -36,7 +36,7 @@ public class PasteOperation implements TextOperation {
         if (count == Command.NO_COUNT_GIVEN)
             count = 1;
         RegisterContent registerContent = editorAdaptor.getRegisterManager().getActiveRegister().getContent();
-        String text = StringUtils.multiply(registerContent.getText(), count);
+        TextRope text = TextRope.valueOf(registerContent.getCharSequence());
 
         ContentType pastingContentType = registerContent.getPayloadType();
         ContentType selectionContentType = editorAdaptor.getSelection().getContentType(editorAdaptor.getConfiguration());
@@ -53,19 +53,20 @@ public class PasteOperation implements TextOperation {
 
         int position;
         if (selectionContentType == ContentType.LINES || pastingContentType == ContentType.LINES) {
+            int end = offset;
+            if (pastingContentType == ContentType.LINES && selectionContentType != ContentType.LINES) {
+                content.replace(end++, 0, "\n");
+            }
+            end = text.insertInto(content, end, count);
             if (pastingContentType != ContentType.LINES) {
-                text = text + "\n";
-            } else if (selectionContentType != ContentType.LINES) {
-                text = "\n" + text;
+                content.replace(end, 0, "\n");
             }
-            content.replace(offset, 0, text);
             LineInformation firstPastedLine = content.getLineInformationOfOffset(offset + 1);
             position = VimUtils.getFirstNonWhiteSpaceOffset(content, firstPastedLine);
         } else {
-            position = offset + text.length() - 1;
-            content.replace(offset, 0, text);
+            position = offset + text.length() * count - 1;
+            text.insertInto(content, offset, count);
         }
-        // content.replace(offset, 0, StringUtils.multiply(text, count));
         Position destination = editorAdaptor.getCursorService().newPositionForModelOffset(position);
         editorAdaptor.setPosition(destination, true);
     }
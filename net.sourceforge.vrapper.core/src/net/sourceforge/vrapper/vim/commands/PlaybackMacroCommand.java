@@ -1,7 +1,6 @@
 package net.sourceforge.vrapper.vim.commands;
 
 import net.sourceforge.vrapper.keymap.KeyStroke;
-import net.sourceforge.vrapper.keymap.vim.ConstructorWrappers;
 import net.sourceforge.vrapper.utils.Function;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.MacroPlayer;
@@ -42,8 +41,7 @@ public class PlaybackMacroCommand extends SimpleRepeatableCommand {
         }
         //store this register for the '@@' command
         registerManager.setLastNamedRegister(namedRegister);
-        Iterable<KeyStroke> parsed = ConstructorWrappers.parseKeyStrokes(content.getText());
-        editorAdaptor.getMacroPlayer().add(parsed);
+        editorAdaptor.getMacroPlayer().add(content);
     }
 
     public Command repetition() {
@@ -1,9 +1,14 @@
 package net.sourceforge.vrapper.vim.commands;
 
+import net.sourceforge.vrapper.platform.HistoryService;
+import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
-import static net.sourceforge.vrapper.vim.commands.ConstructorWrappers.repeat;
-import static net.sourceforge.vrapper.vim.commands.ConstructorWrappers.seq;
 
+/**
+ * Repeats the last insertion. All the copies of the inserted text are built
+ * at once and inserted with a single modification.
+ */
 public class RepeatInsertionCommand extends CountAwareCommand {
 
     private final Command command;
@@ -16,16 +21,60 @@ public class RepeatInsertionCommand extends CountAwareCommand {
     public void execute(EditorAdaptor editorAdaptor, int count)
             throws CommandExecutionException {
         Command lastInsertion = editorAdaptor.getRegisterManager().getLastInsertion();
-        Command doIt = seq(command, lastInsertion);
         if (count == NO_COUNT_GIVEN)
             count = lastInsertion.getCount();
-        if (count != NO_COUNT_GIVEN)
-            doIt = repeat(count, doIt);
-        doIt.execute(editorAdaptor);
+        if (count == NO_COUNT_GIVEN)
+            count = 1;
+        HistoryService history = editorAdaptor.getHistory();
+        try {
+            history.beginCompoundChange();
+            history.lock();
+            if (command != null)
+                command.execute(editorAdaptor);
+            int offset = editorAdaptor.getPosition().getModelOffset();
+            String text = editorAdaptor.getRegisterManager().getLastEditRegister().getContent().getText();
+            StringBuilder copies = new StringBuilder(text);
+            appendCopies(copies, text, count - 1,
+                    separator(editorAdaptor, command instanceof InsertLineCommand, offset));
+            editorAdaptor.getModelContent().replace(offset, 0, copies.toString());
+            if (copies.length() > 0) {
+                // like PasteBeforeCommand, the cursor goes to the last character
+                editorAdaptor.setPosition(editorAdaptor.getCursorService()
+                        .newPositionForModelOffset(offset + copies.length() - 1), true);
+            }
+        } finally {
+            history.unlock();
+            history.endCompoundChange();
+        }
+    }
+
+    /**
+     * Appends <code>times</code> copies of the text, each after the
+     * separator.
+     */
+    public static void appendCopies(StringBuilder sb, String text, int times, String separator) {
+        for (int i = 0; i < times; i++) {
+            sb.append(separator).append(text);
+        }
+    }
+
+    /**
+     * @return the text which goes between two copies of an insertion: nothing,
+     *         or a new line indented like the line the insertion started at
+     *         if it was opened by {@link InsertLineCommand}.
+     */
+    public static String separator(EditorAdaptor editorAdaptor, boolean onNewLines, int insertStart) {
+        if (!onNewLines) {
+            return "";
+        }
+        TextContent content = editorAdaptor.getModelContent();
+        LineInformation line = content.getLineInformationOfOffset(insertStart);
+        return editorAdaptor.getConfiguration().getNewLine()
+                + content.getText(line.getBeginOffset(), insertStart - line.getBeginOffset());
     }
 
     @Override
     public CountAwareCommand repetition() {
         return this;
     }
-}
\ No newline at end of file
+}
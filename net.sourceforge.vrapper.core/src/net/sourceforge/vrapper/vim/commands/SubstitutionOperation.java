@@ -1,123 +1,223 @@
 package net.sourceforge.vrapper.vim.commands;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
-import net.sourceforge.vrapper.platform.SearchAndReplaceService;
+import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.TextEdit;
 import net.sourceforge.vrapper.utils.TextRange;
+import net.sourceforge.vrapper.utils.VimUtils;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 
 /**
  * Perform a substitution on a range of lines.  Can be current line,
  * all lines, or any range in between.
  * For example, :s/foo/blah/g or :%s/foo/blah/g or :2,5s/foo/blah/g
+ * <p>
+ * The command is parsed and its pattern compiled once. Every execution scans
+ * the range in a single pass and applies the substitutions together with a
+ * {@link TextEdit}, so the text between matches which are far from each
+ * other is left alone.
  */
 public class SubstitutionOperation extends SimpleTextOperation {
-	
-	private String substitution;
-	
-	public SubstitutionOperation(String substitution) {
-		this.substitution = substitution;
-	}
+
+    /** Like Vim's default 'report' option. */
+    private static final int REPORT_THRESHOLD = 2;
+
+    private final String find;
+    private final String replace;
+    private final boolean global;
+    private final Pattern pattern;
+    private final String patternError;
+
+    public SubstitutionOperation(String substitution) {
+        //whatever character is after 's' is our delimiter
+        int sIndex = substitution.indexOf('s');
+        String[] fields = split(substitution.substring(sIndex + 2), substitution.charAt(sIndex + 1));
+        find = fields[0];
+        replace = fields[1];
+        String flags = fields[2];
+        global = flags.indexOf('g') != -1;
+        int patternFlags = Pattern.MULTILINE;
+        if (flags.indexOf('i') != -1) {
+            patternFlags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        Pattern compiled = null;
+        String error = null;
+        try {
+            compiled = Pattern.compile(find, patternFlags);
+        } catch (PatternSyntaxException e) {
+            error = e.getDescription();
+        }
+        pattern = compiled;
+        patternError = error;
+    }
 
     @Override
     public void execute(EditorAdaptor editorAdaptor, TextRange region, ContentType contentType) {
-    	int startLine;
-    	int endLine;
-    	if(region == null) {
-    		//special case, recalculate 'current line' every time
-    		//(this is to ensure '.' always works on current line)
-    		int offset = editorAdaptor.getPosition().getModelOffset();
-			startLine = editorAdaptor.getModelContent().getLineInformationOfOffset(offset).getNumber();
-			endLine = startLine;
-    	}
-    	else {
-	    	startLine = editorAdaptor.getModelContent()
-	    			.getLineInformationOfOffset( region.getLeftBound().getModelOffset() ).getNumber();
-	    	endLine = editorAdaptor.getModelContent()
-	    			.getLineInformationOfOffset( region.getRightBound().getModelOffset() ).getNumber();
-    	}
-    	
-		//whatever character is after 's' is our delimiter
-		String delim = "" + substitution.charAt( substitution.indexOf('s') + 1);
-		String[] fields = substitution.split(delim);
-		String find = "";
-		String replace = "";
-		String flags = "";
-		//'s' or '%s' = fields[0]
-		if(fields.length > 1) {
-			find = fields[1];
-		}
-		if(fields.length > 2) {
-			replace = fields[2];
-		}
-		if(fields.length > 3) {
-			flags = fields[3];
-		}
-		
-		//before attempting substitution, is this regex even valid?
-		try {
-	        Pattern.compile(find);
-	    } catch (PatternSyntaxException e) {
-			editorAdaptor.getUserInterfaceService().setErrorMessage(e.getDescription());
-			return;
-	    }
-		
-		boolean success;
-		if(startLine == endLine) {
-			LineInformation currentLine = editorAdaptor.getModelContent().getLineInformation(startLine);
-			//begin and end compound change so a single 'u' undoes all replaces
-			editorAdaptor.getHistory().beginCompoundChange();
-			success = performReplace(currentLine, find, replace, flags, editorAdaptor);
-			editorAdaptor.getHistory().endCompoundChange();
-		}
-		else {
-			success = false;
-			LineInformation line;
-			
-			//perform search individually on each line in the range
-			//(so :%s without 'g' flag runs once on each line)
-			editorAdaptor.getHistory().beginCompoundChange();
-			for(int i=startLine; i < endLine; i++) {
-				line = editorAdaptor.getModelContent().getLineInformation(i);
-				success = performReplace(line, find, replace, flags, editorAdaptor) || success;
-			}
-			editorAdaptor.getHistory().endCompoundChange();
-		}
-		
-		if(! success) {
-			editorAdaptor.getUserInterfaceService().setErrorMessage("'"+find+"' not found");
-		}
-		
-		//enable '&', 'g&', and ':s' features
-		editorAdaptor.getRegisterManager().setLastSubstitution(this);
-	}
-    
-    private boolean performReplace(LineInformation line, String find,
-    		String replace, String flags, EditorAdaptor editorAdaptor) {
-    	//Eclipse regex doesn't handle '^' and '$' like Vim does.
-    	//Time for some special cases!
-		if(find.equals("^")) {
-			//insert the text at the beginning of the line
-            editorAdaptor.getModelContent().replace(line.getBeginOffset(), 0, replace);
-			return true;
-		}
-		else if(find.equals("$")) {
-			//insert the text at the end of the line
-            editorAdaptor.getModelContent().replace(line.getEndOffset(), 0, replace);
-			return true;
-		}
-		else {
-			//let Eclipse handle the regex
-			SearchAndReplaceService searchAndReplace = editorAdaptor.getSearchAndReplaceService();
-			return searchAndReplace.replace(line, find, replace, flags);
-		}
+        if (pattern == null) {
+            editorAdaptor.getUserInterfaceService().setErrorMessage(patternError);
+            return;
+        }
+        TextContent content = editorAdaptor.getModelContent();
+        int startLine;
+        int endLine;
+        if(region == null) {
+            //special case, recalculate 'current line' every time
+            //(this is to ensure '.' always works on current line)
+            int offset = editorAdaptor.getPosition().getModelOffset();
+            startLine = content.getLineInformationOfOffset(offset).getNumber();
+            endLine = startLine;
+        }
+        else {
+            startLine = content.getLineInformationOfOffset(region.getLeftBound().getModelOffset()).getNumber();
+            int rightOffset = region.getRightBound().getModelOffset();
+            endLine = content.getLineInformationOfOffset(rightOffset).getNumber();
+            //a line-wise range ends at the start of the line after it
+            if (endLine > startLine && content.getLineInformation(endLine).getBeginOffset() == rightOffset) {
+                endLine--;
+            }
+        }
+
+        //begin and end compound change so a single 'u' undoes all replaces
+        editorAdaptor.getHistory().beginCompoundChange();
+        try {
+            substitute(editorAdaptor, content, startLine, endLine);
+        } finally {
+            editorAdaptor.getHistory().endCompoundChange();
+        }
+
+        //enable '&', 'g&', and ':s' features
+        editorAdaptor.getRegisterManager().setLastSubstitution(this);
+    }
+
+    private void substitute(EditorAdaptor editorAdaptor, TextContent content, int startLine, int endLine) {
+        CharSequence text = content.getCharSequence();
+        int textLength = text.length();
+        int rangeEnd = content.getLineInformation(endLine).getEndOffset();
+        String newLine = editorAdaptor.getConfiguration().getNewLine();
+        Matcher matcher = pattern.matcher(text);
+        TextEdit edit = new TextEdit(content);
+        StringBuilder replacement = new StringBuilder();
+        int previousEnd = -1;
+        int substitutions = 0;
+        int lines = 0;
+        int lastLine = -1;
+        // where the last match starts after the substitutions before it
+        int lastMatch = 0;
+        int delta = 0;
+        int position = content.getLineInformation(startLine).getBeginOffset();
+        while (position <= textLength && matcher.find(position) && matcher.start() <= rangeEnd) {
+            int start = matcher.start();
+            int end = matcher.end();
+            if (start == end && start == previousEnd) {
+                //no empty match right after the previous one (s/x*/-/g)
+                position = start + 1;
+                continue;
+            }
+            replacement.setLength(0);
+            appendReplacement(replacement, matcher, newLine);
+            edit.replace(start, end - start, replacement.toString());
+            lastMatch = start + delta;
+            delta += replacement.length() - (end - start);
+            previousEnd = end;
+            substitutions++;
+            LineInformation line = content.getLineInformationOfOffset(start);
+            if (line.getNumber() != lastLine) {
+                lastLine = line.getNumber();
+                lines++;
+            }
+            if (global) {
+                position = start == end ? end + 1 : end;
+            } else if (lastLine + 1 < content.getNumberOfLines()) {
+                position = Math.max(end, content.getLineInformation(lastLine + 1).getBeginOffset());
+            } else {
+                break;
+            }
+        }
+
+        if (substitutions == 0) {
+            editorAdaptor.getUserInterfaceService().setErrorMessage("'"+find+"' not found");
+            return;
+        }
+        edit.apply();
+        //like Vim, leave the cursor on the last substituted line
+        LineInformation cursorLine = content.getLineInformationOfOffset(lastMatch);
+        editorAdaptor.setPosition(editorAdaptor.getCursorService().newPositionForModelOffset(
+                VimUtils.getFirstNonWhiteSpaceOffset(content, cursorLine)), true);
+        if (substitutions > REPORT_THRESHOLD) {
+            editorAdaptor.getUserInterfaceService().setInfoMessage(
+                    substitutions + (substitutions == 1 ? " substitution" : " substitutions")
+                    + " on " + lines + (lines == 1 ? " line" : " lines"));
+        }
+    }
+
+    /**
+     * Appends the replacement for the current match, using the syntax of
+     * Eclipse's regular expression replace: $n for groups, \R for the line
+     * delimiter, \n, \r and \t for control characters and a backslash to
+     * escape anything else.
+     */
+    private void appendReplacement(StringBuilder result, Matcher matcher, String newLine) {
+        int i = 0;
+        while (i < replace.length()) {
+            char c = replace.charAt(i++);
+            if (c == '\\' && i < replace.length()) {
+                char escaped = replace.charAt(i++);
+                switch (escaped) {
+                case 'R': result.append(newLine); break;
+                case 'n': result.append('\n'); break;
+                case 'r': result.append('\r'); break;
+                case 't': result.append('\t'); break;
+                default: result.append(escaped);
+                }
+            } else if (c == '$' && i < replace.length() && Character.isDigit(replace.charAt(i))) {
+                int group = replace.charAt(i++) - '0';
+                //take more digits as long as the group exists
+                while (i < replace.length() && Character.isDigit(replace.charAt(i))) {
+                    int next = group * 10 + replace.charAt(i) - '0';
+                    if (next > matcher.groupCount()) {
+                        break;
+                    }
+                    group = next;
+                    i++;
+                }
+                if (group <= matcher.groupCount() && matcher.group(group) != null) {
+                    result.append(matcher.group(group));
+                }
+            } else {
+                result.append(c);
+            }
+        }
     }
 
-	public TextOperation repetition() {
-		return this;
-	}
+    /**
+     * Splits "find/replace/flags" at unescaped delimiters. Escaped delimiters
+     * keep their backslash, which both the pattern and the replacement
+     * treat as a literal character.
+     */
+    private static String[] split(String substitution, char delim) {
+        String[] fields = { "", "", "" };
+        int field = 0;
+        int start = 0;
+        for (int i = 0; i < substitution.length() && field < 2; i++) {
+            char c = substitution.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == delim) {
+                fields[field++] = substitution.substring(start, i);
+                start = i + 1;
+            }
+        }
+        fields[field] = substitution.substring(Math.min(start, substitution.length()));
+        return fields;
+    }
+
+    public TextOperation repetition() {
+        return this;
+    }
 
 }
@@ -6,6 +6,7 @@ import static java.lang.Character.toUpperCase;
 import static java.lang.Math.min;
 import net.sourceforge.vrapper.platform.TextContent;
 import net.sourceforge.vrapper.utils.LineInformation;
+import net.sourceforge.vrapper.utils.TextEdit;
 import net.sourceforge.vrapper.utils.TextRange;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 
@@ -20,6 +21,7 @@ public class SwapCaseCommand extends AbstractModelSideCommand {
     		editorAdaptor.rememberLastActiveSelection();
     		TextObject selection = editorAdaptor.getSelection();
 			try {
+				editorAdaptor.getHistory().beginCompoundChange();
 				TextRange range = selection.getRegion(editorAdaptor, NO_COUNT_GIVEN);
 				super.swapCase(editorAdaptor.getModelContent(), range.getLeftBound().getModelOffset(), range.getModelLength());
 				//move cursor to beginning of selection to match vim behavior
@@ -27,6 +29,8 @@ public class SwapCaseCommand extends AbstractModelSideCommand {
 				LeaveVisualModeCommand.doIt(editorAdaptor);
 			} catch (CommandExecutionException e) {
         		editorAdaptor.getUserInterfaceService().setErrorMessage(e.getMessage());
+			} finally {
+				editorAdaptor.getHistory().endCompoundChange();
 			}
     	}
     	
@@ -51,7 +55,8 @@ public class SwapCaseCommand extends AbstractModelSideCommand {
             c = isUpperCase(c) ? toLowerCase(c) : toUpperCase(c);
             s.append(c);
         }
-        content.replace(start, length, s.toString());
+        // characters without case stay, so only the changed spans are replaced
+        TextEdit.replace(content, start, text, s.toString());
     }
 
 }
\ No newline at end of file
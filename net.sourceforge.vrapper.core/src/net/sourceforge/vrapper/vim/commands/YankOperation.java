@@ -3,11 +3,12 @@ package net.sourceforge.vrapper.vim.commands;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.TextRange;
+import net.sourceforge.vrapper.utils.TextRope;
 import net.sourceforge.vrapper.utils.VimUtils;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.modes.NormalMode;
 import net.sourceforge.vrapper.vim.register.RegisterContent;
-import net.sourceforge.vrapper.vim.register.StringRegisterContent;
+import net.sourceforge.vrapper.vim.register.RopeRegisterContent;
 
 public class YankOperation extends SimpleTextOperation {
 
@@ -25,15 +26,15 @@ public class YankOperation extends SimpleTextOperation {
     }
 
     public static void doIt(EditorAdaptor editorAdaptor, TextRange range, ContentType contentType) {
-        String text = editorAdaptor.getModelContent().getText(range.getLeftBound().getModelOffset(), range.getModelLength());
+        TextRope text = TextRope.copyOf(editorAdaptor.getModelContent(), range.getLeftBound().getModelOffset(), range.getModelLength());
         //if we're expecting lines and this text doesn't end in a newline,
         //manually append a newline to the end
         //(this to handle yanking the last line of a file)
-        if (contentType == ContentType.LINES && (text.length() == 0 || ! VimUtils.isNewLine(text.substring(text.length()-1)))) {
-            text += editorAdaptor.getConfiguration().getNewLine();
+        if (contentType == ContentType.LINES && (text.length() == 0 || ! VimUtils.isNewLine(String.valueOf(text.charAt(text.length()-1))))) {
+            text = text.concat(editorAdaptor.getConfiguration().getNewLine());
         }
         
-        RegisterContent content = new StringRegisterContent(contentType, text);
+        RegisterContent content = new RopeRegisterContent(contentType, text);
         editorAdaptor.getRegisterManager().getActiveRegister().setContent(content);
         if (contentType == ContentType.LINES && NormalMode.NAME.equals(editorAdaptor.getCurrentModeName())) {
             //if this is line-wise, move cursor to first line in selection but keep stickyColumn
@@ -1,11 +1,14 @@
 package net.sourceforge.vrapper.vim.commands.motions;
 
 import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.utils.BracketIndex;
 import net.sourceforge.vrapper.vim.commands.BorderPolicy;
 import net.sourceforge.vrapper.vim.commands.CommandExecutionException;
 
 /** Points to next occurrence of target character skipping
  * all the balanced pairs.
+ * Pairs of two different characters are looked up in the {@link BracketIndex}
+ * instead of scanning the text.
  *
  * @author Krzysiek Goj
  */
@@ -26,13 +29,17 @@ public class FindBalancedMotion extends AbstractModelSideMotion {
     @Override
     protected int destination(int offset, TextContent content, int count)
             throws CommandExecutionException {
+        if (pair != '\0' && pair != target) {
+            return indexedDestination(offset, content, count);
+        }
+        CharSequence text = content.getCharSequence();
         int end = getEndSearchOffset(content, offset);
         int step = backwards ? -1 : 1;
         int depth = count;
         char current;
         while (backwards ? offset > end : offset < end) {
             offset += step;
-            current = content.getText(offset, 1).charAt(0);
+            current = text.charAt(offset);
             if(current == target)
                 --depth;
             else if (current == pair)
@@ -40,7 +47,7 @@ public class FindBalancedMotion extends AbstractModelSideMotion {
             if (depth == 0)
                 break;
         }
-        if(offset >= content.getTextLength() || depth != 0 || content.getText(offset, 1).charAt(0) != target) {
+        if(offset >= text.length() || depth != 0 || text.charAt(offset) != target) {
             throw new CommandExecutionException("'" + target + "' not found");
         }
         if(!upToTarget) {
@@ -49,6 +56,21 @@ public class FindBalancedMotion extends AbstractModelSideMotion {
         return offset;
     }
 
+    private int indexedDestination(int offset, TextContent content, int count)
+            throws CommandExecutionException {
+        BracketIndex index = BracketIndex.forContent(content);
+        int destination = backwards
+                ? index.findEnclosingOpen(content, target, pair, offset, count)
+                : index.findEnclosingClose(content, pair, target, offset, count);
+        if (destination < 0) {
+            throw new CommandExecutionException("'" + target + "' not found");
+        }
+        if (!upToTarget) {
+            destination += backwards ? 1 : -1;
+        }
+        return destination;
+    }
+
     protected int getEndSearchOffset(TextContent content, int offset) {
         return backwards ? 0 : content.getTextLength() - 1;
     }
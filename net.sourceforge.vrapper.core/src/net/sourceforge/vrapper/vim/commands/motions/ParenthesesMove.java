@@ -5,6 +5,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.utils.BracketIndex;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.vim.commands.BorderPolicy;
 import net.sourceforge.vrapper.vim.commands.CommandExecutionException;
@@ -20,16 +21,16 @@ import net.sourceforge.vrapper.vim.modes.VisualMode;
  * @author Matthias Radig
  */
 public class ParenthesesMove extends AbstractModelSideMotion {
-    private static final Map<String, ParenthesesPair> PARENTHESES;
+    private static final Map<Character, ParenthesesPair> PARENTHESES;
 
     static {
-        Map<String, ParenthesesPair> op = new HashMap<String, ParenthesesPair>();
-        op.put("(", new ParenthesesPair("(", ")", false));
-        op.put("{", new ParenthesesPair("{", "}", false));
-        op.put("[", new ParenthesesPair("[", "]", false));
-        op.put(")", new ParenthesesPair("(", ")", true ));
-        op.put("}", new ParenthesesPair("{", "}", true ));
-        op.put("]", new ParenthesesPair("[", "]", true ));
+        Map<Character, ParenthesesPair> op = new HashMap<Character, ParenthesesPair>();
+        op.put('(', new ParenthesesPair('(', ')', false));
+        op.put('{', new ParenthesesPair('{', '}', false));
+        op.put('[', new ParenthesesPair('[', ']', false));
+        op.put(')', new ParenthesesPair('(', ')', true ));
+        op.put('}', new ParenthesesPair('{', '}', true ));
+        op.put(']', new ParenthesesPair('[', ']', true ));
         PARENTHESES = Collections.unmodifiableMap(op);
     }
     
@@ -47,12 +48,12 @@ public class ParenthesesMove extends AbstractModelSideMotion {
     @Override
     protected int destination(int offset, TextContent content, int count) throws CommandExecutionException {
         LineInformation info = content.getLineInformationOfOffset(offset);
+        CharSequence text = content.getCharSequence();
         int index = offset;
         ParenthesesPair pair = null;
         for(index=offset; index<info.getEndOffset(); index++) {
-            String c = content.getText(index, 1);
-            if (PARENTHESES.containsKey(c)) {
-                pair = PARENTHESES.get(c);
+            pair = PARENTHESES.get(text.charAt(index));
+            if (pair != null) {
                 break;
             }
         }
@@ -72,65 +73,40 @@ public class ParenthesesMove extends AbstractModelSideMotion {
     public static final ParenthesesMove MATCH_OPEN_PAREN = new ParenthesesMove() {
     	@Override
     	protected int destination(int offset, TextContent content, int count) throws CommandExecutionException {
-    		return findMatch(offset, PARENTHESES.get(")"), content, count);
+    		return findMatch(offset, PARENTHESES.get(')'), content, count);
     	}
     };
     
     public static final ParenthesesMove MATCH_CLOSE_PAREN = new ParenthesesMove() {
     	@Override
     	protected int destination(int offset, TextContent content, int count) throws CommandExecutionException {
-    		return findMatch(offset, PARENTHESES.get("("), content, count);
+    		return findMatch(offset, PARENTHESES.get('('), content, count);
     	}
     };
     
     public static final ParenthesesMove MATCH_OPEN_CURLY = new ParenthesesMove() {
     	@Override
     	protected int destination(int offset, TextContent content, int count) throws CommandExecutionException {
-    		return findMatch(offset, PARENTHESES.get("}"), content, count);
+    		return findMatch(offset, PARENTHESES.get('}'), content, count);
     	}
     };
     
     public static final ParenthesesMove MATCH_CLOSE_CURLY = new ParenthesesMove() {
     	@Override
     	protected int destination(int offset, TextContent content, int count) throws CommandExecutionException {
-    		return findMatch(offset, PARENTHESES.get("{"), content, count);
+    		return findMatch(offset, PARENTHESES.get('{'), content, count);
     	}
     };
     
     private static int findMatch(int offset, ParenthesesPair pair, TextContent content, int count) {
-    	int index = offset;
-        int depth = 1;
-        int leftModifier, rightModifier, limit, indexModifier;
+        BracketIndex index = BracketIndex.forContent(content);
+        int match;
         if (pair.backwards) {
-            leftModifier = -1;
-            rightModifier = 1;
-            limit = 0;
-            indexModifier = -1;
+            match = index.findEnclosingOpen(content, pair.left, pair.right, offset, 1);
         } else {
-            leftModifier = 1;
-            rightModifier = -1;
-            limit = content.getLineInformation(content.getNumberOfLines()-1).getEndOffset();
-            indexModifier = 1;
+            match = index.findEnclosingClose(content, pair.left, pair.right, offset, 1);
         }
-        while (index != limit) {
-            index += indexModifier;
-            String c;
-            try {
-            	c = content.getText(index, 1);
-            } catch(Exception e) {
-            	return offset;
-            }
-            
-            if (c.equals(pair.right)) {
-                depth += rightModifier;
-            } else if (c.equals(pair.left)) {
-                depth += leftModifier;
-            }
-            if (depth == 0) {
-                return index;
-            }
-        }
-        return offset;
+        return match < 0 ? offset : match;
     }
 
     public BorderPolicy borderPolicy() {
@@ -143,10 +119,10 @@ public class ParenthesesMove extends AbstractModelSideMotion {
     }
 
     private static class ParenthesesPair {
-        private final String left;
-        private final String right;
+        private final char left;
+        private final char right;
         private final boolean backwards;
-        public ParenthesesPair(String left, String right, boolean backwards) {
+        public ParenthesesPair(char left, char right, boolean backwards) {
             super();
             this.left = left;
             this.right = right;
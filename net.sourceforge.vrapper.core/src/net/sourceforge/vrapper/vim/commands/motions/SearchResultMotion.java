@@ -2,7 +2,7 @@ package net.sourceforge.vrapper.vim.commands.motions;
 
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.Search;
-import net.sourceforge.vrapper.utils.VimUtils;
+import net.sourceforge.vrapper.utils.SearchIndex;
 import net.sourceforge.vrapper.utils.SearchOffset.End;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.Options;
@@ -76,7 +76,7 @@ public class SearchResultMotion extends CountAwareMotion {
                 position = position.addModelOffset(-1);
             }
         }
-        return VimUtils.wrapAroundSearch(vim, search, position).getStart();
+        return SearchIndex.forContent(vim.getModelContent()).wrapAroundFind(search, position).getStart();
     }
 
     @Override
@@ -39,17 +39,16 @@ public class WordSearchMotion extends SearchResultMotion {
     private static String grabCurrentWord(EditorAdaptor editorAdaptor) {
         String keyword = "";
         TextContent p = editorAdaptor.getViewContent();
+        CharSequence text = p.getCharSequence();
         int index = editorAdaptor.getCursorService().getPosition().getViewOffset();
         LineInformation line = p.getLineInformationOfOffset(index);
         int min = line.getBeginOffset();
         int max = line.getEndOffset();
         int first = -1;
         int last = -1;
-        String s;
         boolean found = false;
         if (index < max) {
-            s = p.getText(index, 1);
-            if (VimUtils.isWordCharacter(s)) {
+            if (VimUtils.isWordCharacter(text.charAt(index))) {
                 found = true;
                 first = index;
                 last = index;
@@ -57,8 +56,7 @@ public class WordSearchMotion extends SearchResultMotion {
         }
         while (index < max-1) {
             index += 1;
-            s = p.getText(index, 1);
-            if(VimUtils.isWordCharacter(s)) {
+            if(VimUtils.isWordCharacter(text.charAt(index))) {
                 last = index;
                 if(!found) {
                     first = index;
@@ -72,8 +70,7 @@ public class WordSearchMotion extends SearchResultMotion {
             index = first;
             while (index > min) {
                 index -= 1;
-                s = p.getText(index, 1);
-                if(VimUtils.isWordCharacter(s)) {
+                if(VimUtils.isWordCharacter(text.charAt(index))) {
                     first = index;
                 } else {
                     break;
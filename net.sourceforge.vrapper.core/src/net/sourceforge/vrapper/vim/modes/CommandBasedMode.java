@@ -7,19 +7,16 @@ import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.state;
 import static net.sourceforge.vrapper.keymap.vim.ConstructorWrappers.transitionBind;
 import static net.sourceforge.vrapper.vim.commands.BorderPolicy.EXCLUSIVE;
 
-import java.util.HashMap;
-import java.util.Map;
-
 import net.sourceforge.vrapper.keymap.EmptyState;
 import net.sourceforge.vrapper.keymap.KeyMap;
 import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.keymap.SpecialKey;
 import net.sourceforge.vrapper.keymap.State;
 import net.sourceforge.vrapper.keymap.Transition;
+import net.sourceforge.vrapper.keymap.vim.CompiledState;
 import net.sourceforge.vrapper.log.VrapperLog;
 import net.sourceforge.vrapper.platform.CursorService;
 import net.sourceforge.vrapper.platform.KeyMapProvider;
-import net.sourceforge.vrapper.platform.PlatformSpecificStateProvider;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.VimConstants;
 import net.sourceforge.vrapper.vim.commands.Command;
@@ -66,7 +63,6 @@ public abstract class CommandBasedMode extends AbstractMode {
     protected State<Command> currentState;
     private final KeyMapResolver keyMapResolver;
     private final StringBuilder commandBuffer;
-    private static Map<String, State<Command>> initialStateCache = new HashMap<String, State<Command>>();
 
     public CommandBasedMode(EditorAdaptor editorAdaptor) {
         super(editorAdaptor);
@@ -80,17 +76,16 @@ public abstract class CommandBasedMode extends AbstractMode {
     protected abstract KeyMapResolver buildKeyMapResolver();
 
     public State<Command> getInitialState() {
-        String key = getName();
-        PlatformSpecificStateProvider platformSpecificStateProvider = editorAdaptor.getPlatformSpecificStateProvider();
-        if (platformSpecificStateProvider != null)
-            key += " for " + platformSpecificStateProvider.getName();
-        if (!initialStateCache.containsKey(key))
-            initialStateCache.put(key, buildInitialState());
-        return initialStateCache.get(key);
+        return StateRegistry.getState(getName(), editorAdaptor.getPlatformSpecificStateProvider(),
+                new StateRegistry.Builder() {
+                    public State<Command> build() {
+                        return CompiledState.compile(buildInitialState());
+                    }
+                });
     }
 
     @SuppressWarnings("unchecked")
-    public static State<Motion> motions() {
+    public static synchronized State<Motion> motions() {
         if (motions == null) {
             final Motion moveLeft = MoveLeft.INSTANCE;
             final Motion moveRight = MoveRight.INSTANCE;
@@ -254,9 +249,11 @@ public abstract class CommandBasedMode extends AbstractMode {
         Transition<Command> transition = currentState.press(keyStroke);
         keyMapResolver.press(keyStroke);
         commandBuffer.append(keyStroke.getCharacter());
+        boolean pending = false;
         if (transition != null) {
             Command command = transition.getValue();
             currentState = transition.getNextState();
+            pending = command == null && currentState != null;
             if (command != null) {
                 try {
                     executeCommand(command);
@@ -275,6 +272,15 @@ public abstract class CommandBasedMode extends AbstractMode {
             }
         }
 
+        if (editorAdaptor.isPlayingMacro()) {
+            // nobody sees the status line while a macro is played, and the
+            // cursor doesn't move until a command is complete
+            if (!pending) {
+                placeCursor();
+            }
+            return true;
+        }
+
         editorAdaptor.getUserInterfaceService().setInfoMessage(
                 commandBuffer.toString());
 
@@ -312,7 +318,9 @@ public abstract class CommandBasedMode extends AbstractMode {
 
     private void resetCommandBuffer() {
         commandBuffer.delete(0, commandBuffer.length());
-        editorAdaptor.getUserInterfaceService().setInfoMessage("");
+        if (!editorAdaptor.isPlayingMacro()) {
+            editorAdaptor.getUserInterfaceService().setInfoMessage("");
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -30,10 +30,12 @@ import net.sourceforge.vrapper.vim.commands.CommandExecutionException;
 import net.sourceforge.vrapper.vim.commands.CountIgnoringNonRepeatableCommand;
 import net.sourceforge.vrapper.vim.commands.DeleteOperation;
 import net.sourceforge.vrapper.vim.commands.InsertAdjacentCharacter;
+import net.sourceforge.vrapper.vim.commands.InsertLineCommand;
 import net.sourceforge.vrapper.vim.commands.MotionCommand;
 import net.sourceforge.vrapper.vim.commands.MotionTextObject;
 import net.sourceforge.vrapper.vim.commands.PasteBeforeCommand;
 import net.sourceforge.vrapper.vim.commands.PasteRegisterCommand;
+import net.sourceforge.vrapper.vim.commands.RepeatInsertionCommand;
 import net.sourceforge.vrapper.vim.commands.SwitchRegisterCommand;
 import net.sourceforge.vrapper.vim.commands.TextOperationTextObjectCommand;
 import net.sourceforge.vrapper.vim.commands.VimCommandSequence;
@@ -57,7 +59,7 @@ public class InsertMode extends AbstractMode {
     public static final KeyStroke CTRL_C = ctrlKey('c');
     public static final KeyStroke CTRL_R = ctrlKey('r');
     
-    protected State<Command> currentState = buildState();
+    protected final State<Command> currentState;
 
     private Position startEditPosition;
 
@@ -66,9 +68,17 @@ public class InsertMode extends AbstractMode {
      */
     private Command command;
     private int count;
+    /** whether the insertion started on a line opened by o or O */
+    private boolean openedLine;
 
     public InsertMode(EditorAdaptor editorAdaptor) {
         super(editorAdaptor);
+        currentState = StateRegistry.getState(NAME, editorAdaptor.getPlatformSpecificStateProvider(),
+                new StateRegistry.Builder() {
+                    public State<Command> build() {
+                        return buildState();
+                    }
+                });
     }
 
     public String getName() {
@@ -102,6 +112,7 @@ public class InsertMode extends AbstractMode {
 
         count = 1;
         command = null;
+        openedLine = false;
 
         try {
             editorAdaptor.getViewportService().setRepaint(false);
@@ -114,6 +125,7 @@ public class InsertMode extends AbstractMode {
                 if (hint instanceof ExecuteCommandHint) {
                     ExecuteCommandHint cast = (ExecuteCommandHint) hint;
                     cast.getCommand().execute(editorAdaptor);
+                    openedLine = cast.getCommand() instanceof InsertLineCommand;
                 }
             }
         } catch (CommandExecutionException e) {
@@ -146,7 +158,10 @@ public class InsertMode extends AbstractMode {
             }
         }
         try {
-            saveTypedText();
+            String text = saveTypedText();
+            if (count > 1) {
+                repeatInsert(text, count - 1);
+            }
             try {
                 if (moveCursor)
                     MotionCommand.doIt(editorAdaptor, MoveLeft.INSTANCE);
@@ -154,7 +169,6 @@ public class InsertMode extends AbstractMode {
                 editorAdaptor.getUserInterfaceService().setErrorMessage(
                         e.getMessage());
             }
-            repeatInsert();
         } finally {
             if (editorAdaptor.getConfiguration().get(Options.ATOMIC_INSERT)) {
                 editorAdaptor.getHistory().unlock();
@@ -165,19 +179,21 @@ public class InsertMode extends AbstractMode {
                 CursorService.LAST_INSERT_MARK, editorAdaptor.getPosition());
     }
 
-    private void repeatInsert() {
-        if (count > 1) {
-            try {
-                editorAdaptor.getRegisterManager().getLastEdit().withCount(
-                        count - 1).execute(editorAdaptor);
-            } catch (CommandExecutionException e) {
-                editorAdaptor.getUserInterfaceService().setErrorMessage(
-                        e.getMessage());
-            }
-        }
+    /**
+     * Inserts the remaining copies of the typed text after it, with a single
+     * modification.
+     */
+    protected void repeatInsert(String text, int copies) {
+        int offset = editorAdaptor.getPosition().getModelOffset();
+        StringBuilder sb = new StringBuilder();
+        RepeatInsertionCommand.appendCopies(sb, text, copies,
+                RepeatInsertionCommand.separator(editorAdaptor, openedLine, startEditPosition.getModelOffset()));
+        editorAdaptor.getModelContent().replace(offset, 0, sb.toString());
+        editorAdaptor.setPosition(editorAdaptor.getCursorService()
+                .newPositionForModelOffset(offset + sb.length()), false);
     }
 
-    private void saveTypedText() {
+    private String saveTypedText() {
         Register lastEditRegister = editorAdaptor.getRegisterManager().getLastEditRegister();
         TextContent content = editorAdaptor.getModelContent();
         Position position = editorAdaptor.getCursorService().getPosition();
@@ -194,6 +210,7 @@ public class InsertMode extends AbstractMode {
         Command repetition = createRepetition(lastEditRegister, text);
         editorAdaptor.getRegisterManager().setLastInsertion(
                 count > 1 ? repetition.withCount(count) : repetition);
+        return text;
     }
 
     protected Command createRepetition(Register lastEditRegister, String text) {
@@ -357,7 +357,9 @@ public class NormalMode extends CommandBasedMode {
     @Override
     protected void commandDone() {
         super.commandDone();
-        editorAdaptor.getCursorService().setCaret(CaretType.RECTANGULAR);
+        if (!editorAdaptor.isPlayingMacro()) {
+            editorAdaptor.getCursorService().setCaret(CaretType.RECTANGULAR);
+        }
         editorAdaptor.getRegisterManager().activateDefaultRegister();
     }
 
@@ -14,8 +14,6 @@ import net.sourceforge.vrapper.vim.commands.CountAwareCommand;
  *
  * @author Krzysiek Goj
  * @author Matthias Radig
- *
- * TODO: implement counts
  */
 public class ReplaceMode extends InsertMode {
 
@@ -49,6 +47,17 @@ public class ReplaceMode extends InsertMode {
         super.leaveMode();
     }
     
+    /**
+     * The remaining copies of a counted replace overwrite the text after
+     * the typed one.
+     */
+    @Override
+    protected void repeatInsert(String text, int copies) {
+        int end = RepeatReplaceCommand.overwrite(editorAdaptor,
+                editorAdaptor.getPosition().getModelOffset(), text, copies);
+        editorAdaptor.setPosition(editorAdaptor.getCursorService().newPositionForModelOffset(end), false);
+    }
+
     public static class ChangeToReplaceModeCommand extends ChangeToInsertModeCommand {
     	@Override
     	public void execute(EditorAdaptor editorAdaptor, int count) throws CommandExecutionException {
@@ -66,13 +75,24 @@ public class ReplaceMode extends InsertMode {
         public void execute(EditorAdaptor editorAdaptor, int count)
                 throws CommandExecutionException {
             editorAdaptor.getHistory().beginCompoundChange();
-            TextContent modelContent = editorAdaptor.getModelContent();
-            String editorNewline = editorAdaptor.getConfiguration().getNewLine();
             String text = editorAdaptor.getRegisterManager().getLastEditRegister().getContent().getText();
             int pos = editorAdaptor.getPosition().getModelOffset();
             if(count == NO_COUNT_GIVEN) {
             	count = 1;
             }
+            overwrite(editorAdaptor, pos, text, count);
+            editorAdaptor.getHistory().endCompoundChange();
+        }
+
+        /**
+         * Overwrites the text at <code>pos</code> with <code>count</code>
+         * copies of <code>text</code>, stopping at line ends.
+         *
+         * @return the offset after the last copy.
+         */
+        static int overwrite(EditorAdaptor editorAdaptor, int pos, String text, int count) {
+            TextContent modelContent = editorAdaptor.getModelContent();
+            String editorNewline = editorAdaptor.getConfiguration().getNewLine();
             for(int j=0; j < count; j++) {
             	int start = 0;
             	for (int i = 0; i < text.length(); i++) {
@@ -91,12 +111,12 @@ public class ReplaceMode extends InsertMode {
             	String replace = text.substring(start);
             	replace(modelContent, pos, replace);
             	//prepare for next iteration if count defined
-            	pos += text.length();
+            	pos += replace.length();
             }
-            editorAdaptor.getHistory().endCompoundChange();
+            return pos;
         }
 
-        private void replace(TextContent modelContent, int pos, String replace) {
+        private static void replace(TextContent modelContent, int pos, String replace) {
             int length = replace.length();
             String toReplace = modelContent.getText(pos, length);
             for (int i = 0; i < length; i++) {
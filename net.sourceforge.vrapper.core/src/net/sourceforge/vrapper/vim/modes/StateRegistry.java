@@ -0,0 +1,66 @@
+package net.sourceforge.vrapper.vim.modes;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import net.sourceforge.vrapper.keymap.State;
+import net.sourceforge.vrapper.platform.PlatformSpecificStateProvider;
+import net.sourceforge.vrapper.vim.commands.Command;
+
+/**
+ * Key map states of the modes, shared by all editors.
+ * <p>
+ * The state graph of a mode only depends on the platform specific state
+ * provider of the editor, so it is built once per mode and provider and the
+ * immutable result is given to every editor. Different states may be built
+ * concurrently, a state is built only once.
+ */
+public class StateRegistry {
+
+    /** Builds the state of a mode, called at most once per key. */
+    public interface Builder {
+        State<Command> build();
+    }
+
+    private static final ConcurrentMap<String, Entry> states = new ConcurrentHashMap<String, Entry>();
+
+    private StateRegistry() { /* NOP */ }
+
+    public static State<Command> getState(String modeName, PlatformSpecificStateProvider provider, Builder builder) {
+        String key = modeName;
+        if (provider != null) {
+            key += " for " + provider.getName();
+        }
+        Entry entry = states.get(key);
+        if (entry == null) {
+            Entry created = new Entry();
+            entry = states.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+            }
+        }
+        synchronized (entry) {
+            if (entry.state == null) {
+                entry.state = builder.build();
+            }
+            return entry.state;
+        }
+    }
+
+    /**
+     * Builds the parts of the states which don't depend on a platform, so
+     * that opening the first editor doesn't have to. Meant to be called
+     * from a background thread when the plugin starts.
+     */
+    public static void prebuild() {
+        CommandBasedMode.motions();
+        NormalMode.textMotions();
+        NormalMode.textObjects();
+        NormalMode.delimitedTexts();
+    }
+
+    private static class Entry {
+        private State<Command> state;
+    }
+
+}
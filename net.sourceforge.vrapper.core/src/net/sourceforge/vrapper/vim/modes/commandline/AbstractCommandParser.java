@@ -6,6 +6,7 @@ import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.keymap.SpecialKey;
 import net.sourceforge.vrapper.platform.Platform;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
+import net.sourceforge.vrapper.vim.Options;
 import net.sourceforge.vrapper.vim.commands.Command;
 import net.sourceforge.vrapper.vim.modes.ExecuteCommandHint;
 import net.sourceforge.vrapper.vim.modes.NormalMode;
@@ -32,7 +33,7 @@ public abstract class AbstractCommandParser {
     protected static final KeyStroke KEY_TAB    = key(SpecialKey.TAB);
     protected final StringBuffer buffer;
     protected final EditorAdaptor editor;
-    private final CommandLineHistory history = CommandLineHistory.INSTANCE;
+    private final CommandLineHistory history = new CommandLineHistory();
     private final FilePathTabCompletion tabComplete;
     private boolean modified;
     private int position;
@@ -167,7 +168,7 @@ public abstract class AbstractCommandParser {
     private Command parseAndExecute() {
         String first = buffer.substring(0,1);
         String command = getCommand();
-        history.append(command);
+        history.append(command, editor.getConfiguration().get(Options.HISTORY));
         return parseAndExecute(first, command);
     }
 
@@ -1,27 +1,37 @@
 package net.sourceforge.vrapper.vim.modes.commandline;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import net.sourceforge.vrapper.vim.SessionStore;
+
 /**
  * Stores the command line history for each mode.
+ * <p>
+ * The history of a mode is kept in the {@link SessionStore}, if there is
+ * one, and read from it when the mode is used for the first time.
+ * <p>
+ * The histories are shared by all editors, which may run in different
+ * threads (see {@link net.sourceforge.vrapper.headless.BatchRunner}), and
+ * are accessed only while holding their lock. The position of the user in
+ * the history is kept by each command line in its own instance.
  */
 public class CommandLineHistory {
+	private static final String SECTION_PREFIX = "history ";
 	//history of commands for each command-line mode
-	private Map<String, ArrayList<String>> modeHistory = new HashMap<String, ArrayList<String>>();
+	private static final Map<String, LinkedHashMap<String, Boolean>> MODE_HISTORY = new HashMap<String, LinkedHashMap<String, Boolean>>();
 	//current index into history
 	private int index = -1;
 	//original text entered by user before scrolling through history
 	private String original;
-	//ordered list of previously-entered commands for the current Mode
-	private List<String> history;
-	
-	public static final CommandLineHistory INSTANCE = new CommandLineHistory();
-	
-	//singleton
-	private CommandLineHistory() { }
+	//previously-entered commands for the current Mode, oldest first
+	private LinkedHashMap<String, Boolean> history;
+	//section of the current Mode in the session store
+	private String section;
+	//the history most recent first, built when the user scrolls through it
+	private String[] entries;
 	
 	/**
 	 * We've changed modes.  Fetch the history for this mode.
@@ -29,24 +39,48 @@ public class CommandLineHistory {
 	 */
 	public void setMode(String modeName) {
 		index = -1;
-		if( ! modeHistory.containsKey(modeName)) {
-			modeHistory.put(modeName, new ArrayList<String>());
+		entries = null;
+		section = SECTION_PREFIX + modeName;
+		synchronized (MODE_HISTORY) {
+			history = MODE_HISTORY.get(modeName);
+			if (history == null) {
+				history = new LinkedHashMap<String, Boolean>();
+				SessionStore store = SessionStore.getInstance();
+				if (store != null) {
+					for (String command : store.getSection(section).keySet()) {
+						history.put(command, Boolean.TRUE);
+					}
+				}
+				MODE_HISTORY.put(modeName, history);
+			}
 		}
-		history = modeHistory.get(modeName);
 	}
 
 	/**
 	 * User has committed a command (hit 'enter').  Add it to the history.
 	 * @param command - command to add to history
+	 * @param size - number of commands to keep
 	 */
-	public void append(String command) {
-		//remove duplicates (if any)
-		if(history.contains(command)) {
+	public void append(String command, int size) {
+		SessionStore store = SessionStore.getInstance();
+		synchronized (history) {
+			//remove duplicates (if any)
 			history.remove(command);
+			history.put(command, Boolean.TRUE);
+			if (store != null) {
+				store.put(section, command, "");
+			}
+			Iterator<String> oldest = history.keySet().iterator();
+			while (history.size() > Math.max(size, 0)) {
+				String removed = oldest.next();
+				oldest.remove();
+				if (store != null) {
+					store.remove(section, removed);
+				}
+			}
 		}
-		
-		history.add(0, command);
 		index = -1;
+		entries = null;
 	}
 
 	/**
@@ -67,9 +101,10 @@ public class CommandLineHistory {
 	 * @return the command in the history or null if none found to match.
 	 */
 	public String getPrevious() {
+		String[] entries = entries();
 		String command;
-		for(int i=index+1; i < history.size(); i++) {
-			command = history.get(i);
+		for(int i=index+1; i < entries.length; i++) {
+			command = entries[i];
 			if(command.startsWith(original)) {
 				index = i;
 				return command;
@@ -85,9 +120,10 @@ public class CommandLineHistory {
 	 * found to match.
 	 */
 	public String getNext() {
+		String[] entries = entries();
 		String command;
 		for(int i=index-1; i > -1; i--) {
-			command = history.get(i);
+			command = entries[i];
 			if(command.startsWith(original)) {
 				index = i;
 				return command;
@@ -96,4 +132,17 @@ public class CommandLineHistory {
 		index = -1;
 		return original;
 	}
+
+	private String[] entries() {
+		if (entries == null) {
+			synchronized (history) {
+				entries = new String[history.size()];
+				int i = entries.length;
+				for (String command : history.keySet()) {
+					entries[--i] = command;
+				}
+			}
+		}
+		return entries;
+	}
 }
@@ -44,6 +44,7 @@ import net.sourceforge.vrapper.vim.modes.VisualMode;
 public class CommandLineParser extends AbstractCommandParser {
 
     private static final EvaluatorMapping mapping;
+    private static final EvaluatorMapping configMapping;
     static {
         Evaluator noremap = new KeyMapper.Map(false,
                 AbstractVisualMode.KEYMAP_NAME, NormalMode.KEYMAP_NAME);
@@ -133,7 +134,8 @@ public class CommandLineParser extends AbstractCommandParser {
         
         mapping = new EvaluatorMapping();
         // options
-        mapping.add("set", buildConfigEvaluator());
+        configMapping = buildConfigEvaluator();
+        mapping.add("set", configMapping);
         // save, close
         mapping.add("w", save);
         mapping.add("wq", saveAndClose);
@@ -196,7 +198,7 @@ public class CommandLineParser extends AbstractCommandParser {
         mapping.add("cd", chDir);
     }
 
-    private static Evaluator buildConfigEvaluator() {
+    private static EvaluatorMapping buildConfigEvaluator() {
         EvaluatorMapping config = new EvaluatorMapping(new ComplexOptionEvaluator());
         // boolean options
         for (Option<Boolean> o: Options.BOOLEAN_OPTIONS) {
@@ -321,6 +323,31 @@ public class CommandLineParser extends AbstractCommandParser {
     	return null;
     }
     
+    /**
+     * @return whether the command does nothing but set an option or change
+     *         a key map, so that its effect on one editor can be recorded and
+     *         given to other editors without executing it again.
+     */
+    public static boolean onlyChangesOptionsOrKeyMaps(String command) {
+        StringTokenizer nizer = new StringTokenizer(command);
+        if (!nizer.hasMoreTokens()) {
+            return true;
+        }
+        String name = nizer.nextToken();
+        if (mapping.get(name) instanceof KeyMapper) {
+            return true;
+        }
+        if (!"set".equals(name) || !nizer.hasMoreTokens()) {
+            return false;
+        }
+        String option = nizer.nextToken();
+        Evaluator evaluator = configMapping.get(option);
+        // the others print values or change the editor itself
+        return !option.endsWith("?")
+            && !(evaluator instanceof ConfigAction)
+            && !(evaluator instanceof OptionDependentEvaluator);
+    }
+
     public boolean addCommand(String commandName, Command command, boolean overwrite) {
         if (overwrite || !mapping.contains(commandName)) {
             mapping.add(commandName, command);
@@ -1,16 +1,17 @@
 package net.sourceforge.vrapper.vim.modes.commandline;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.sourceforge.vrapper.vim.EditorAdaptor;
 import net.sourceforge.vrapper.vim.commands.Command;
 
 public class EvaluatorMapping implements Evaluator {
 
-    private final Map<String, Evaluator> actions = new HashMap<String, Evaluator>();
+    // concurrent, as commands may be added while other editors evaluate
+    private final Map<String, Evaluator> actions = new ConcurrentHashMap<String, Evaluator>();
     private final Evaluator defaultCase;
 
     public EvaluatorMapping () {
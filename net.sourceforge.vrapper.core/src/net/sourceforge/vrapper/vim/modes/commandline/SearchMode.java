@@ -1,9 +1,13 @@
 package net.sourceforge.vrapper.vim.modes.commandline;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import net.sourceforge.vrapper.keymap.KeyMap;
 import net.sourceforge.vrapper.keymap.KeyStroke;
 import net.sourceforge.vrapper.platform.Configuration.Option;
 import net.sourceforge.vrapper.platform.KeyMapProvider;
+import net.sourceforge.vrapper.platform.Scheduler;
 import net.sourceforge.vrapper.platform.SearchAndReplaceService;
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.Search;
@@ -57,11 +61,34 @@ public class SearchMode extends AbstractCommandLineMode {
     public static final String NAME = "search mode";
     public static final String DISPLAY_NAME = "SEARCH";
 
+    /** Time without key strokes after which the incremental search runs. */
+    private static final int INC_SEARCH_DELAY = 60;
+    /** Number of incremental search results kept for backspacing. */
+    private static final int INC_SEARCH_CACHE_SIZE = 16;
+
     private boolean forward;
     private Position startPos;
     private int originalTopLine;
     private Command command;
     private SearchCommandParser searchParser;
+    private Search lastIncSearch;
+    private SearchResult lastIncSearchResult;
+    private final Map<String, SearchResult> incSearchCache = new LinkedHashMap<String, SearchResult>(
+            INC_SEARCH_CACHE_SIZE, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SearchResult> eldest) {
+            return size() > INC_SEARCH_CACHE_SIZE;
+        }
+    };
+    private final Runnable incSearchTask = new Runnable() {
+        public void run() {
+            if (isEnabled) {
+                doIncSearch();
+            }
+        }
+    };
 
     public SearchMode(EditorAdaptor editorAdaptor) {
         super(editorAdaptor);
@@ -78,6 +105,9 @@ public class SearchMode extends AbstractCommandLineMode {
         startPos = editorAdaptor.getCursorService().getPosition();
         originalTopLine = editorAdaptor.getViewportService().getViewPortInformation().getTopLine();
         searchParser = new SearchCommandParser(editorAdaptor, command);
+        lastIncSearch = null;
+        lastIncSearchResult = null;
+        incSearchCache.clear();
         super.enterMode(args);
     }
 
@@ -89,16 +119,26 @@ public class SearchMode extends AbstractCommandLineMode {
     @Override
     public boolean handleKey(KeyStroke stroke) {
         boolean incsearch = editorAdaptor.getConfiguration().get(Options.INCREMENTAL_SEARCH);
+        Scheduler scheduler = editorAdaptor.getService(Scheduler.class);
         if (incsearch &&
                 (stroke.equals(AbstractCommandParser.KEY_RETURN) ||
                     stroke.equals(AbstractCommandParser.KEY_ESCAPE) ||
                        stroke.equals(AbstractCommandParser.KEY_CTRL_C))) {
+                if (scheduler != null) {
+                    scheduler.cancel(incSearchTask);
+                }
                 resetIncSearch();
         }
         super.handleKey(stroke);
         if (incsearch && isEnabled) {
             // isEnabled == false indicates that super method ran a search and went to normal mode.
-            doIncSearch();
+            if (scheduler != null) {
+                // wait until the user stops typing, a later key stroke
+                // postpones the pending search
+                scheduler.schedule(incSearchTask, INC_SEARCH_DELAY);
+            } else {
+                doIncSearch();
+            }
         }
         return true;
     }
@@ -112,7 +152,20 @@ public class SearchMode extends AbstractCommandLineMode {
     private void doIncSearch() {
         String keyword = searchParser.getKeyWord();
         Search s = SearchCommandParser.createSearch(editorAdaptor, keyword, !forward, false, SearchOffset.NONE);
-        SearchResult res = VimUtils.wrapAroundSearch(editorAdaptor, s, startPos);
+        String cacheKey = cacheKey(s);
+        SearchResult res = incSearchCache.get(cacheKey);
+        if (res == null) {
+            if (extendsLastIncSearch(s)) {
+                // the first match of the longer keyword can't come before
+                // the first match of the shorter one
+                res = VimUtils.wrapAroundSearch(editorAdaptor, s, lastIncSearchResult.getStart());
+            } else {
+                res = VimUtils.wrapAroundSearch(editorAdaptor, s, startPos);
+            }
+            incSearchCache.put(cacheKey, res);
+        }
+        lastIncSearch = s;
+        lastIncSearchResult = res;
         if (res.isFound()) {
             if (editorAdaptor.getConfiguration().get(Options.SEARCH_HIGHLIGHT)) {
                 SearchAndReplaceService sars = editorAdaptor.getSearchAndReplaceService();
@@ -124,6 +177,38 @@ public class SearchMode extends AbstractCommandLineMode {
         }
     }
 
+    /**
+     * Whether every match of the search also is a match of the last
+     * incremental search, which is the case when a literal keyword has been
+     * extended. Only forward searches are resumed, a backward match of the
+     * longer keyword may end after the start position.
+     */
+    private boolean extendsLastIncSearch(Search s) {
+        if (lastIncSearch == null || !lastIncSearchResult.isFound() || s.isBackward()
+                || lastIncSearch.isRegExSearch() != s.isRegExSearch()
+                || (lastIncSearch.isCaseSensitive() && !s.isCaseSensitive())) {
+            return false;
+        }
+        String keyword = s.getKeyword();
+        String lastKeyword = lastIncSearch.getKeyword();
+        if (lastKeyword.length() == 0 || !keyword.startsWith(lastKeyword)) {
+            return false;
+        }
+        if (s.isRegExSearch()) {
+            for (int i = 0; i < keyword.length(); i++) {
+                char c = keyword.charAt(i);
+                if (!Character.isLetterOrDigit(c) && c != ' ' && c != '_') {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static String cacheKey(Search s) {
+        return (s.isCaseSensitive() ? 'c' : 'i') + (s.isRegExSearch() ? "r" : "l") + s.getKeyword();
+    }
+
     public KeyMap resolveKeyMap(KeyMapProvider provider) {
         return null;
     }
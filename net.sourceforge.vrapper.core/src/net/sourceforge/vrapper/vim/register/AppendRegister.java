@@ -1,6 +1,7 @@
 package net.sourceforge.vrapper.vim.register;
 
 import net.sourceforge.vrapper.utils.ContentType;
+import net.sourceforge.vrapper.utils.TextRope;
 import net.sourceforge.vrapper.vim.VimConstants;
 
 public class AppendRegister implements Register {
@@ -29,17 +30,16 @@ public class AppendRegister implements Register {
         	type = ContentType.LINES;
 		else
 			type = ContentType.TEXT;
-        StringBuilder sb = new StringBuilder();
-        
-        sb.append(oldContent.getText());
+        // the ropes share the text of both contents
+        TextRope text = TextRope.valueOf(oldContent.getCharSequence());
         if (oldType != ContentType.LINES && type == ContentType.LINES)
-            sb.append(newline);
+            text = text.concat(newline);
         
-        sb.append(content.getText());
+        text = text.concat(content.getCharSequence());
         if (appendedType != ContentType.LINES && type == ContentType.LINES)
-            sb.append(newline);
+            text = text.concat(newline);
         
-        RegisterContent newContent = new StringRegisterContent(type, sb.toString());
+        RegisterContent newContent = new RopeRegisterContent(type, text);
         delegate.setContent(newContent);
     }
 
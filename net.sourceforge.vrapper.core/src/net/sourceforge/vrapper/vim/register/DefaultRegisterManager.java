@@ -6,6 +6,7 @@ import java.util.Map;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.PositionlessSelection;
 import net.sourceforge.vrapper.utils.Search;
+import net.sourceforge.vrapper.vim.SessionStore;
 import net.sourceforge.vrapper.vim.commands.Command;
 import net.sourceforge.vrapper.vim.commands.TextOperation;
 import net.sourceforge.vrapper.vim.commands.motions.FindMotion;
@@ -78,7 +79,12 @@ public class DefaultRegisterManager implements RegisterManager {
     public Register getRegister(String name) {
         String key = name.toLowerCase();
         if (!registers.containsKey(key)) {
-            registers.put(key, new NamedRegister(defaultRegister));
+            SessionStore store = SessionStore.getInstance();
+            if (store != null && isLetter(key)) {
+                registers.put(key, new StoredRegister(defaultRegister, key, store));
+            } else {
+                registers.put(key, new NamedRegister(defaultRegister));
+            }
         }
         Register r = registers.get(key);
         if (!name.equals(key)) {
@@ -87,6 +93,10 @@ public class DefaultRegisterManager implements RegisterManager {
         return r;
     }
 
+    private static boolean isLetter(String name) {
+        return name.length() == 1 && name.charAt(0) >= 'a' && name.charAt(0) <= 'z';
+    }
+
     public Register getDefaultRegister() {
         return defaultRegister;
     }
@@ -7,4 +7,11 @@ public interface RegisterContent {
 
 	ContentType getPayloadType();
 	String getText();
+
+	/**
+	 * @return the text, without turning it into a single String if it is
+	 *         large. Use it instead of {@link #getText()} to read or insert
+	 *         the text.
+	 */
+	CharSequence getCharSequence();
 }
@@ -0,0 +1,33 @@
+package net.sourceforge.vrapper.vim.register;
+
+import net.sourceforge.vrapper.utils.ContentType;
+import net.sourceforge.vrapper.utils.TextRope;
+
+/**
+ * Register content of yanked or deleted text, held as a {@link TextRope} so
+ * that large ranges are neither copied into a single String nor copied again
+ * when appended to.
+ */
+public class RopeRegisterContent implements RegisterContent {
+
+    private final ContentType contentType;
+    private final TextRope text;
+
+    public RopeRegisterContent(ContentType contentType, TextRope text) {
+        this.contentType = contentType;
+        this.text = text;
+    }
+
+    public ContentType getPayloadType() {
+        return contentType;
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+
+    public CharSequence getCharSequence() {
+        return text;
+    }
+
+}
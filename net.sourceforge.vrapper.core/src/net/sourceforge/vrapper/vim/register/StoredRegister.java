@@ -0,0 +1,63 @@
+package net.sourceforge.vrapper.vim.register;
+
+import net.sourceforge.vrapper.utils.ContentType;
+import net.sourceforge.vrapper.vim.SessionStore;
+
+/**
+ * Named register whose content is kept in the {@link SessionStore}. The
+ * stored content is read when the register is used for the first time.
+ */
+public class StoredRegister extends NamedRegister {
+
+    private static final String SECTION = "registers";
+    /** larger contents are not kept, like with the default 's10' of viminfo */
+    private static final int MAX_STORED_LENGTH = 10 * 1024;
+
+    private final String name;
+    private final SessionStore store;
+    private boolean loaded;
+    private RegisterContent restored;
+
+    public StoredRegister(Register unnamed, String name, SessionStore store) {
+        super(unnamed);
+        this.name = name;
+        this.store = store;
+    }
+
+    @Override
+    public RegisterContent getContent() {
+        if (!loaded) {
+            loaded = true;
+            restored = read();
+        }
+        return restored != null ? restored : super.getContent();
+    }
+
+    @Override
+    public void setContent(RegisterContent content) {
+        loaded = true;
+        restored = null;
+        super.setContent(content);
+        if (content.getCharSequence().length() > MAX_STORED_LENGTH) {
+            store.remove(SECTION, name);
+        } else {
+            store.put(SECTION, name, content.getPayloadType().name() + ' ' + content.getText());
+        }
+    }
+
+    private RegisterContent read() {
+        String stored = store.get(SECTION, name);
+        if (stored == null) {
+            return null;
+        }
+        int separator = stored.indexOf(' ');
+        try {
+            ContentType type = ContentType.valueOf(stored.substring(0, separator));
+            return new StringRegisterContent(type, stored.substring(separator + 1));
+        } catch (RuntimeException e) {
+            // not written by this version
+            return null;
+        }
+    }
+
+}
@@ -24,4 +24,8 @@ public class StringRegisterContent implements RegisterContent {
         return payload;
     }
 
+    public CharSequence getCharSequence() {
+        return payload;
+    }
+
 }
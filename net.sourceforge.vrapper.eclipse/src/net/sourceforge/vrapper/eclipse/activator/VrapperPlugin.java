@@ -1,14 +1,20 @@
 package net.sourceforge.vrapper.eclipse.activator;
 
+import java.io.File;
+
 import net.sourceforge.vrapper.eclipse.interceptor.InputInterceptor;
 import net.sourceforge.vrapper.eclipse.interceptor.InputInterceptorManager;
 import net.sourceforge.vrapper.log.Log;
 import net.sourceforge.vrapper.log.VrapperLog;
 import net.sourceforge.vrapper.vim.EditorAdaptor;
+import net.sourceforge.vrapper.vim.SessionStore;
+import net.sourceforge.vrapper.vim.modes.StateRegistry;
 
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.core.runtime.preferences.InstanceScope;
@@ -43,6 +49,8 @@ public class VrapperPlugin extends AbstractUIPlugin implements IStartup, Log {
 
     private static final String KEY_VRAPPER_ENABLED = "vrapperEnabled";
 
+    private static final String SESSION_FILE_NAME = "vrapperinfo";
+
     private static final String COMMAND_TOGGLE_VRAPPER = "net.sourceforge.vrapper.eclipse.commands.toggle";
     
     private static final IPreferencesService PREFERENCES_SERVICE = Platform.getPreferencesService();
@@ -65,6 +73,19 @@ public class VrapperPlugin extends AbstractUIPlugin implements IStartup, Log {
         super.start(context);
         plugin = this;
         VrapperLog.setImplementation(this);
+        // read when it is used for the first time
+        SessionStore.setInstance(new SessionStore(
+                new File(getStateLocation().toFile(), SESSION_FILE_NAME)));
+        // key maps are shared by all editors, build them before the first one opens
+        Job prebuildStates = new Job("Building Vrapper key maps") {
+            @Override
+            protected IStatus run(IProgressMonitor monitor) {
+                StateRegistry.prebuild();
+                return Status.OK_STATUS;
+            }
+        };
+        prebuildStates.setSystem(true);
+        prebuildStates.schedule();
         getWorkbench().getDisplay().asyncExec(new Runnable() {
             public void run() {
                 restoreVimEmulationInActiveEditors();
@@ -85,6 +106,11 @@ public class VrapperPlugin extends AbstractUIPlugin implements IStartup, Log {
     @Override
     public void stop(BundleContext context) throws Exception {
         preShutdown();
+        SessionStore store = SessionStore.getInstance();
+        if (store != null) {
+            store.flush();
+            SessionStore.setInstance(null);
+        }
         plugin = null;
         VrapperLog.setImplementation(null);
         super.stop(context);
@@ -1,8 +1,9 @@
 
 package net.sourceforge.vrapper.eclipse.interceptor;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
 
 import net.sourceforge.vrapper.eclipse.activator.VrapperPlugin;
 import net.sourceforge.vrapper.eclipse.platform.EclipsePlatform;
@@ -42,41 +43,62 @@ public class VimInputInterceptorFactory implements InputInterceptorFactory {
 
     public static final VimInputInterceptorFactory INSTANCE = new VimInputInterceptorFactory();
 
-    private static final HashMap<Integer, SpecialKey> specialKeys;
-    private static final HashMap<Character, SpecialKey> specialChars;
-    private static final HashSet<Integer> ignoredKeyCodes;
+    /*
+     * Key codes are looked up with a binary search over sorted primitive
+     * arrays, so translating a key event allocates nothing but the event.
+     */
+    private static final int[] specialKeyCodes;
+    private static final SpecialKey[] specialKeys;
+    private static final int[] ignoredKeyCodes;
     static {
-        specialKeys = new HashMap<Integer, SpecialKey>();
-        specialKeys.put( SWT.ARROW_LEFT,         SpecialKey.ARROW_LEFT);
-        specialKeys.put( SWT.ARROW_RIGHT,        SpecialKey.ARROW_RIGHT);
-        specialKeys.put( SWT.ARROW_UP,           SpecialKey.ARROW_UP);
-        specialKeys.put( SWT.ARROW_DOWN,         SpecialKey.ARROW_DOWN);
-        specialKeys.put( (int)SWT.BS,            SpecialKey.BACKSPACE);
-        specialKeys.put( (int)SWT.DEL,           SpecialKey.DELETE);
-        specialKeys.put( (int)SWT.TAB,           SpecialKey.TAB);
-        specialKeys.put( SWT.INSERT,             SpecialKey.INSERT);
-        specialKeys.put( SWT.PAGE_DOWN,          SpecialKey.PAGE_DOWN);
-        specialKeys.put( SWT.PAGE_UP,            SpecialKey.PAGE_UP);
-        specialKeys.put( SWT.HOME,               SpecialKey.HOME);
-        specialKeys.put( SWT.END,                SpecialKey.END);
+        TreeMap<Integer, SpecialKey> codes = new TreeMap<Integer, SpecialKey>();
+        codes.put( SWT.ARROW_LEFT,         SpecialKey.ARROW_LEFT);
+        codes.put( SWT.ARROW_RIGHT,        SpecialKey.ARROW_RIGHT);
+        codes.put( SWT.ARROW_UP,           SpecialKey.ARROW_UP);
+        codes.put( SWT.ARROW_DOWN,         SpecialKey.ARROW_DOWN);
+        codes.put( (int)SWT.BS,            SpecialKey.BACKSPACE);
+        codes.put( (int)SWT.DEL,           SpecialKey.DELETE);
+        codes.put( (int)SWT.TAB,           SpecialKey.TAB);
+        codes.put( SWT.INSERT,             SpecialKey.INSERT);
+        codes.put( SWT.PAGE_DOWN,          SpecialKey.PAGE_DOWN);
+        codes.put( SWT.PAGE_UP,            SpecialKey.PAGE_UP);
+        codes.put( SWT.HOME,               SpecialKey.HOME);
+        codes.put( SWT.END,                SpecialKey.END);
         
         SpecialKey[] values = SpecialKey.values();
         int swtStart = SWT.F1;
         int skStart = SpecialKey.F1.ordinal();
         //SWT has up to F20
         for (int i=0; i < 20; ++i)
-        	specialKeys.put(swtStart+i, values[skStart+i]);
-
-        specialChars = new HashMap<Character, SpecialKey>();
-        specialChars.put(Character.valueOf('\n'), SpecialKey.RETURN);
-        specialChars.put(Character.valueOf('\r'), SpecialKey.RETURN);
-        specialChars.put(Character.valueOf('\u001B'), SpecialKey.ESC);
-
-        ignoredKeyCodes = new HashSet<Integer>();
-        ignoredKeyCodes.add(SWT.CTRL);
-        ignoredKeyCodes.add(SWT.SHIFT);
-        ignoredKeyCodes.add(SWT.ALT);
-        ignoredKeyCodes.add(SWT.CAPS_LOCK);
+        	codes.put(swtStart+i, values[skStart+i]);
+
+        specialKeyCodes = new int[codes.size()];
+        specialKeys = new SpecialKey[codes.size()];
+        int i = 0;
+        for (Map.Entry<Integer, SpecialKey> entry: codes.entrySet()) {
+            specialKeyCodes[i] = entry.getKey();
+            specialKeys[i] = entry.getValue();
+            i++;
+        }
+
+        ignoredKeyCodes = new int[] { SWT.CTRL, SWT.SHIFT, SWT.ALT, SWT.CAPS_LOCK };
+        Arrays.sort(ignoredKeyCodes);
+    }
+
+    private static KeyStroke toKeyStroke(int keyCode, char character) {
+        int i = Arrays.binarySearch(specialKeyCodes, keyCode);
+        if (i >= 0) {
+            return SimpleKeyStroke.of(specialKeys[i]);
+        }
+        switch (character) {
+        case '\n':
+        case '\r':
+            return SimpleKeyStroke.of(SpecialKey.RETURN);
+        case '\u001B':
+            return SimpleKeyStroke.of(SpecialKey.ESC);
+        default:
+            return SimpleKeyStroke.of(character);
+        }
     }
 
 
@@ -102,17 +124,10 @@ public class VimInputInterceptorFactory implements InputInterceptorFactory {
             if (!VrapperPlugin.isVrapperEnabled()) {
                 return;
             }
-            if (ignoredKeyCodes.contains(event.keyCode)) {
+            if (Arrays.binarySearch(ignoredKeyCodes, event.keyCode) >= 0) {
                 return;
             }
-            KeyStroke keyStroke;
-            if(specialKeys.containsKey(event.keyCode)) {
-                keyStroke = new SimpleKeyStroke(specialKeys.get(event.keyCode));
-            } else if (specialChars.containsKey(event.character)) {
-                keyStroke = new SimpleKeyStroke(specialChars.get(event.character));
-            } else {
-                keyStroke = new SimpleKeyStroke(event.character);
-            }
+            KeyStroke keyStroke = toKeyStroke(event.keyCode, event.character);
             event.doit = !editorAdaptor.handleKey(keyStroke);
         }
 
@@ -1,19 +1,21 @@
 package net.sourceforge.vrapper.eclipse.platform;
 
-import java.util.HashMap;
 import java.util.Map;
 
 import net.sourceforge.vrapper.eclipse.ui.CaretUtils;
 import net.sourceforge.vrapper.platform.Configuration;
 import net.sourceforge.vrapper.platform.CursorService;
 import net.sourceforge.vrapper.platform.SelectionService;
+import net.sourceforge.vrapper.platform.TextContentListener;
 import net.sourceforge.vrapper.utils.CaretType;
 import net.sourceforge.vrapper.utils.ContentType;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.Space;
 import net.sourceforge.vrapper.utils.StartEndTextRange;
+import net.sourceforge.vrapper.utils.TrackedMarks;
 import net.sourceforge.vrapper.utils.VimUtils;
+import net.sourceforge.vrapper.vim.SessionStore;
 import net.sourceforge.vrapper.vim.commands.Selection;
 import net.sourceforge.vrapper.vim.commands.SimpleSelection;
 
@@ -24,6 +26,8 @@ import org.eclipse.jface.text.ITextViewerExtension5;
 import org.eclipse.swt.custom.CaretEvent;
 import org.eclipse.swt.custom.CaretListener;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 import org.eclipse.swt.events.SelectionEvent;
 import org.eclipse.swt.events.SelectionListener;
 import org.eclipse.swt.graphics.Point;
@@ -39,19 +43,57 @@ public class EclipseCursorAndSelection implements CursorService, SelectionServic
     private Selection selection;
     private final SelectionChangeListener selectionChangeListener;
     private final StickyColumnUpdater caretListener;
-    private final Map<String, org.eclipse.jface.text.Position> marks;
+    private final TrackedMarks marks;
     private final Configuration configuration;
     private final EclipseTextContent textContent;
+    private final UIUpdateCoalescer coalescer;
+    /** section of the marks of this file in the session store */
+    private final String markSection;
+    private boolean storedMarksRead;
+    /** reads the stored marks before the first modification, which moves them */
+    private final TextContentListener firstChangeListener = new TextContentListener() {
+        public void textChanged(int offset, int removedLength, int insertedLength) {
+            readStoredMarks(removedLength - insertedLength);
+        }
+    };
+    private CaretType caretType;
+    private final Runnable caretUpdate = new Runnable() {
+        public void run() {
+            StyledText styledText = textViewer.getTextWidget();
+            if (styledText == null || styledText.isDisposed()) {
+                return;
+            }
+            Caret old = styledText.getCaret();
+            styledText.setCaret(CaretUtils.createCaret(caretType, styledText));
+            // old caret is not disposed automatically
+            old.dispose();
+        }
+    };
 
 	public EclipseCursorAndSelection(Configuration configuration,
-			ITextViewer textViewer, EclipseTextContent textContent) {
+			ITextViewer textViewer, EclipseTextContent textContent,
+			UIUpdateCoalescer coalescer, String markSection) {
         this.configuration = configuration;
+        this.coalescer = coalescer;
+        this.markSection = markSection;
         this.textViewer = textViewer;
         this.textContent = textContent;
         converter = OffsetConverter.create(textViewer);
         selectionChangeListener = new SelectionChangeListener();
         caretListener = new StickyColumnUpdater();
-        marks = new HashMap<String, org.eclipse.jface.text.Position>();
+        marks = new TrackedMarks();
+        SessionStore store = SessionStore.getInstance();
+        if (store != null && markSection != null) {
+            // not read here, opening an editor must not wait for the file
+            store.preload();
+            textContent.getModelContent().addTextContentListener(firstChangeListener);
+        }
+        textContent.getModelContent().addTextContentListener(marks);
+        textViewer.getTextWidget().addDisposeListener(new DisposeListener() {
+            public void widgetDisposed(DisposeEvent e) {
+                storeMarks();
+            }
+        });
         textViewer.getTextWidget().addSelectionListener(selectionChangeListener);
         textViewer.getTextWidget().addCaretListener(caretListener);
         textViewer.getDocument().addPositionCategory(POSITION_CATEGORY_NAME);
@@ -194,11 +236,8 @@ public class EclipseCursorAndSelection implements CursorService, SelectionServic
     }
 
     public void setCaret(CaretType caretType) {
-        StyledText styledText = textViewer.getTextWidget();
-        Caret old = styledText.getCaret();
-        styledText.setCaret(CaretUtils.createCaret(caretType, styledText));
-        // old caret is not disposed automatically
-        old.dispose();
+        this.caretType = caretType;
+        coalescer.update(caretUpdate, caretUpdate);
     }
 
     public void stickToEOL() {
@@ -254,18 +293,91 @@ public class EclipseCursorAndSelection implements CursorService, SelectionServic
     }
 
     public void setMark(String id, Position position) {
-        org.eclipse.jface.text.Position p = new org.eclipse.jface.text.Position(position.getModelOffset());
-        marks.put(id, p);
+        if (isStored(id)) {
+            readStoredMarks(0);
+        }
+        int offset = position.getModelOffset();
+        marks.set(id, offset);
+        SessionStore store = SessionStore.getInstance();
+        if (store != null && isStored(id)) {
+            store.put(markSection, id, String.valueOf(offset));
+        }
     }
 
     public Position getMark(String id) {
-        org.eclipse.jface.text.Position p = marks.get(id);
-        if (p == null || p.isDeleted) {
+        if (isStored(id)) {
+            readStoredMarks(0);
+        }
+        int offset = marks.get(id);
+        if (offset < 0 || marks.isDeleted(id)) {
             marks.remove(id);
+            SessionStore store = SessionStore.getInstance();
+            if (store != null && isStored(id)) {
+                // or the next lookup would read the stale offset again
+                store.remove(markSection, id);
+            }
             return null;
         }
-        int offset = p.getOffset();
         return newPositionForModelOffset(offset);
     }
 
+    private boolean isStored(String id) {
+        return markSection != null && id.length() == 1 && Character.isLetter(id.charAt(0));
+    }
+
+    /**
+     * Writes the offsets of the marks back to the session store, as they
+     * have followed the modifications since they were set.
+     */
+    private void storeMarks() {
+        textContent.getModelContent().removeTextContentListener(firstChangeListener);
+        textContent.getModelContent().removeTextContentListener(marks);
+        SessionStore store = SessionStore.getInstance();
+        if (store == null || !storedMarksRead) {
+            // neither used nor moved
+            return;
+        }
+        for (String id : marks.getNames()) {
+            if (!isStored(id)) {
+                continue;
+            }
+            if (marks.isDeleted(id)) {
+                store.remove(markSection, id);
+                continue;
+            }
+            String offset = String.valueOf(marks.get(id));
+            if (!offset.equals(store.get(markSection, id))) {
+                store.put(markSection, id, offset);
+            }
+        }
+    }
+
+    /**
+     * Starts tracking the marks stored in an earlier session, on the first
+     * use of a letter mark or before the first modification.
+     *
+     * @param delta how much longer the text was before a modification
+     *        which has just been made
+     */
+    private void readStoredMarks(int delta) {
+        if (storedMarksRead) {
+            return;
+        }
+        storedMarksRead = true;
+        textContent.getModelContent().removeTextContentListener(firstChangeListener);
+        SessionStore store = SessionStore.getInstance();
+        if (store == null || markSection == null) {
+            return;
+        }
+        int textLength = textContent.getModelContent().getTextLength() + delta;
+        for (Map.Entry<String, String> stored : store.getSection(markSection).entrySet()) {
+            try {
+                // the file may have changed since then
+                marks.set(stored.getKey(), Math.min(Integer.parseInt(stored.getValue()), textLength));
+            } catch (NumberFormatException e) {
+                store.remove(markSection, stored.getKey());
+            }
+        }
+    }
+
 }
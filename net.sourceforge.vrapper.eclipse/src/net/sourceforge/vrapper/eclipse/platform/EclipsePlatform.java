@@ -29,6 +29,9 @@ import org.eclipse.core.runtime.IExtensionRegistry;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.ITextViewerExtension6;
 import org.eclipse.jface.text.IUndoManager;
+import org.eclipse.ui.IEditorInput;
+import org.eclipse.ui.IFileEditorInput;
+import org.eclipse.ui.IPathEditorInput;
 import org.eclipse.ui.texteditor.AbstractTextEditor;
 
 public class EclipsePlatform implements Platform {
@@ -52,17 +55,20 @@ public class EclipsePlatform implements Platform {
         underlyingEditor = abstractTextEditor;
         configuration = sharedConfiguration;
         textContent = new EclipseTextContent(textViewer);
+        UIUpdateCoalescer coalescer = new UIUpdateCoalescer(
+                textViewer.getTextWidget().getDisplay());
         cursorAndSelection = new EclipseCursorAndSelection(configuration,
-                textViewer, textContent);
+                textViewer, textContent, coalescer,
+                markSection(abstractTextEditor.getEditorInput()));
         fileService = new EclipseFileService(abstractTextEditor);
         viewportService = new EclipseViewportService(textViewer);
         serviceProvider = new EclipseServiceProvider(abstractTextEditor);
         userInterfaceService = new EclipseUserInterfaceService(
-                abstractTextEditor, textViewer);
-        keyMapProvider = new DefaultKeyMapProvider();
+                abstractTextEditor, textViewer, coalescer);
+        keyMapProvider = DefaultKeyMapProvider.GLOBAL;
         underlyingEditorSettings = new AbstractTextEditorSettings(
                 abstractTextEditor);
-        searchAndReplaceService = new EclipseSearchAndReplaceService(abstractTextEditor, textViewer);
+        searchAndReplaceService = new EclipseSearchAndReplaceService(abstractTextEditor, textViewer, viewportService);
         if (textViewer instanceof ITextViewerExtension6) {
             IUndoManager delegate = ((ITextViewerExtension6) textViewer)
                     .getUndoManager();
@@ -125,16 +131,32 @@ public class EclipsePlatform implements Platform {
 
     public PlatformSpecificStateProvider getPlatformSpecificStateProvider() {
         String className = underlyingEditor.getClass().getName();
-        if (!providerCache.containsKey(className)) {
-            providerCache.put(className, buildPlatformSpecificStateProvider());
+        synchronized (providerCache) {
+            if (!providerCache.containsKey(className)) {
+                providerCache.put(className, buildPlatformSpecificStateProvider());
+            }
+            return providerCache.get(className);
         }
-        return providerCache.get(className);
     }
 
     public SearchAndReplaceService getSearchAndReplaceService() {
         return searchAndReplaceService;
     }
 
+    /**
+     * @return section of the session store for the marks of the edited file,
+     *         or <code>null</code> if the input isn't a file.
+     */
+    private static String markSection(IEditorInput input) {
+        if (input instanceof IFileEditorInput) {
+            return "marks " + ((IFileEditorInput) input).getFile().getFullPath();
+        }
+        if (input instanceof IPathEditorInput) {
+            return "marks " + ((IPathEditorInput) input).getPath();
+        }
+        return null;
+    }
+
     private PlatformSpecificStateProvider buildPlatformSpecificStateProvider() {
         IExtensionRegistry registry = org.eclipse.core.runtime.Platform
                 .getExtensionRegistry();
@@ -0,0 +1,31 @@
+package net.sourceforge.vrapper.eclipse.platform;
+
+import net.sourceforge.vrapper.platform.Scheduler;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Runs tasks in the UI thread using the timers of the {@link Display}, which
+ * already reschedule a runnable that is still pending.
+ */
+public class EclipseScheduler implements Scheduler {
+
+    private final Display display;
+
+    public EclipseScheduler(Display display) {
+        this.display = display;
+    }
+
+    public void schedule(Runnable task, int delayMillis) {
+        if (!display.isDisposed()) {
+            display.timerExec(delayMillis, task);
+        }
+    }
+
+    public void cancel(Runnable task) {
+        if (!display.isDisposed()) {
+            display.timerExec(-1, task);
+        }
+    }
+
+}
@@ -1,39 +1,93 @@
 package net.sourceforge.vrapper.eclipse.platform;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import net.sourceforge.vrapper.log.VrapperLog;
 import net.sourceforge.vrapper.platform.SearchAndReplaceService;
+import net.sourceforge.vrapper.platform.ViewportService;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Position;
 import net.sourceforge.vrapper.utils.Search;
 import net.sourceforge.vrapper.utils.SearchResult;
+import net.sourceforge.vrapper.utils.ViewPortInformation;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.FindReplaceDocumentAdapter;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITextViewer;
-import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.ui.texteditor.AbstractTextEditor;
 import org.eclipse.ui.texteditor.IDocumentProvider;
 
 public class EclipseSearchAndReplaceService implements SearchAndReplaceService {
 
     private static final String ANNOTATION_TYPE = "net.sourceforge.vrapper.eclipse.searchhighlight";
+    /** Number of matches the highlight job adds at once. */
+    private static final int BATCH_SIZE = 500;
+    /**
+     * Milliseconds the document must stay unmodified before outdated
+     * highlighting is searched again.
+     */
+    private static final int REFRESH_DELAY = 500;
+    /**
+     * Number of characters below the visible lines which are searched right
+     * away for the end of a visible match.
+     */
+    private static final int VISIBLE_MATCH_OVERHANG = 1024;
     private final AbstractTextEditor editor;
+    private final ITextViewer textViewer;
+    private final ViewportService viewportService;
     private final FindReplaceDocumentAdapter adapter;
     private Search lastHighlightedSearch;
     private List<Annotation> annotations;
     private Annotation incSearchAnnotation;
+    private HighlightJob highlightJob;
+    /** Incremented whenever highlighting is removed, outdates pending batches. */
+    private int generation;
+    /** modification stamp of the document when a refresh was last scheduled */
+    private long refreshStamp;
+    private final Runnable refresh = new Runnable() {
+        public void run() {
+            StyledText widget = textViewer.getTextWidget();
+            Search search = lastHighlightedSearch;
+            if (search == null || widget == null || widget.isDisposed()) {
+                return;
+            }
+            long stamp = getModificationStamp(textViewer.getDocument());
+            if (stamp != refreshStamp) {
+                // still being modified, wait until it stays the same
+                scheduleRefresh(widget);
+                return;
+            }
+            removeHighlighting();
+            highlight(search);
+        }
+    };
 
-    public EclipseSearchAndReplaceService(AbstractTextEditor editor, ITextViewer textViewer) {
+    public EclipseSearchAndReplaceService(AbstractTextEditor editor, ITextViewer textViewer,
+            ViewportService viewportService) {
         this.editor = editor;
+        this.textViewer = textViewer;
+        this.viewportService = viewportService;
         this.adapter = new FindReplaceDocumentAdapter(textViewer.getDocument());
-        this.annotations = Collections.emptyList();
+        this.annotations = new ArrayList<Annotation>();
     }
 
     public SearchResult find(Search search, Position start) {
@@ -99,16 +153,30 @@ public class EclipseSearchAndReplaceService implements SearchAndReplaceService {
 
     public void removeHighlighting() {
         lastHighlightedSearch = null;
+        generation++;
+        if (highlightJob != null) {
+            highlightJob.cancel();
+            highlightJob = null;
+        }
         IAnnotationModel m = getAnnotationModel();
-        if (m != null) {
-            for (Annotation a : annotations) {
-                m.removeAnnotation(a);
+        if (m != null && !annotations.isEmpty()) {
+            if (m instanceof IAnnotationModelExtension) {
+                ((IAnnotationModelExtension) m).replaceAnnotations(
+                        annotations.toArray(new Annotation[annotations.size()]), null);
+            } else {
+                for (Annotation a : annotations) {
+                    m.removeAnnotation(a);
+                }
             }
         }
-        annotations = Collections.emptyList();
+        annotations = new ArrayList<Annotation>();
     }
 
-
+    /**
+     * Highlights the matches in the visible lines right away, the rest of the
+     * document is searched by a background job which adds the annotations in
+     * batches.
+     */
     public void highlight(Search search) {
 
         if (lastHighlightedSearch != null && lastHighlightedSearch.getKeyword().equals(search.getKeyword())
@@ -124,19 +192,185 @@ public class EclipseSearchAndReplaceService implements SearchAndReplaceService {
         if (search.isBackward()) {
             search = search.reverse();
         }
-        IRegion result = new Region(0, 0);
-        annotations = new ArrayList<Annotation>();
+        Pattern pattern;
+        try {
+            pattern = compile(search);
+        } catch (PatternSyntaxException e) {
+            return;
+        }
         lastHighlightedSearch = search;
+        IDocument document = textViewer.getDocument();
+        // the job searches a copy, so it doesn't have to lock the document
+        String text = document.get();
+        int visibleStart = 0;
+        int visibleEnd = 0;
         try {
-            while ((result = find(search, result.getOffset()+result.getLength())) != null) {
-                Annotation a = new Annotation(ANNOTATION_TYPE, false, "Vrapper Search");
-                am.addAnnotation(a, new org.eclipse.jface.text.Position(result.getOffset(), result.getLength()));
-                annotations.add(a);
-            }
+            ViewPortInformation view = viewportService.getViewPortInformation();
+            int topLine = viewportService.viewLine2ModelLine(view.getTopLine());
+            int bottomLine = viewportService.viewLine2ModelLine(view.getBottomLine());
+            visibleStart = document.getLineOffset(topLine);
+            IRegion lastLine = document.getLineInformation(bottomLine);
+            visibleEnd = lastLine.getOffset() + lastLine.getLength();
         } catch (BadLocationException e) {
             VrapperLog.error("while highlighting search", e);
         }
+        Map<Annotation, org.eclipse.jface.text.Position> visible = new HashMap<Annotation, org.eclipse.jface.text.Position>();
+        Set<Long> visibleSpans = new HashSet<Long>();
+        Matcher matcher = pattern.matcher(text);
+        matcher.useTransparentBounds(true).useAnchoringBounds(false);
+        // a match starting in the visible lines may end a bit below them
+        int regionEnd = (int) Math.min(text.length(), (long) visibleEnd + VISIBLE_MATCH_OVERHANG);
+        matcher.region(visibleStart, regionEnd);
+        while (matcher.find() && matcher.start() < visibleEnd) {
+            if (matcher.hitEnd() && regionEnd < text.length()) {
+                // it might go on after the region, the job will find it
+                break;
+            }
+            addMatch(visible, matcher);
+            visibleSpans.add(span(matcher));
+        }
+        addAnnotations(am, visible);
+        if (visibleStart > 0 || visibleEnd < text.length()) {
+            highlightJob = new HighlightJob(generation, getModificationStamp(document), pattern, text,
+                    visibleSpans);
+            highlightJob.schedule();
+        }
+    }
+
+    private void addAnnotations(IAnnotationModel am, Map<Annotation, org.eclipse.jface.text.Position> batch) {
+        if (am instanceof IAnnotationModelExtension) {
+            ((IAnnotationModelExtension) am).replaceAnnotations(null, batch);
+        } else {
+            for (Map.Entry<Annotation, org.eclipse.jface.text.Position> entry : batch.entrySet()) {
+                am.addAnnotation(entry.getKey(), entry.getValue());
+            }
+        }
+        annotations.addAll(batch.keySet());
+    }
+
+    private static void addMatch(Map<Annotation, org.eclipse.jface.text.Position> batch, Matcher matcher) {
+        Annotation a = new Annotation(ANNOTATION_TYPE, false, "Vrapper Search");
+        batch.put(a, new org.eclipse.jface.text.Position(matcher.start(), matcher.end() - matcher.start()));
+    }
+
+    /** @return start and end of the match in one value. */
+    private static long span(Matcher matcher) {
+        return (long) matcher.start() << 32 | matcher.end();
+    }
+
+    /**
+     * Searches again once the document stays unmodified for
+     * {@link #REFRESH_DELAY}, so the whole document isn't copied and searched
+     * after every keystroke.
+     */
+    private void scheduleRefresh(StyledText widget) {
+        refreshStamp = getModificationStamp(textViewer.getDocument());
+        // replaces the pending refresh, if any
+        widget.getDisplay().timerExec(REFRESH_DELAY, refresh);
+    }
+
+    /**
+     * Compiles the search the way {@link FindReplaceDocumentAdapter} does.
+     */
+    private static Pattern compile(Search search) {
+        String regex = search.isRegExSearch() ? search.getKeyword() : Pattern.quote(search.getKeyword());
+        if (search.isWholeWord()) {
+            regex = "\\b" + regex + "\\b";
+        }
+        int flags = Pattern.MULTILINE;
+        if (!search.isCaseSensitive()) {
+            flags |= Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        return Pattern.compile(regex, flags);
+    }
+
+    private static long getModificationStamp(IDocument document) {
+        if (document instanceof IDocumentExtension4) {
+            return ((IDocumentExtension4) document).getModificationStamp();
+        }
+        return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    }
+
+    /**
+     * Searches a document copy for the matches which are not highlighted yet
+     * and hands them over to the UI thread in batches.
+     */
+    private class HighlightJob extends Job {
+
+        private final int jobGeneration;
+        private final long modificationStamp;
+        private final Pattern pattern;
+        private final String text;
+        /** spans of the matches which are already highlighted */
+        private final Set<Long> highlighted;
+
+        HighlightJob(int generation, long modificationStamp, Pattern pattern, String text,
+                Set<Long> highlighted) {
+            super("Vrapper search highlighting");
+            this.jobGeneration = generation;
+            this.modificationStamp = modificationStamp;
+            this.pattern = pattern;
+            this.text = text;
+            this.highlighted = highlighted;
+            setSystem(true);
+            setPriority(DECORATE);
+        }
+
+        @Override
+        protected IStatus run(IProgressMonitor monitor) {
+            Matcher matcher = pattern.matcher(text);
+            Map<Annotation, org.eclipse.jface.text.Position> batch = new HashMap<Annotation, org.eclipse.jface.text.Position>();
+            int offset = 0;
+            while (offset <= text.length() && matcher.find(offset)) {
+                if (monitor.isCanceled()) {
+                    return Status.CANCEL_STATUS;
+                }
+                if (!highlighted.contains(span(matcher))) {
+                    addMatch(batch, matcher);
+                }
+                if (batch.size() == BATCH_SIZE) {
+                    post(batch);
+                    batch = new HashMap<Annotation, org.eclipse.jface.text.Position>();
+                }
+                offset = matcher.end() > matcher.start() ? matcher.end() : matcher.end() + 1;
+            }
+            post(batch);
+            return Status.OK_STATUS;
+        }
+
+        private void post(final Map<Annotation, org.eclipse.jface.text.Position> batch) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            StyledText widget = textViewer.getTextWidget();
+            if (widget == null || widget.isDisposed()) {
+                cancel();
+                return;
+            }
+            widget.getDisplay().asyncExec(new Runnable() {
+                public void run() {
+                    if (jobGeneration != generation) {
+                        return;
+                    }
+                    IAnnotationModel am = getAnnotationModel();
+                    if (am == null) {
+                        return;
+                    }
+                    if (getModificationStamp(textViewer.getDocument()) != modificationStamp) {
+                        // offsets of the copy are stale, search again later
+                        HighlightJob.this.cancel();
+                        StyledText widget = textViewer.getTextWidget();
+                        if (widget != null && !widget.isDisposed()) {
+                            scheduleRefresh(widget);
+                        }
+                        return;
+                    }
+                    addAnnotations(am, batch);
+                }
+            });
+        }
     }
+
     private IAnnotationModel getAnnotationModel() {
         IDocumentProvider doc = editor.getDocumentProvider();
         return doc != null ? doc.getAnnotationModel(editor.getEditorInput()) : null;
@@ -1,5 +1,6 @@
 package net.sourceforge.vrapper.eclipse.platform;
 
+import net.sourceforge.vrapper.platform.Scheduler;
 import net.sourceforge.vrapper.platform.ServiceProvider;
 
 import org.eclipse.ui.handlers.IHandlerService;
@@ -8,9 +9,11 @@ import org.eclipse.ui.texteditor.AbstractTextEditor;
 public class EclipseServiceProvider implements ServiceProvider {
 
     private final IHandlerService handlerService;
+    private final Scheduler scheduler;
 
     public EclipseServiceProvider(AbstractTextEditor abstractTextEditor) {
         handlerService = (IHandlerService) abstractTextEditor.getSite().getService(IHandlerService.class);
+        scheduler = new EclipseScheduler(abstractTextEditor.getSite().getShell().getDisplay());
     }
 
     @SuppressWarnings("unchecked")
@@ -18,6 +21,9 @@ public class EclipseServiceProvider implements ServiceProvider {
         if (IHandlerService.class.equals(serviceClass)) {
             return (T) handlerService;
         }
+        if (Scheduler.class.equals(serviceClass)) {
+            return (T) scheduler;
+        }
         return null;
     }
 
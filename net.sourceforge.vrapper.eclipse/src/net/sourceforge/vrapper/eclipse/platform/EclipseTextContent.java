@@ -1,16 +1,30 @@
 package net.sourceforge.vrapper.eclipse.platform;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import net.sourceforge.vrapper.platform.TextContent;
+import net.sourceforge.vrapper.platform.TextContentListener;
+import net.sourceforge.vrapper.utils.ChunkedCharSequence;
 import net.sourceforge.vrapper.utils.LineInformation;
 import net.sourceforge.vrapper.utils.Space;
 import net.sourceforge.vrapper.utils.TextRange;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.ITextViewer;
 import org.eclipse.jface.text.ITextViewerExtension5;
 import org.eclipse.swt.custom.StyledText;
+import org.eclipse.swt.custom.StyledTextContent;
+import org.eclipse.swt.custom.TextChangeListener;
+import org.eclipse.swt.custom.TextChangedEvent;
+import org.eclipse.swt.custom.TextChangingEvent;
+import org.eclipse.swt.events.DisposeEvent;
+import org.eclipse.swt.events.DisposeListener;
 
 @SuppressWarnings("nls")
 public class EclipseTextContent {
@@ -37,7 +51,33 @@ public class EclipseTextContent {
         return viewSide;
     }
 
-    protected class ModelSideTextContent implements TextContent {
+    protected class ModelSideTextContent implements TextContent, IDocumentListener, ITextInputListener {
+
+        private final List<TextContentListener> listeners = new CopyOnWriteArrayList<TextContentListener>();
+        private int oldInputLength;
+        /** the document this is registered with */
+        private IDocument document;
+
+        public ModelSideTextContent() {
+            textViewer.addTextInputListener(this);
+            listenTo(textViewer.getDocument());
+            textViewer.getTextWidget().addDisposeListener(new DisposeListener() {
+                public void widgetDisposed(DisposeEvent e) {
+                    textViewer.removeTextInputListener(ModelSideTextContent.this);
+                    listenTo(null);
+                }
+            });
+        }
+
+        private void listenTo(IDocument newDocument) {
+            if (document != null) {
+                document.removeDocumentListener(this);
+            }
+            document = newDocument;
+            if (document != null) {
+                document.addDocumentListener(this);
+            }
+        }
 
         public LineInformation getLineInformation(int line) {
             try {
@@ -81,6 +121,10 @@ public class EclipseTextContent {
             return getText(range.getLeftBound().getModelOffset(), range.getModelLength());
         }
 
+        public CharSequence getCharSequence() {
+            return new ChunkedCharSequence(this);
+        }
+
         public void replace(int index, int length, String s) {
             try {
                 IDocument doc = textViewer.getDocument();
@@ -105,9 +149,80 @@ public class EclipseTextContent {
             return Space.MODEL;
         }
 
+        public void addTextContentListener(TextContentListener listener) {
+            listeners.add(listener);
+        }
+
+        public void removeTextContentListener(TextContentListener listener) {
+            listeners.remove(listener);
+        }
+
+        public void documentAboutToBeChanged(DocumentEvent event) {
+            // nothing to do
+        }
+
+        public void documentChanged(DocumentEvent event) {
+            String text = event.getText();
+            fireTextChanged(event.getOffset(), event.getLength(), text == null ? 0 : text.length());
+        }
+
+        public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+            listenTo(null);
+            oldInputLength = oldInput != null ? oldInput.getLength() : 0;
+        }
+
+        public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+            if (oldInput != null) {
+                oldInput.removeDocumentListener(this);
+            }
+            listenTo(newInput);
+            if (newInput != null) {
+                fireTextChanged(0, oldInputLength, newInput.getLength());
+            }
+        }
+
+        private void fireTextChanged(int offset, int removedLength, int insertedLength) {
+            for (TextContentListener listener : listeners) {
+                listener.textChanged(offset, removedLength, insertedLength);
+            }
+        }
+
     }
 
-    protected class ViewSideTextContent implements TextContent  {
+    protected class ViewSideTextContent implements TextContent, TextChangeListener, ITextInputListener {
+
+        private final List<TextContentListener> listeners = new CopyOnWriteArrayList<TextContentListener>();
+        /** the widget content this is registered with */
+        private StyledTextContent content;
+        private int length;
+        /** the replacement announced by textChanging */
+        private int changeStart;
+        private int changeRemoved;
+        private int changeInserted;
+
+        public ViewSideTextContent() {
+            // unlike an ExtendedModifyListener of the widget, this gets the
+            // modifications made through the document and folding too
+            listenTo(textViewer.getTextWidget().getContent());
+            textViewer.addTextInputListener(this);
+            textViewer.getTextWidget().addDisposeListener(new DisposeListener() {
+                public void widgetDisposed(DisposeEvent e) {
+                    textViewer.removeTextInputListener(ViewSideTextContent.this);
+                    listenTo(null);
+                }
+            });
+        }
+
+        private void listenTo(StyledTextContent newContent) {
+            if (content != null) {
+                content.removeTextChangeListener(this);
+            }
+            content = newContent;
+            if (content != null) {
+                content.addTextChangeListener(this);
+                length = content.getCharCount();
+            }
+        }
 
         public LineInformation getLineInformation(int line) {
             line = converter.widgetLine2ModelLine(line);
@@ -142,6 +257,10 @@ public class EclipseTextContent {
             return getText(range.getLeftBound().getViewOffset(), range.getViewLength());
         }
 
+        public CharSequence getCharSequence() {
+            return new ChunkedCharSequence(this);
+        }
+
         public void replace(int index, int length, String text) {
             // XXX: it was illegal in Vrapper. Why?
             textViewer.getTextWidget().replaceTextRange(index, length, text);
@@ -185,5 +304,48 @@ public class EclipseTextContent {
         public Space getSpace() {
             return Space.VIEW;
         }
+
+        public void addTextContentListener(TextContentListener listener) {
+            listeners.add(listener);
+        }
+
+        public void removeTextContentListener(TextContentListener listener) {
+            listeners.remove(listener);
+        }
+
+        public void textChanging(TextChangingEvent event) {
+            changeStart = event.start;
+            changeRemoved = event.replaceCharCount;
+            changeInserted = event.newCharCount;
+        }
+
+        public void textChanged(TextChangedEvent event) {
+            fireTextChanged(changeStart, changeRemoved, changeInserted);
+        }
+
+        public void textSet(TextChangedEvent event) {
+            fireTextChanged(0, length, content.getCharCount());
+        }
+
+        public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+            // the widget content announces the new text
+        }
+
+        public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+            StyledTextContent newContent = textViewer.getTextWidget().getContent();
+            if (newContent != content) {
+                int oldLength = length;
+                listenTo(newContent);
+                length = oldLength;
+                fireTextChanged(0, oldLength, newContent.getCharCount());
+            }
+        }
+
+        private void fireTextChanged(int offset, int removedLength, int insertedLength) {
+            length += insertedLength - removedLength;
+            for (TextContentListener listener : listeners) {
+                listener.textChanged(offset, removedLength, insertedLength);
+            }
+        }
     }
 }
@@ -6,6 +6,7 @@ import net.sourceforge.vrapper.platform.UserInterfaceService;
 
 import org.eclipse.jface.action.IStatusLineManager;
 import org.eclipse.jface.text.ITextViewer;
+import org.eclipse.swt.custom.StyledText;
 import org.eclipse.ui.IEditorPart;
 import org.eclipse.ui.IPartListener;
 import org.eclipse.ui.IWorkbenchPart;
@@ -13,14 +14,20 @@ import org.eclipse.ui.IWorkbenchPart;
 public class EclipseUserInterfaceService implements UserInterfaceService {
 
     private static final String CONTRIBUTION_ITEM_NAME = "VimInputMode";
+    /** key of the info message in the {@link UIUpdateCoalescer} */
+    private static final Object INFO_MESSAGE = new Object();
 
     private final StatusLine statusLine;
     private final IEditorPart editor;
+    private final StyledText textWidget;
     private final ModeContributionItem vimInputModeItem;
+    private final UIUpdateCoalescer coalescer;
     private String currentMode;
 
-    public EclipseUserInterfaceService(IEditorPart editor, ITextViewer textViewer) {
+    public EclipseUserInterfaceService(IEditorPart editor, ITextViewer textViewer, UIUpdateCoalescer coalescer) {
         this.editor = editor;
+        this.coalescer = coalescer;
+        textWidget = textViewer.getTextWidget();
         statusLine = new StatusLine(textViewer.getTextWidget());
         vimInputModeItem = getContributionItem();
         setEditorMode(VRAPPER_DISABLED);
@@ -34,15 +41,35 @@ public class EclipseUserInterfaceService implements UserInterfaceService {
 
     public void setEditorMode(String modeName) {
         currentMode = "-- " + modeName + " --";
-        vimInputModeItem.setText(currentMode);
+        coalescer.update(vimInputModeItem, new Runnable() {
+            public void run() {
+                if (!isClosed()) {
+                    vimInputModeItem.setText(currentMode);
+                }
+            }
+        });
     }
 
     public void setErrorMessage(String content) {
         editor.getEditorSite().getActionBars().getStatusLineManager().setErrorMessage(content);
     }
 
-    public void setInfoMessage(String content) {
-        editor.getEditorSite().getActionBars().getStatusLineManager().setMessage(content);
+    public void setInfoMessage(final String content) {
+        coalescer.update(INFO_MESSAGE, new Runnable() {
+            public void run() {
+                if (!isClosed()) {
+                    editor.getEditorSite().getActionBars().getStatusLineManager().setMessage(content);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return whether the editor has been closed since an update was
+     *         scheduled.
+     */
+    private boolean isClosed() {
+        return textWidget == null || textWidget.isDisposed();
     }
 
     private ModeContributionItem getContributionItem() {
@@ -0,0 +1,57 @@
+package net.sourceforge.vrapper.eclipse.platform;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.swt.widgets.Display;
+
+/**
+ * Collects updates of the status line, the mode label and the caret and
+ * applies only the latest update of each kind, once the {@link Display} has
+ * finished handling the current event. Remapped keys and played macros are
+ * handled within one key event, so they cause one update instead of one per
+ * keystroke.
+ */
+public class UIUpdateCoalescer {
+
+    private final Display display;
+    private final Map<Object, Runnable> pending = new LinkedHashMap<Object, Runnable>();
+    private boolean scheduled;
+    private final Runnable flushTask = new Runnable() {
+        public void run() {
+            flush();
+        }
+    };
+
+    public UIUpdateCoalescer(Display display) {
+        this.display = display;
+    }
+
+    /**
+     * Schedules an update, replacing the pending update with the same key.
+     */
+    public void update(Object key, Runnable update) {
+        pending.put(key, update);
+        if (!scheduled && !display.isDisposed()) {
+            scheduled = true;
+            display.asyncExec(flushTask);
+        }
+    }
+
+    /** Applies the pending updates now. */
+    public void flush() {
+        scheduled = false;
+        if (pending.isEmpty()) {
+            return;
+        }
+        // an update may schedule another one
+        List<Runnable> updates = new ArrayList<Runnable>(pending.values());
+        pending.clear();
+        for (Runnable update : updates) {
+            update.run();
+        }
+    }
+
+}